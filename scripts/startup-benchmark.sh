@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+#
+# Starts the application several times and reports how long it takes until /health reports UP, which includes
+# the warm-up, and its resident set size and used heap at that point.
+#
+#   scripts/startup-benchmark.sh [runs] -- <command starting the application>
+#
+# e.g. scripts/startup-benchmark.sh 5 -- java -Xmx512m -jar target/publishing-1.0-SNAPSHOT.jar --db.url=...
+# HEALTH_URL overrides the health endpoint polled, http://localhost:9090/health by default. With PROBE_URL, the time of
+# the first request to it once the application is ready is reported as well, authenticated as PROBE_USER (user:password).
+
+set -euo pipefail
+
+RUNS=5
+if [[ $# -gt 0 && $1 != "--" ]]; then
+    RUNS=$1
+    shift
+fi
+[[ ${1:-} == "--" ]] && shift
+if [[ $# -eq 0 ]]; then
+    echo "usage: $0 [runs] -- <command starting the application>" >&2
+    exit 2
+fi
+HEALTH_URL=${HEALTH_URL:-http://localhost:9090/health}
+
+millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+ready_times=()
+for run in $(seq "$RUNS"); do
+    started=$(millis)
+    "$@" > /dev/null 2>&1 &
+    pid=$!
+    until curl -s "$HEALTH_URL" 2> /dev/null | grep -q '"status":"UP"'; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "the application exited before becoming ready" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    ready=$(( $(millis) - started ))
+    probe=""
+    if [[ -n ${PROBE_URL:-} ]]; then
+        probe_seconds=$(curl -s -o /dev/null -w '%{time_total}' ${PROBE_USER:+-u "$PROBE_USER"} "$PROBE_URL")
+        probe=", first request $(awk -v s="$probe_seconds" 'BEGIN { printf "%d", s * 1000 }') ms"
+    fi
+    rss_kb=$(awk '/^VmRSS/ { print $2 }' "/proc/$pid/status")
+    # used heap of all spaces: S0U S1U EU OU
+    heap_kb=$(jstat -gc "$pid" 2> /dev/null | awk 'NR == 2 { printf "%d", $3 + $4 + $6 + $8 }' || true)
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    ready_times+=("$ready")
+    echo "run $run: ready after ${ready} ms, rss $(( rss_kb / 1024 )) MB, heap used $(( ${heap_kb:-0} / 1024 )) MB$probe"
+done
+
+sorted=($(printf '%s\n' "${ready_times[@]}" | sort -n))
+echo "median ready after ${sorted[$(( RUNS / 2 ))]} ms over $RUNS runs"
@@ -0,0 +1,132 @@
+package de.axelspringer.publishing.benchmark;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import de.axelspringer.publishing.Application;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.model.BulkItemResult;
+import de.axelspringer.publishing.service.ArticleService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The application running against the embedded HSQLDB of the test profile, seeded with a synthetic corpus
+ * of {@code articles} articles. The corpus is generated from a fixed seed, so every run sees the same data.
+ * Authors and keywords are skewed towards the low numbers, like real tags: {@code keyword0} is on many articles,
+ * {@code keyword499} on few. Texts mention skewed {@code topic} words the same way, for full-text search.
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+    public static final int AUTHORS = 1000;
+    public static final int KEYWORDS = 500;
+    public static final int TOPICS = 2000;
+    public static final OffsetDateTime FIRST_PUBLISHED = OffsetDateTime.of(2010, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    public static final int PUBLISHED_DAYS = 5 * 365;
+
+    private static final long SEED = 20150721L;
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param("10000")
+    public int articles;
+
+    private ConfigurableApplicationContext context;
+
+    private int[] ids;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(Application.class).
+                profiles("test").
+                web(false).
+                run("--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                        "--articles.text-index.enabled=true");
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * A random id of a seeded article.
+     */
+    public int randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    public static String author(int number) {
+        return "author" + number;
+    }
+
+    public static String keyword(int number) {
+        return "keyword" + number;
+    }
+
+    public static String topic(int number) {
+        return "topic" + number;
+    }
+
+    /**
+     * A random number below {@code bound}, low numbers being much more likely than high ones.
+     */
+    public static int skewed(Random random, int bound) {
+        return random.nextInt(random.nextInt(bound) + 1);
+    }
+
+    public static Article newArticle(Random random, int number, int authors) {
+        Article article = new Article();
+        article.setHeader("header " + number + " on " + topic(skewed(random, TOPICS)));
+        article.setDescription("description of article " + number + " on " + topic(skewed(random, TOPICS)));
+        article.setText("text of article " + number + ", lorem ipsum dolor sit amet, consectetur adipiscing elit, " +
+                topic(skewed(random, TOPICS)) + " sed do eiusmod tempor incididunt ut labore " + topic(skewed(random, TOPICS)) +
+                " et dolore magna aliqua");
+        article.setPublished(FIRST_PUBLISHED.plusSeconds(random.nextInt(PUBLISHED_DAYS * 86400)));
+        Set<Author> articleAuthors = Sets.newHashSet();
+        while (articleAuthors.size() < authors) {
+            articleAuthors.add(Author.fromJson(author(skewed(random, AUTHORS))));
+        }
+        article.setAuthors(articleAuthors);
+        Set<String> keywords = Sets.newHashSet();
+        for (int i = 1 + random.nextInt(5); i > 0; i--) {
+            keywords.add(keyword(skewed(random, KEYWORDS)));
+        }
+        article.setKeywords(keywords);
+        return article;
+    }
+
+    private void seed() {
+        ArticleService articleService = getBean(ArticleService.class);
+        Random random = new Random(SEED);
+        ids = new int[articles];
+        for (int offset = 0; offset < articles; offset += CHUNK_SIZE) {
+            List<Article> chunk = Lists.newArrayListWithCapacity(CHUNK_SIZE);
+            for (int i = offset; i < Math.min(offset + CHUNK_SIZE, articles); i++) {
+                chunk.add(newArticle(random, i, 1 + random.nextInt(3)));
+            }
+            List<BulkItemResult> results = articleService.createAll(chunk);
+            for (int i = 0; i < results.size(); i++) {
+                ids[offset + i] = results.get(i).getId();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.axelspringer.publishing.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.axelspringer.publishing.benchmark.Corpus;
+import de.axelspringer.publishing.json.WireFormat;
+import de.axelspringer.publishing.model.Article;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of {@code GET /articles}: {@link #serialize} measures the JSON encoding of a page loaded up front,
+ * {@link #list} the work of the request from the query to the encoded body and {@link #revalidate} a request
+ * answered with 304 from the versions of the page. The handlers are called as on the database thread, without
+ * the asynchronous dispatch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArticleListBenchmark {
+
+    @Param({ "100", "1000" })
+    public int limit;
+
+    private ArticleController articleController;
+
+    private ObjectMapper objectMapper;
+
+    private UriComponents uri = UriComponentsBuilder.fromPath("/articles").build();
+
+    private ConditionalRequests.Validators unconditional;
+
+    /**
+     * Validators of a client having the page.
+     */
+    private ConditionalRequests.Validators conditional;
+
+    private Map<Integer, Article> page;
+
+    @Setup
+    public void setUp(Corpus corpus) {
+        articleController = corpus.getBean(ArticleController.class);
+        objectMapper = corpus.getBean(ObjectMapper.class);
+        unconditional = ConditionalRequests.Validators.of(new MockHttpServletRequest("GET", "/articles"));
+        ResponseEntity<Map<Integer, Article>> response = articleController.list(null, limit, WireFormat.JSON, unconditional, uri);
+        page = response.getBody();
+        MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/articles");
+        conditionalRequest.addHeader(HttpHeaders.IF_NONE_MATCH, response.getHeaders().getETag());
+        conditional = ConditionalRequests.Validators.of(conditionalRequest);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] list() throws Exception {
+        return objectMapper.writeValueAsBytes(articleController.list(null, limit, WireFormat.JSON, unconditional, uri).getBody());
+    }
+
+    @Benchmark
+    public HttpStatus revalidate() {
+        return articleController.list(null, limit, WireFormat.JSON, conditional, uri).getStatusCode();
+    }
+}
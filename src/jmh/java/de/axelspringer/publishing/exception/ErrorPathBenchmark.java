@@ -0,0 +1,105 @@
+package de.axelspringer.publishing.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import de.axelspringer.publishing.json.ObjectMappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answering a lookup of a missing article and a malformed search: throwing from {@code depth} frames below the
+ * handler and turning the exception into the response body. The stackless exceptions with the pre-built
+ * {@link ErrorResponses} of {@link ExceptionsTranslator} are compared with exceptions filling in their stack trace
+ * and a body serialized for each ({@code -p errors=legacy}), as before. Run with {@code -t 4} for a 404-heavy load.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    private static final String NOT_FOUND = "Article doesn't exist";
+    private static final String BAD_REQUEST = "Sort must be one of id, published or relevance";
+
+    /**
+     * A request thrown at from a service below a servlet container, filters and Spring MVC is about 100 frames deep.
+     */
+    @Param({ "20", "100" })
+    public int depth;
+
+    @Param({ "prebuilt", "legacy" })
+    public String errors;
+
+    private boolean legacy;
+
+    private ExceptionsTranslator exceptionsTranslator;
+
+    private ObjectMapper objectMapper;
+
+    private MockHttpServletRequest request = new MockHttpServletRequest("GET", "/articles/-1");
+
+    @Setup
+    public void setUp() {
+        legacy = "legacy".equals(errors);
+        objectMapper = new ObjectMapper();
+        ObjectMappers objectMappers = new ObjectMappers();
+        ReflectionTestUtils.setField(objectMappers, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(objectMappers, "objectMapperBuilder", new Jackson2ObjectMapperBuilder());
+        objectMappers.init();
+        exceptionsTranslator = new ExceptionsTranslator();
+        ReflectionTestUtils.setField(exceptionsTranslator, "objectMappers", objectMappers);
+        exceptionsTranslator.init();
+    }
+
+    @Benchmark
+    public byte[] notFound() throws Exception {
+        try {
+            throwFrom(depth, true);
+            throw new AssertionError();
+        } catch (NotFoundException e) {
+            return exceptionsTranslator.handleResourceNotFoundException(e, request).getBody();
+        } catch (RuntimeException e) {
+            return objectMapper.writeValueAsBytes(ImmutableMap.of("status", HttpStatus.NOT_FOUND, "error", e.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public byte[] badRequest() throws Exception {
+        try {
+            throwFrom(depth, false);
+            throw new AssertionError();
+        } catch (BadRequestException e) {
+            return exceptionsTranslator.handleBadRequestException(e, request).getBody();
+        } catch (RuntimeException e) {
+            return objectMapper.writeValueAsBytes(ImmutableMap.of("status", HttpStatus.BAD_REQUEST, "error", e.getMessage()));
+        }
+    }
+
+    private void throwFrom(int frames, boolean notFound) {
+        if(frames > 0) {
+            throwFrom(frames - 1, notFound);
+            return;
+        }
+        if(legacy) {
+            throw notFound ? new RuntimeException(NOT_FOUND) : new IllegalArgumentException(BAD_REQUEST);
+        }
+        throw notFound ? new NotFoundException(NOT_FOUND) : new BadRequestException(BAD_REQUEST);
+    }
+}
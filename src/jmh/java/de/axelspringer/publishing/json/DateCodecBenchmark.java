@@ -0,0 +1,91 @@
+package de.axelspringer.publishing.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomDateSerializer} and {@link CustomDateDeserializer} on their own, for every shape of date they emit,
+ * compared with the {@code java.time} based codec they replaced ({@code -p codec=jdk}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateCodecBenchmark {
+
+    @Param({ "2015-07-21T10:15Z", "2015-07-21T10:15:30Z", "2015-07-21T10:15:30.123Z", "2015-07-21T10:15:30.123456789Z",
+            "2015-07-21T12:15:30.123+02:00" })
+    public String date;
+
+    @Param({ "iso", "jdk" })
+    public String codec;
+
+    private ObjectMapper objectMapper;
+
+    private OffsetDateTime value;
+
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        boolean jdk = "jdk".equals(codec);
+        objectMapper = new ObjectMapper().registerModule(new SimpleModule().
+                addSerializer(OffsetDateTime.class, jdk ? new JdkSerializer() : new CustomDateSerializer()).
+                addDeserializer(OffsetDateTime.class, jdk ? new JdkDeserializer() : new CustomDateDeserializer()));
+        value = OffsetDateTime.parse(date);
+        json = objectMapper.writeValueAsString(value);
+    }
+
+    @Benchmark
+    public String serialize() throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    @Benchmark
+    public OffsetDateTime deserialize() throws Exception {
+        return objectMapper.readValue(json, OffsetDateTime.class);
+    }
+
+    @Benchmark
+    public OffsetDateTime roundTrip() throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsString(value), OffsetDateTime.class);
+    }
+
+    static class JdkSerializer extends JsonSerializer<OffsetDateTime> {
+        @Override
+        public void serialize(OffsetDateTime offsetDateTime, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+            jsonGenerator.writeString(offsetDateTime.atZoneSameInstant(ZoneOffset.UTC).toString());
+        }
+    }
+
+    static class JdkDeserializer extends JsonDeserializer<OffsetDateTime> {
+        @Override
+        public OffsetDateTime deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
+            return OffsetDateTime.parse(jsonParser.getValueAsString());
+        }
+    }
+}
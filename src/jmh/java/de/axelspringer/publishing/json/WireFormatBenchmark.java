@@ -0,0 +1,106 @@
+package de.axelspringer.publishing.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.benchmark.Corpus;
+import de.axelspringer.publishing.model.Article;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writing and reading a page of articles in every {@link WireFormat}, with and without gzip ({@code -p gzip=true}),
+ * as a client of {@code /articles} would. The encoded size of the page is printed on setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<Article>> ARTICLES = new TypeReference<List<Article>>() {
+    };
+
+    @Param({ "JSON", "SMILE", "CBOR" })
+    public WireFormat format;
+
+    @Param({ "false", "true" })
+    public boolean gzip;
+
+    @Param({ "100" })
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<Article> page;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        if(format != WireFormat.JSON) {
+            JsonFactory factory = format == WireFormat.SMILE ? new SmileFactory() : new CBORFactory();
+            objectMapper = new ObjectMapper(factory);
+            Jackson2ObjectMapperBuilder.json().configure(objectMapper);
+        }
+        Random random = new Random(pageSize);
+        page = Lists.newArrayListWithCapacity(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Article article = Corpus.newArticle(random, i, 1 + random.nextInt(3));
+            article.setId(i + 1);
+            article.setVersion(random.nextInt(10));
+            page.add(article);
+        }
+        encoded = serialize();
+        System.out.printf("%n%s%s: %d bytes for %d articles%n", format, gzip ? " gzip" : "", encoded.length, pageSize);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        if(!gzip) {
+            return objectMapper.writeValueAsBytes(page);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Article> deserialize() throws IOException {
+        if(!gzip) {
+            return objectMapper.readValue(encoded, ARTICLES);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            return objectMapper.readValue(in, ARTICLES);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.ImmutableList;
+import de.axelspringer.publishing.benchmark.Corpus;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.service.ArticleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the stage metrics: the instrumented service calls with recording switched on and off,
+ * and the bare cost of recording one stage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StageMetricsBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean metrics;
+
+    private ArticleService articleService;
+
+    private Stage stage;
+
+    private List<String> keywords;
+
+    @Setup
+    public void setUp(Corpus corpus) {
+        articleService = corpus.getBean(ArticleService.class);
+        StageMetrics stageMetrics = corpus.getBean(StageMetrics.class);
+        stageMetrics.setEnabled(metrics);
+        stage = stageMetrics.stage("benchmark");
+        keywords = ImmutableList.of(Corpus.keyword(100));
+    }
+
+    @Benchmark
+    public Article read(Corpus corpus) {
+        return articleService.read(corpus.randomId());
+    }
+
+    @Benchmark
+    public List<Integer> findIds() {
+        return articleService.findIds(keywords, null, null, null);
+    }
+
+    @Benchmark
+    public void record() {
+        stage.record(System.nanoTime(), StatementCounter.mark(), 1);
+    }
+}
@@ -0,0 +1,251 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import de.axelspringer.publishing.benchmark.Corpus;
+import de.axelspringer.publishing.metrics.StatementCounter;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Article_;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The service methods against a seeded {@link Corpus}. {@link #read}, {@link #update} and {@link #delete} also print
+ * the prepared statements per call after each iteration; allocations per call are reported with {@code -prof gc}:
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args="ArticleServiceBenchmark.(read|update|delete) -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArticleServiceBenchmark {
+
+    /**
+     * Search criteria by name: a popular keyword, an author and a one year publication window, alone or combined.
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+
+        @Param({ "keywords", "authors", "published", "keywords+authors", "keywords+published", "keywords+authors+published" })
+        public String criteria;
+
+        List<String> keywords;
+        List<String> authors;
+        OffsetDateTime publishedSince;
+        OffsetDateTime publishedBefore;
+
+        @Setup
+        public void setUp() {
+            Set<String> names = Sets.newHashSet(criteria.split("\\+"));
+            if(names.contains("keywords")) {
+                keywords = ImmutableList.of(Corpus.keyword(10));
+            }
+            if(names.contains("authors")) {
+                authors = ImmutableList.of(Corpus.author(10), Corpus.author(20));
+            }
+            if(names.contains("published")) {
+                publishedSince = Corpus.FIRST_PUBLISHED.plusYears(2);
+                publishedBefore = Corpus.FIRST_PUBLISHED.plusYears(3);
+            }
+        }
+    }
+
+    /**
+     * A full-text query for a frequent, a common or a rare topic, matched by the index or by {@code LIKE} on the database.
+     */
+    @State(Scope.Benchmark)
+    public static class TextQuery {
+
+        @Param({ "10", "100", "1000" })
+        public int topic;
+
+        @Param({ "lucene", "like" })
+        public String engine;
+
+        String text;
+
+        @Setup
+        public void setUp() {
+            text = Corpus.topic(topic);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Faceted {
+
+        @Param({ "false", "true" })
+        public boolean faceted;
+
+        Set<SearchPage.Facet> facets;
+
+        @Setup
+        public void setUp() {
+            facets = faceted ? EnumSet.allOf(SearchPage.Facet.class) : EnumSet.noneOf(SearchPage.Facet.class);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Create {
+
+        @Param({ "1", "10", "50" })
+        public int authors;
+    }
+
+    /**
+     * An article created for each call of {@link #delete}, so that deleting doesn't use up the corpus. Creating it
+     * takes a transaction of its own, which dwarfs the cost of a setup per invocation.
+     */
+    @State(Scope.Thread)
+    public static class Deletable {
+
+        int id;
+
+        @Setup(Level.Invocation)
+        public void create(Corpus corpus) {
+            Random random = ThreadLocalRandom.current();
+            id = corpus.getBean(ArticleService.class).create(Corpus.newArticle(random, random.nextInt(), 2)).getId();
+        }
+    }
+
+    /**
+     * Statements prepared per call on the benchmark thread, counted by {@link StatementCounter}, as JMH only reports time.
+     */
+    @State(Scope.Thread)
+    public static class Statements {
+
+        long calls;
+        long statements;
+
+        void count(long mark) {
+            calls++;
+            statements += StatementCounter.since(mark);
+        }
+
+        @TearDown(Level.Iteration)
+        public void print() {
+            if(calls > 0) {
+                System.out.printf("%.2f statements per call%n", (double) statements / calls);
+            }
+            calls = 0;
+            statements = 0;
+        }
+    }
+
+    private ArticleService articleService;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp(Corpus corpus) {
+        articleService = corpus.getBean(ArticleService.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(corpus.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(corpus.getBean(PlatformTransactionManager.class));
+        corpus.getBean(ArticleTextIndex.class).refresh();
+    }
+
+    @Benchmark
+    public List<Article> find(Query query) {
+        return articleService.find(query.keywords, query.authors, query.publishedSince, query.publishedBefore);
+    }
+
+    @Benchmark
+    public List<Integer> findIds(Query query) {
+        return articleService.findIds(query.keywords, query.authors, query.publishedSince, query.publishedBefore);
+    }
+
+    /**
+     * The first page of a text query, the index ranking its hits against the database scanning for the word
+     * in header, description and text, which is all a Criteria query can do without an index.
+     */
+    @Benchmark
+    public List<Integer> searchText(TextQuery query) {
+        if(query.engine.equals("lucene")) {
+            return articleService.findIds(query.text, null, null, null, null, 0, 100);
+        }
+        return transactionTemplate.execute(status -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Integer> criteria = criteriaBuilder.createQuery(Integer.class);
+            Root<Article> articleRoot = criteria.from(Article.class);
+            String pattern = "%" + query.text + "%";
+            criteria.select(articleRoot.get(Article_.id)).where(criteriaBuilder.or(
+                    criteriaBuilder.like(articleRoot.get(Article_.header), pattern),
+                    criteriaBuilder.like(articleRoot.get(Article_.description), pattern),
+                    criteriaBuilder.like(articleRoot.get(Article_.text), pattern)));
+            return entityManager.createQuery(criteria).setMaxResults(100).getResultList();
+        });
+    }
+
+    /**
+     * The first page of the newest articles matching the criteria, with or without the counts of all three facets,
+     * against the id ordered {@link #findIds} materializing every match.
+     */
+    @Benchmark
+    public SearchPage searchSorted(Query query, Faceted faceted) {
+        return articleService.search(null, query.keywords, query.authors, query.publishedSince, query.publishedBefore,
+                SearchPage.Sort.PUBLISHED, null, 100, faceted.facets);
+    }
+
+    @Benchmark
+    public Article create(Create create) {
+        Random random = ThreadLocalRandom.current();
+        return articleService.create(Corpus.newArticle(random, random.nextInt(), create.authors));
+    }
+
+    @Benchmark
+    public Article read(Corpus corpus, Statements statements) {
+        long mark = StatementCounter.mark();
+        Article article = articleService.read(corpus.randomId());
+        statements.count(mark);
+        return article;
+    }
+
+    @Benchmark
+    public Article update(Corpus corpus, Statements statements) {
+        Random random = ThreadLocalRandom.current();
+        Article article = Corpus.newArticle(random, random.nextInt(), 2);
+        article.setId(corpus.randomId());
+        long mark = StatementCounter.mark();
+        Article updated = articleService.update(article);
+        statements.count(mark);
+        return updated;
+    }
+
+    @Benchmark
+    public void delete(Deletable deletable, Statements statements) {
+        long mark = StatementCounter.mark();
+        articleService.delete(deletable.id);
+        statements.count(mark);
+    }
+}
@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.orm.jpa.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @EnableJpaRepositories("de.axelspringer.publishing.persistence")
 @ComponentScan("de.axelspringer.publishing")
 @EntityScan("de.axelspringer.publishing.model")
+@EnableTransactionManagement
 public class Application {
 
     public static void main(String[] args) {
@@ -1,9 +1,21 @@
 package de.axelspringer.publishing.config;
 
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.actuate.autoconfigure.TraceWebFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.MultipartAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.WebSocketAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+/**
+ * Auto-configuration without what the API doesn't use: multipart uploads, websockets, Spring Data's web binding
+ * and the actuator's request tracing, which keeps every request in memory. Components are scanned once,
+ * by {@link de.axelspringer.publishing.Application}. The test profile's configuration excludes the same.
+ */
 @Profile("!test")
-@SpringBootApplication
+@Configuration
+@EnableAutoConfiguration(exclude = { MultipartAutoConfiguration.class, WebSocketAutoConfiguration.class,
+        SpringDataWebAutoConfiguration.class, TraceWebFilterAutoConfiguration.class })
 public class ApplicationConfig {
 }
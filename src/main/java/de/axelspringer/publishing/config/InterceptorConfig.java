@@ -0,0 +1,31 @@
+package de.axelspringer.publishing.config;
+
+import de.axelspringer.publishing.controller.AdmissionInterceptor;
+import de.axelspringer.publishing.metrics.HandlerMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * The interceptors of the article requests: the {@link HandlerMetrics}, which count those rejected by the
+ * following ones too, and the rate limiting and admission control with {@code articles.rate-limit.enabled=true}.
+ * The actuator endpoints aren't intercepted.
+ */
+@Configuration
+public class InterceptorConfig extends WebMvcConfigurerAdapter {
+
+    @Autowired
+    private HandlerMetrics handlerMetrics;
+
+    @Autowired(required = false)
+    private AdmissionInterceptor admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(handlerMetrics).addPathPatterns("/articles", "/articles/**");
+        if(admissionInterceptor != null) {
+            registry.addInterceptor(admissionInterceptor).addPathPatterns("/articles", "/articles/**");
+        }
+    }
+}
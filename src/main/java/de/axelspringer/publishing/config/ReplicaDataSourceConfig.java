@@ -0,0 +1,73 @@
+package de.axelspringer.publishing.config;
+
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.persistence.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.bind.PropertySourcesPropertyValues;
+import org.springframework.boot.bind.RelaxedDataBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Read-only transactions on the replicas at {@code articles.replicas.urls}, everything else on the primary at
+ * {@code spring.datasource.url}; see {@link ReplicaRoutingDataSource}. All pools are configured by the
+ * {@code spring.datasource} properties, replicas only get their own url. Replaces the auto-configured data source
+ * with {@code articles.replicas.enabled=true}.
+ */
+@Profile("!test")
+@Configuration
+@ConditionalOnProperty(prefix = "articles.replicas", name = "enabled")
+public class ReplicaDataSourceConfig {
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    @Value("${articles.replicas.urls}")
+    private String[] replicaUrls;
+
+    @Value("${articles.replicas.health-check-millis:1000}")
+    private long healthCheckMillis;
+
+    private final List<org.apache.tomcat.jdbc.pool.DataSource> pools = Lists.newArrayList();
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource() {
+        DataSource primary = pool(null);
+        List<DataSource> replicas = Lists.newArrayList();
+        for (String url : replicaUrls) {
+            replicas.add(pool(url.trim()));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, healthCheckMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource());
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.forEach(org.apache.tomcat.jdbc.pool.DataSource::close);
+    }
+
+    private org.apache.tomcat.jdbc.pool.DataSource pool(String url) {
+        org.apache.tomcat.jdbc.pool.DataSource pool = new org.apache.tomcat.jdbc.pool.DataSource();
+        new RelaxedDataBinder(pool, "spring.datasource").bind(new PropertySourcesPropertyValues(environment.getPropertySources()));
+        if(url != null) {
+            pool.setUrl(url);
+        }
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,74 @@
+package de.axelspringer.publishing.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.axelspringer.publishing.controller.ResponseBodyHttpMessageConverter;
+import de.axelspringer.publishing.json.ObjectMappers;
+import de.axelspringer.publishing.json.WireFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import java.util.List;
+
+/**
+ * Content negotiation of the binary {@link WireFormat}s next to JSON, and gzip compression of large responses
+ * by the embedded Tomcat.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Value("${articles.compression.enabled:false}")
+    private boolean compression;
+
+    @Value("${articles.compression.min-response-size:2048}")
+    private int compressionMinResponseSize;
+
+    @Value("${articles.compression.mime-types:application/json,application/x-ndjson}")
+    private String compressionMimeTypes;
+
+    @Autowired
+    private ObjectMappers objectMappers;
+
+    /**
+     * The binary formats are added after the default converters, so that JSON stays the answer to {@code Accept: *}{@code /*}.
+     * Cached documents come first, as they are already serialized in the negotiated format.
+     */
+    @Bean
+    public WebMvcConfigurer binaryWireFormats() {
+        return new WebMvcConfigurerAdapter() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(0, new ResponseBodyHttpMessageConverter());
+                converters.add(new JacksonBinaryHttpMessageConverter(objectMappers.get(WireFormat.SMILE), WireFormat.SMILE));
+                converters.add(new JacksonBinaryHttpMessageConverter(objectMappers.get(WireFormat.CBOR), WireFormat.CBOR));
+            }
+        };
+    }
+
+    @Bean
+    public EmbeddedServletContainerCustomizer compressionCustomizer() {
+        return container -> {
+            if(compression && container instanceof TomcatEmbeddedServletContainerFactory) {
+                ((TomcatEmbeddedServletContainerFactory) container).addConnectorCustomizers(connector -> {
+                    connector.setProperty("compression", "on");
+                    connector.setProperty("compressionMinSize", String.valueOf(compressionMinResponseSize));
+                    connector.setProperty("compressableMimeType", compressionMimeTypes);
+                });
+            }
+        };
+    }
+
+    private static class JacksonBinaryHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+        JacksonBinaryHttpMessageConverter(ObjectMapper objectMapper, WireFormat format) {
+            super(objectMapper, format.getMediaType());
+        }
+    }
+}
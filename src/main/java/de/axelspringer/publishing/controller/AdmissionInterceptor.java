@@ -0,0 +1,155 @@
+package de.axelspringer.publishing.controller;
+
+import de.axelspringer.publishing.service.AdmissionControl;
+import de.axelspringer.publishing.service.AdmissionControl.Budget;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits the article requests through the {@link AdmissionControl}: writes by their method, searches by their path,
+ * everything else as reads. Clients are told apart by their user, and by their address too if they are anonymous or
+ * share the user, listed in {@code articles.rate-limit.shared-users}, by default the {@code security.user.name}.
+ * Requests through a proxy listed in {@code articles.rate-limit.trusted-proxies} are told apart by the
+ * {@value #CLIENT_HEADER} header it sets instead of the address; from anywhere else the header is ignored, as clients
+ * could send a new one with every request to get a full budget.
+ * <p>
+ * Rejections are answered by the {@link de.axelspringer.publishing.exception.ExceptionsTranslator}. A request is timed
+ * from its admission until it has completed, including the database work of asynchronous requests, which is dispatched
+ * again once done. Asynchronous requests which aren't dispatched again, as they failed or timed out or the client went
+ * away, complete once their async context does.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.rate-limit", name = "enabled")
+public class AdmissionInterceptor extends HandlerInterceptorAdapter {
+
+    static final String CLIENT_HEADER = "X-Client-Id";
+
+    private static final String ANONYMOUS = "anonymous";
+    private static final String ADMISSION = AdmissionInterceptor.class.getName() + ".admission";
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Value("${articles.rate-limit.shared-users:${security.user.name:}}")
+    private String[] sharedUsers;
+
+    @Value("${articles.rate-limit.trusted-proxies:}")
+    private String[] trustedProxies;
+
+    private Set<String> shared;
+    private Set<String> proxies;
+
+    @PostConstruct
+    public void init() {
+        shared = ImmutableSet.copyOf(sharedUsers);
+        proxies = ImmutableSet.copyOf(trustedProxies);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if(request.getDispatcherType() == DispatcherType.ASYNC) {
+            // admitted by the initial dispatch
+            return true;
+        }
+        Budget budget = budget(request);
+        admissionControl.admit(client(request), budget);
+        request.setAttribute(ADMISSION, new Admission(budget));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Admission admission = (Admission) request.getAttribute(ADMISSION);
+        if(admission != null) {
+            request.getAsyncContext().addListener(admission);
+        }
+    }
+
+    /**
+     * Not called by the dispatch which started asynchronous processing, only by the one completing it.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Admission admission = (Admission) request.getAttribute(ADMISSION);
+        if(admission != null) {
+            admission.complete();
+        }
+    }
+
+    private String client(HttpServletRequest request) {
+        String user = request.getRemoteUser();
+        if(user == null) {
+            user = ANONYMOUS;
+        } else if(!shared.contains(user)) {
+            return user;
+        }
+        String client = request.getHeader(CLIENT_HEADER);
+        if(client != null && proxies.contains(request.getRemoteAddr())) {
+            return user + "/" + client;
+        }
+        return user + "@" + request.getRemoteAddr();
+    }
+
+    private static Budget budget(HttpServletRequest request) {
+        switch (request.getMethod()) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+                return request.getRequestURI().endsWith("/search") ? Budget.SEARCH : Budget.READ;
+            default:
+                return Budget.WRITE;
+        }
+    }
+
+    /**
+     * An admitted request, completed once by whichever comes first: the last dispatch or the end of its async context.
+     */
+    private final class Admission implements AsyncListener {
+
+        final Budget budget;
+        final long admitted = System.nanoTime();
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        Admission(Budget budget) {
+            this.budget = budget;
+        }
+
+        void complete() {
+            if(completed.compareAndSet(false, true)) {
+                admissionControl.complete(budget, System.nanoTime() - admitted);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
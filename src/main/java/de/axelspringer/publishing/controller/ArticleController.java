@@ -1,41 +1,294 @@
 package de.axelspringer.publishing.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.exception.BadRequestException;
+import de.axelspringer.publishing.exception.ServiceUnavailableException;
+import de.axelspringer.publishing.json.ObjectMappers;
+import de.axelspringer.publishing.json.WireFormat;
+import de.axelspringer.publishing.metrics.Stage;
+import de.axelspringer.publishing.metrics.StageMetrics;
+import de.axelspringer.publishing.metrics.StatementCounter;
 import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleChange;
+import de.axelspringer.publishing.model.ArticleSummary;
+import de.axelspringer.publishing.model.ArticleVersion;
+import de.axelspringer.publishing.model.BulkItemResult;
+import de.axelspringer.publishing.service.ArticleChangeLog;
+import de.axelspringer.publishing.service.ArticleResponseCache;
 import de.axelspringer.publishing.service.ArticleService;
+import de.axelspringer.publishing.service.ArticleSnapshots;
+import de.axelspringer.publishing.service.DatabaseExecutor;
+import de.axelspringer.publishing.service.DatabaseExecutor.Workload;
+import de.axelspringer.publishing.service.SearchPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
 import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/articles")
 public class ArticleController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    static final int TEXT_SEARCH_PAGE_SIZE = 100;
+
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private ArticleResponseCache articleResponseCache;
+
+    @Autowired
+    private ArticleSnapshots articleSnapshots;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectMappers objectMappers;
+
+    @Autowired
+    private DatabaseExecutor databaseExecutor;
+
+    @Autowired
+    @Lazy
+    private ArticleChangeLog articleChangeLog;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Value("${articles.async.timeout-millis:10000}")
+    private long asyncTimeoutMillis;
+
+    @Value("${articles.changes.max-wait-millis:30000}")
+    private long maxChangesWaitMillis;
+
+    @Value("${articles.compression.enabled:false}")
+    private boolean compression;
+
+    // the request headers the representations of articles and pages depend on
+    private String vary;
+
+    // indexed by WireFormat ordinal
+    private final Stage[] serializeStages = new Stage[WireFormat.values().length];
+
+    @PostConstruct
+    public void init() {
+        for (WireFormat format : WireFormat.values()) {
+            serializeStages[format.ordinal()] = stageMetrics.stage("display.serialize." + format.name().toLowerCase());
+        }
+        vary = compression ? HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING : HttpHeaders.ACCEPT;
+    }
+
+    /**
+     * Keyset paged articles. The page is answered with 304 from the versions of its articles if the client has it.
+     */
     @RequestMapping
-    Map<Integer, Article> list() {
-        return articleService.findAll().stream().collect(Collectors.toMap(Article::getId, a -> a));
+    DeferredResult<ResponseEntity<Map<Integer, Article>>> list(@RequestParam(required = false) Integer after,
+                                                               @RequestParam(defaultValue = "100") int limit,
+                                                               HttpServletRequest request) {
+        if(limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ConditionalRequests.Validators validators = ConditionalRequests.Validators.of(request);
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        UriComponents uri = ServletUriComponentsBuilder.fromRequest(request).build();
+        return deferred(databaseExecutor.submit(Workload.LIST, () -> list(after, limit, format, validators, uri)));
+    }
+
+    ResponseEntity<Map<Integer, Article>> list(Integer after, int limit, WireFormat format, ConditionalRequests.Validators validators,
+                                               UriComponents uri) {
+        List<ArticleVersion> versions = articleService.findPageVersions(after, limit);
+        String eTag = ConditionalRequests.eTag(versions, format);
+        long lastModified = ConditionalRequests.lastModified(versions);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        if(lastModified > 0) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl("no-cache");
+        headers.set(HttpHeaders.VARY, vary);
+        if(versions.size() == limit) {
+            String next = UriComponentsBuilder.newInstance().uriComponents(uri).
+                    replaceQueryParam("after", versions.get(versions.size() - 1).getId()).
+                    replaceQueryParam("limit", limit).
+                    build().toUriString();
+            headers.add("Link", "<" + next + ">; rel=\"next\"");
+        }
+        if(validators.isNotModified(eTag, lastModified)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        List<Article> page = articleService.findPage(versions);
+        return new ResponseEntity<>(page.stream().collect(Collectors.toMap(Article::getId, a -> a, (a, b) -> a, LinkedHashMap::new)),
+                headers, HttpStatus.OK);
     }
 
+    /**
+     * Streams the whole catalogue as newline delimited JSON, one {@code {"id": article}} object per line,
+     * without materializing it in memory.
+     */
+    @RequestMapping(produces = APPLICATION_NDJSON_VALUE)
+    void stream(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            articleService.streamAll(article -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeFieldName(String.valueOf(article.getId()));
+                    writer.writeValue(generator, article);
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Ids of the matching articles in ascending order, optionally paged with {@code offset} and {@code limit}.
+     * With a full-text query {@code q} they are ranked by relevance instead and paged by {@value #TEXT_SEARCH_PAGE_SIZE}
+     * unless a limit is given, the other criteria only filter.
+     * With {@code fields} the results are {@link ArticleSummary summaries} carrying the requested header fields.
+     * <p>
+     * With {@code sort=id|published|relevance}, a {@code cursor} or {@code facets=keywords,authors,months} the results
+     * are a page of up to {@code limit} ({@value #TEXT_SEARCH_PAGE_SIZE} by default) in that order, by relevance with a query and by id otherwise, see
+     * {@link ArticleService#search}. The page has the {@code next} cursor if there are more, and the {@code facets}
+     * with the most frequent values among all matches and their counts. Cursor pages can't be skipped with an offset.
+     */
     @RequestMapping(value = "/search")
-    Map<String, List<Integer>> search(@RequestParam(required = false) List<String> keywords,
-                                      @RequestParam(required = false) List<String> authors,
-                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime publishedSince,
-                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime publishedBefore) {
-        if(keywords != null && !keywords.isEmpty() ||
+    DeferredResult<Map<String, Object>> search(@RequestParam(required = false) String q,
+                                @RequestParam(required = false) List<String> keywords,
+                                @RequestParam(required = false) List<String> authors,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime publishedSince,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime publishedBefore,
+                                @RequestParam(defaultValue = "0") int offset,
+                                @RequestParam(required = false) Integer limit,
+                                @RequestParam(required = false) Set<String> fields,
+                                @RequestParam(required = false) String sort,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(required = false) Set<String> facets) {
+        boolean text = q != null && !q.trim().isEmpty();
+        if(text || keywords != null && !keywords.isEmpty() ||
                 authors!=null && !authors.isEmpty() ||
                 publishedSince != null || publishedBefore != null) {
-            return ImmutableMap.of("results", articleService.find(keywords, authors, publishedSince, publishedBefore).stream().map(Article::getId).collect(Collectors.toList()));
+            if(offset < 0) {
+                throw new BadRequestException("Offset must not be negative");
+            }
+            if(limit != null && limit < 1) {
+                throw new BadRequestException("Limit must be positive");
+            }
+            if(fields != null && !ArticleSummary.FIELDS.containsAll(fields)) {
+                throw new BadRequestException("Fields must be some of " + ArticleSummary.FIELDS);
+            }
+            if(sort != null || cursor != null || facets != null) {
+                return sortedSearch(text ? q : null, keywords, authors, publishedSince, publishedBefore, offset, limit, fields, sort, cursor, facets);
+            }
+            return deferred(databaseExecutor.submit(Workload.SEARCH, () -> {
+                List<Integer> ids = text ?
+                        articleService.findIds(q, keywords, authors, publishedSince, publishedBefore,
+                                offset, limit != null ? limit : TEXT_SEARCH_PAGE_SIZE) :
+                        articleService.findIds(keywords, authors, publishedSince, publishedBefore,
+                                offset, limit != null ? limit : Integer.MAX_VALUE);
+                return ImmutableMap.<String, Object>of("results", fields != null ? articleService.findSummaries(ids, fields) : ids);
+            }));
+        }
+        throw new BadRequestException("Search criteria is not provided");
+    }
+
+    private DeferredResult<Map<String, Object>> sortedSearch(String q, List<String> keywords, List<String> authors,
+                                                             OffsetDateTime publishedSince, OffsetDateTime publishedBefore,
+                                                             int offset, Integer limit, Set<String> fields,
+                                                             String sort, String cursor, Set<String> facets) {
+        if(offset > 0) {
+            throw new BadRequestException("Sorted search is paged by cursor, not offset");
+        }
+        if(limit != null && limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must not exceed " + MAX_PAGE_SIZE);
+        }
+        SearchPage.Sort order = sort != null ? SearchPage.Sort.of(sort) : q != null ? SearchPage.Sort.RELEVANCE : SearchPage.Sort.ID;
+        Set<SearchPage.Facet> counted = facets != null ?
+                facets.stream().map(SearchPage.Facet::of).collect(Collectors.toCollection(() -> EnumSet.noneOf(SearchPage.Facet.class))) :
+                EnumSet.noneOf(SearchPage.Facet.class);
+        int pageSize = limit != null ? limit : TEXT_SEARCH_PAGE_SIZE;
+        return deferred(databaseExecutor.submit(Workload.SEARCH, () -> {
+            SearchPage page = articleService.search(q, keywords, authors, publishedSince, publishedBefore, order, cursor, pageSize, counted);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("results", fields != null ? articleService.findSummaries(page.getIds(), fields) : page.getIds());
+            if(page.getNext() != null) {
+                result.put("next", page.getNext());
+            }
+            if(!counted.isEmpty()) {
+                result.put("facets", page.getFacets());
+            }
+            return result;
+        }));
+    }
+
+    /**
+     * Long-polls the {@link ArticleChangeLog}: up to {@code limit} changes after the position {@code since}, in order.
+     * If there are none, the request is held for up to {@code wait} milliseconds until there are.
+     * Consumers continue from the returned {@code next} position.
+     */
+    @RequestMapping(value = "/changes")
+    DeferredResult<Map<String, Object>> changes(@RequestParam(defaultValue = "0") long since,
+                                                @RequestParam(defaultValue = "100") int limit,
+                                                @RequestParam(required = false) Long wait) {
+        if(since < 0) {
+            throw new BadRequestException("Position must not be negative");
+        }
+        if(limit < 1 || limit > ArticleChangeLog.MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + ArticleChangeLog.MAX_PAGE_SIZE);
         }
-        throw new IllegalArgumentException("Search criteria is not provided");
+        if(wait != null && (wait < 0 || wait > maxChangesWaitMillis)) {
+            throw new BadRequestException("Wait must be between 0 and " + maxChangesWaitMillis + " milliseconds");
+        }
+        long waitMillis = wait != null ? wait : maxChangesWaitMillis;
+        CompletableFuture<List<ArticleChange>> changes = databaseExecutor.submit(Workload.LIST,
+                () -> articleChangeLog.awaitChanges(since, limit, waitMillis)).thenCompose(waiting -> waiting);
+        return deferred(changes.thenApply(page -> ImmutableMap.of(
+                "changes", page,
+                "next", page.isEmpty() ? since : page.get(page.size() - 1).getPosition())), waitMillis + asyncTimeoutMillis);
     }
 
     @RequestMapping(method = RequestMethod.POST)
@@ -43,15 +296,150 @@ public class ArticleController {
         return ImmutableMap.of("id", articleService.create(article).getId());
     }
 
+    @RequestMapping(value = "/_bulk", method = RequestMethod.POST,
+            consumes = { MediaType.APPLICATION_JSON_VALUE, WireFormat.SMILE_VALUE, WireFormat.CBOR_VALUE })
+    List<BulkItemResult> bulkCreate(@RequestBody List<Article> articles) {
+        return articleService.createAll(articles);
+    }
+
+    /**
+     * Bulk creation from newline delimited JSON. The stream is stored in chunks as it is read,
+     * and a line that can't be parsed only fails its own item.
+     */
+    @RequestMapping(value = "/_bulk", method = RequestMethod.POST, consumes = APPLICATION_NDJSON_VALUE)
+    List<BulkItemResult> bulkCreate(Reader body) throws IOException {
+        List<BulkItemResult> results = Lists.newArrayList();
+        List<Article> chunk = Lists.newArrayListWithCapacity(BULK_CHUNK_SIZE);
+        List<Integer> positions = Lists.newArrayListWithCapacity(BULK_CHUNK_SIZE);
+        BufferedReader lines = new BufferedReader(body);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if(line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                chunk.add(objectMapper.readValue(line, Article.class));
+                positions.add(results.size());
+                results.add(null);
+            } catch (JsonProcessingException e) {
+                results.add(BulkItemResult.failure(e.getOriginalMessage()));
+            }
+            if(chunk.size() == BULK_CHUNK_SIZE) {
+                storeChunk(chunk, positions, results);
+            }
+        }
+        storeChunk(chunk, positions, results);
+        return results;
+    }
+
+    /**
+     * Streams a binary snapshot of the whole corpus, see {@link ArticleSnapshots}.
+     */
+    @RequestMapping(value = "/_snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    void exportSnapshot(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        articleSnapshots.export(Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * Loads a snapshot into the empty database, answering with what it held.
+     */
+    @RequestMapping(value = "/_snapshot", method = RequestMethod.POST, consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    ArticleSnapshots.Totals importSnapshot(HttpServletRequest request) throws IOException {
+        return articleSnapshots.importFrom(Channels.newChannel(request.getInputStream()));
+    }
+
+    /**
+     * Completes with the outcome of the work, or with a {@link ServiceUnavailableException} if that takes longer than
+     * {@code articles.async.timeout-millis}.
+     */
+    private <T> DeferredResult<T> deferred(CompletableFuture<T> work) {
+        return deferred(work, asyncTimeoutMillis);
+    }
+
+    private <T> DeferredResult<T> deferred(CompletableFuture<T> work, long timeoutMillis) {
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> result.setErrorResult(new ServiceUnavailableException("Request timed out")));
+        work.whenComplete((value, error) -> {
+            if(error != null) {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                result.setResult(value);
+            }
+        });
+        return result;
+    }
+
+    private void storeChunk(List<Article> chunk, List<Integer> positions, List<BulkItemResult> results) {
+        List<BulkItemResult> stored = articleService.createAll(chunk);
+        for (int i = 0; i < stored.size(); i++) {
+            results.set(positions.get(i), stored.get(i));
+        }
+        chunk.clear();
+        positions.clear();
+    }
+
+    /**
+     * The article with its version as entity tag, in the {@link WireFormat} the client accepts.
+     * Conditional requests are answered from the version alone. The document is copied to the response straight
+     * from the {@link ArticleResponseCache}, which is pinned until the request completes.
+     */
     @RequestMapping(value = "/{id}")
-    Article display(@PathVariable("id") Integer id) {
-        return articleService.read(id);
+    DeferredResult<ResponseEntity<ArticleResponseCache.Body>> display(@PathVariable("id") Integer id, HttpServletRequest request) {
+        ConditionalRequests.Validators validators = ConditionalRequests.Validators.of(request);
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        CompletableFuture<ResponseEntity<ArticleResponseCache.Body>> work =
+                databaseExecutor.submit(Workload.DISPLAY, () -> display(id, format, validators));
+        DeferredResult<ResponseEntity<ArticleResponseCache.Body>> result = deferred(work);
+        // also when the work completes only after the request timed out
+        result.onCompletion(() -> work.thenAccept(response -> {
+            if(response.getBody() != null) {
+                response.getBody().release();
+            }
+        }));
+        return result;
+    }
+
+    ResponseEntity<ArticleResponseCache.Body> display(Integer id, WireFormat format, ConditionalRequests.Validators validators) {
+        ArticleVersion version = articleService.readVersion(id);
+        String eTag = ConditionalRequests.eTag(version.getVersion(), format);
+        long lastModified = version.getLastModified().getTime();
+        if(validators.isNotModified(eTag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).lastModified(lastModified).header(HttpHeaders.VARY, vary).body(null);
+        }
+        // the article may have changed since its version was read, the body is tagged with the version it was serialized from
+        ArticleResponseCache.Body body = articleResponseCache.get(id, version.getVersion(), format, () -> {
+            Article article = articleService.read(id);
+            return new ArticleResponseCache.Document(article.getVersion(), article.getLastModified().getTime(), serialize(article, format));
+        });
+        return ResponseEntity.ok().
+                contentType(format.getMediaType()).
+                eTag(ConditionalRequests.eTag(body.getVersion(), format)).
+                lastModified(body.getLastModified()).
+                header(HttpHeaders.CACHE_CONTROL, "no-cache").
+                header(HttpHeaders.VARY, vary).
+                body(body);
+    }
+
+    private byte[] serialize(Article article, WireFormat format) throws JsonProcessingException {
+        long started = System.nanoTime(), statements = StatementCounter.mark();
+        byte[] body = objectMappers.get(format).writeValueAsBytes(article);
+        serializeStages[format.ordinal()].record(started, statements);
+        return body;
     }
 
+    /**
+     * Replaces the article. With {@code If-Match} it is only replaced if it still has one of the given versions,
+     * otherwise the request fails with 412.
+     */
     @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
-    void update(@RequestBody Article article, @PathVariable("id") Integer id) {
+    ResponseEntity<Void> update(@RequestBody Article article, @PathVariable("id") Integer id, HttpServletRequest request) {
         article.setId(id);
-        articleService.update(article);
+        Article updated = articleService.update(article, ConditionalRequests.acceptedVersions(request));
+        return ResponseEntity.ok().
+                eTag(ConditionalRequests.eTag(updated.getVersion(), WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT)))).
+                lastModified(updated.getLastModified().getTime()).
+                build();
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
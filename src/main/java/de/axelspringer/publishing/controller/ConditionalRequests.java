@@ -0,0 +1,117 @@
+package de.axelspringer.publishing.controller;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import de.axelspringer.publishing.exception.PreconditionFailedException;
+import de.axelspringer.publishing.json.WireFormat;
+import de.axelspringer.publishing.model.ArticleVersion;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Entity tags and the evaluation of conditional request headers for article versions.
+ * <p>
+ * The representations of a version differ per {@link WireFormat}, so each has its own strong entity tag, like
+ * {@code "3-cbor"}, and responses vary by {@code Accept}.
+ */
+final class ConditionalRequests {
+
+    private static final Splitter ENTITY_TAGS = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private ConditionalRequests() {
+    }
+
+    static String eTag(Integer version, WireFormat format) {
+        return "\"" + version + suffix(format) + "\"";
+    }
+
+    /**
+     * A strong entity tag of a page, derived from the ids and versions of its articles.
+     */
+    static String eTag(List<ArticleVersion> page, WireFormat format) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (ArticleVersion version : page) {
+            hasher.putInt(version.getId()).putInt(version.getVersion());
+        }
+        return "\"" + hasher.hash() + suffix(format) + "\"";
+    }
+
+    private static String suffix(WireFormat format) {
+        return "-" + format.name().toLowerCase();
+    }
+
+    static long lastModified(List<ArticleVersion> page) {
+        return page.stream().map(ArticleVersion::getLastModified).mapToLong(Date::getTime).max().orElse(0);
+    }
+
+    /**
+     * The validators of the client's copy, read on the request thread so that they can be evaluated on another.
+     */
+    static final class Validators {
+
+        private final String ifNoneMatch;
+        private final long ifModifiedSince;
+
+        private Validators(String ifNoneMatch, long ifModifiedSince) {
+            this.ifNoneMatch = ifNoneMatch;
+            this.ifModifiedSince = ifModifiedSince;
+        }
+
+        static Validators of(HttpServletRequest request) {
+            long ifModifiedSince;
+            try {
+                ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            } catch (IllegalArgumentException e) {
+                ifModifiedSince = -1;
+            }
+            return new Validators(request.getHeader(HttpHeaders.IF_NONE_MATCH), ifModifiedSince);
+        }
+
+        /**
+         * Whether the client's copy is current: {@code If-None-Match} is compared with the entity tag (weakly, as for GET);
+         * {@code If-Modified-Since} is only considered without it.
+         */
+        boolean isNotModified(String eTag, long lastModified) {
+            if(ifNoneMatch != null) {
+                for (String candidate : ENTITY_TAGS.split(ifNoneMatch)) {
+                    if(candidate.equals("*") || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(eTag)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            // HTTP dates have a resolution of seconds
+            return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        }
+    }
+
+    /**
+     * The versions accepted by {@code If-Match}, or null if there is no such header or it accepts any version.
+     * The tag of any format names its version.
+     *
+     * @throws PreconditionFailedException if the header lists no tag an article version can have
+     */
+    static Set<Integer> acceptedVersions(HttpServletRequest request) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if(ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Integer> versions = ENTITY_TAGS.splitToList(ifMatch).stream().
+                filter(tag -> tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")).
+                map(tag -> tag.substring(1, tag.length() - 1)).
+                map(tag -> tag.indexOf('-') >= 0 ? tag.substring(0, tag.indexOf('-')) : tag).
+                filter(tag -> tag.chars().allMatch(Character::isDigit) && tag.length() < 10).
+                map(Integer::valueOf).
+                collect(Collectors.toSet());
+        if(versions.isEmpty()) {
+            throw new PreconditionFailedException("Article has been modified");
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,83 @@
+package de.axelspringer.publishing.controller;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import de.axelspringer.publishing.persistence.ReadRouting;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-your-writes for the replicas: the reads of a client which has written within the last
+ * {@code articles.replicas.read-your-writes-millis} go to the primary, so it doesn't miss its own write
+ * on a replica lagging behind. Clients are told apart by the {@value #CLIENT_HEADER} header, or else by their
+ * user and address. Writes are remembered by this instance only, a client writing through one instance
+ * and reading through another has to stick to one or send its reads within the window to the same.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.replicas", name = "enabled")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String CLIENT_HEADER = "X-Client-Id";
+
+    private static final Set<String> SAFE_METHODS = ImmutableSet.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    @Value("${articles.replicas.read-your-writes-millis:5000}")
+    private long windowMillis;
+
+    @Value("${articles.replicas.read-your-writes-clients:100000}")
+    private long maxClients;
+
+    private Cache<String, Boolean> recentWriters;
+
+    @PostConstruct
+    public void init() {
+        recentWriters = CacheBuilder.newBuilder().
+                maximumSize(maxClients).
+                expireAfterWrite(windowMillis, TimeUnit.MILLISECONDS).
+                build();
+    }
+
+    /**
+     * The database work of asynchronous requests runs in the scope the {@code DatabaseExecutor} carries over
+     * from the request.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = client(request);
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if(write) {
+            recentWriters.put(client, Boolean.TRUE);
+        }
+        ReadRouting.begin(write || recentWriters.getIfPresent(client) != null);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.end();
+            if(write) {
+                // and again once it has committed, for writes taking long
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+
+    private static String client(HttpServletRequest request) {
+        String client = request.getHeader(CLIENT_HEADER);
+        if(client != null) {
+            return client;
+        }
+        return request.getRemoteUser() + "@" + request.getRemoteAddr();
+    }
+}
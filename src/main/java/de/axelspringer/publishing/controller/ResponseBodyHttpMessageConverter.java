@@ -0,0 +1,46 @@
+package de.axelspringer.publishing.controller;
+
+import de.axelspringer.publishing.service.ArticleResponseCache;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link ArticleResponseCache.Body documents} as they are, with the content type of the response entity.
+ * Write-only.
+ */
+public class ResponseBodyHttpMessageConverter extends AbstractHttpMessageConverter<ArticleResponseCache.Body> {
+
+    public ResponseBodyHttpMessageConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> type) {
+        return ArticleResponseCache.Body.class.isAssignableFrom(type);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Long getContentLength(ArticleResponseCache.Body body, MediaType contentType) {
+        return (long) body.length();
+    }
+
+    @Override
+    protected ArticleResponseCache.Body readInternal(Class<? extends ArticleResponseCache.Body> type, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Article documents are only written");
+    }
+
+    @Override
+    protected void writeInternal(ArticleResponseCache.Body body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
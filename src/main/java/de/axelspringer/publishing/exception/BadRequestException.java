@@ -0,0 +1,19 @@
+package de.axelspringer.publishing.exception;
+
+/**
+ * The request is malformed, such as a search with invalid criteria. Like {@link NotFoundException} it carries no
+ * stack trace, as it is about the request rather than the code, and is answered with a pre-built body.
+ */
+public class BadRequestException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
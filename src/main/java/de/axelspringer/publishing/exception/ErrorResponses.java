@@ -0,0 +1,47 @@
+package de.axelspringer.publishing.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import de.axelspringer.publishing.json.ObjectMappers;
+import de.axelspringer.publishing.json.WireFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The responses of one status to exceptions without a cause, built once per message and {@link WireFormat}.
+ * Their bodies are those {@link ExceptionsTranslator} builds for other exceptions, serialized up front.
+ * At most {@value #MAX_MESSAGES} messages are kept per format, in case messages carry parts of requests.
+ */
+final class ErrorResponses {
+
+    static final int MAX_MESSAGES = 256;
+
+    private final HttpStatus status;
+    private final ObjectMappers objectMappers;
+    private final Map<WireFormat, ConcurrentMap<String, ResponseEntity<byte[]>>> responses = Maps.newEnumMap(WireFormat.class);
+
+    ErrorResponses(HttpStatus status, ObjectMappers objectMappers) {
+        this.status = status;
+        this.objectMappers = objectMappers;
+        for (WireFormat format : WireFormat.values()) {
+            responses.put(format, Maps.newConcurrentMap());
+        }
+    }
+
+    ResponseEntity<byte[]> get(String message, WireFormat format) throws JsonProcessingException {
+        ConcurrentMap<String, ResponseEntity<byte[]>> built = responses.get(format);
+        ResponseEntity<byte[]> response = built.get(message);
+        if(response == null) {
+            byte[] body = objectMappers.get(format).writeValueAsBytes(ImmutableMap.of("status", status, "error", message));
+            response = ResponseEntity.status(status).contentType(format.getMediaType()).body(body);
+            if(built.size() < MAX_MESSAGES) {
+                built.putIfAbsent(message, response);
+            }
+        }
+        return response;
+    }
+}
@@ -1,20 +1,45 @@
 package de.axelspringer.publishing.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.collect.ImmutableMap;
+import de.axelspringer.publishing.json.ObjectMappers;
+import de.axelspringer.publishing.json.WireFormat;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-import javax.ws.rs.NotFoundException;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.Map;
 
+/**
+ * Answers exceptions with their status and message. The frequent ones about the request, {@link NotFoundException}
+ * and {@link BadRequestException}, are answered with {@link ErrorResponses} built once per message.
+ */
 @ControllerAdvice
 public class ExceptionsTranslator {
 
+    @Autowired
+    private ObjectMappers objectMappers;
+
+    private ErrorResponses notFounds;
+    private ErrorResponses badRequests;
+
+    @PostConstruct
+    public void init() {
+        notFounds = new ErrorResponses(HttpStatus.NOT_FOUND, objectMappers);
+        badRequests = new ErrorResponses(HttpStatus.BAD_REQUEST, objectMappers);
+    }
+
     @ExceptionHandler(TypeMismatchException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -36,11 +61,43 @@ public class ExceptionsTranslator {
         return createErrorResponse(e, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<byte[]> handleBadRequestException(BadRequestException e, HttpServletRequest request) throws JsonProcessingException {
+        return badRequests.get(e.getMessage(), WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT)));
+    }
+
     @ExceptionHandler(NotFoundException.class)
-    @ResponseStatus(value = HttpStatus.NOT_FOUND)
+    public ResponseEntity<byte[]> handleResourceNotFoundException(NotFoundException e, HttpServletRequest request) throws JsonProcessingException {
+        return notFounds.get(e.getMessage(), WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+    @ResponseBody
+    public Map<String, Object> handlePreconditionFailedException(PreconditionFailedException e) {
+        return createErrorResponse(e, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(value = HttpStatus.CONFLICT)
+    @ResponseBody
+    public Map<String, Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        return createErrorResponse(e, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public Map<String, Object> handleServiceUnavailableException(ServiceUnavailableException e) {
+        return createErrorResponse(e, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS)
     @ResponseBody
-    public Map<String, Object> handleResourceNotFoundException(NotFoundException e) {
-        return createErrorResponse(e, HttpStatus.NOT_FOUND);
+    public Map<String, Object> handleTooManyRequestsException(TooManyRequestsException e, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        return createErrorResponse(e, HttpStatus.TOO_MANY_REQUESTS);
     }
 
     @ExceptionHandler
@@ -0,0 +1,19 @@
+package de.axelspringer.publishing.exception;
+
+/**
+ * The requested article or resource doesn't exist. Carries no stack trace, as crawlers ask for missing articles
+ * often and the trace would only tell where it was looked up.
+ */
+public class NotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,13 @@
+package de.axelspringer.publishing.exception;
+
+/**
+ * A conditional request whose precondition, such as {@code If-Match}, doesn't hold for the current state.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
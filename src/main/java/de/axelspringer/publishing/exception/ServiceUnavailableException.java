@@ -0,0 +1,13 @@
+package de.axelspringer.publishing.exception;
+
+/**
+ * The request was shed because the capacity reserved for it is exhausted; the client may retry later.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
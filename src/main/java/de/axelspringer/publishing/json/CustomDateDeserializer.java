@@ -1,15 +1,26 @@
 package de.axelspringer.publishing.json;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
 import java.io.IOException;
 import java.time.OffsetDateTime;
 
+/**
+ * Reads ISO-8601 dates straight from the parser's text buffer; unusual shapes and invalid values are left
+ * to {@link OffsetDateTime#parse}, which also reports the errors.
+ */
 public class CustomDateDeserializer extends JsonDeserializer<OffsetDateTime> {
     @Override
     public OffsetDateTime deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
+        if(jsonParser.getCurrentToken() == JsonToken.VALUE_STRING) {
+            OffsetDateTime parsed = IsoDateTimeCodec.parse(jsonParser.getTextCharacters(), jsonParser.getTextOffset(), jsonParser.getTextLength());
+            if(parsed != null) {
+                return parsed;
+            }
+        }
         return OffsetDateTime.parse(jsonParser.getValueAsString());
     }
 }
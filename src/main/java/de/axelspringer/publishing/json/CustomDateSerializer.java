@@ -8,9 +8,21 @@ import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 
+/**
+ * Writes dates as ISO-8601 in UTC, formatted into a per-thread buffer which is handed to the generator as is.
+ */
 public class CustomDateSerializer extends JsonSerializer<OffsetDateTime> {
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[IsoDateTimeCodec.MAX_LENGTH]);
+
     @Override
     public void serialize(OffsetDateTime offsetDateTime, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
-        jsonGenerator.writeString(offsetDateTime.atZoneSameInstant(ZoneOffset.UTC).toString());
+        char[] buffer = BUFFER.get();
+        int length = IsoDateTimeCodec.format(offsetDateTime, buffer);
+        if(length < 0) {
+            jsonGenerator.writeString(offsetDateTime.atZoneSameInstant(ZoneOffset.UTC).toString());
+        } else {
+            jsonGenerator.writeString(buffer, 0, length);
+        }
     }
 }
@@ -0,0 +1,172 @@
+package de.axelspringer.publishing.json;
+
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Formats and parses ISO-8601 date-times on char arrays, without the intermediate objects of
+ * {@code java.time} formatting. Both directions only handle the common shapes and report anything else
+ * as unsupported, for the caller to fall back to {@code java.time}.
+ */
+final class IsoDateTimeCodec {
+
+    /**
+     * Enough for {@code 9999-12-31T23:59:59.999999999Z}.
+     */
+    static final int MAX_LENGTH = 30;
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private IsoDateTimeCodec() {
+    }
+
+    /**
+     * Writes the instant in UTC exactly like {@code value.atZoneSameInstant(ZoneOffset.UTC).toString()}:
+     * seconds are omitted when they and the fraction are zero, the fraction has 3, 6 or 9 digits.
+     *
+     * @return the number of chars written, or -1 for years outside 0000-9999
+     */
+    static int format(OffsetDateTime value, char[] buffer) {
+        long epochSecond = value.toEpochSecond();
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        // civil date from days since 1970-01-01, in 400 year eras starting on March 1st
+        long days = epochDay + 719468;
+        long era = Math.floorDiv(days, 146097);
+        int dayOfEra = (int) (days - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = era * 400 + yearOfEra + (month <= 2 ? 1 : 0);
+        if(year < 0 || year > 9999) {
+            return -1;
+        }
+
+        int position = 0;
+        position = digits(buffer, position, (int) year, 4);
+        buffer[position++] = '-';
+        position = digits(buffer, position, month, 2);
+        buffer[position++] = '-';
+        position = digits(buffer, position, day, 2);
+        buffer[position++] = 'T';
+        position = digits(buffer, position, secondOfDay / 3600, 2);
+        buffer[position++] = ':';
+        position = digits(buffer, position, secondOfDay / 60 % 60, 2);
+        int second = secondOfDay % 60;
+        int nano = value.getNano();
+        if(second > 0 || nano > 0) {
+            buffer[position++] = ':';
+            position = digits(buffer, position, second, 2);
+            if(nano > 0) {
+                buffer[position++] = '.';
+                if(nano % 1000_000 == 0) {
+                    position = digits(buffer, position, nano / 1000_000, 3);
+                } else if(nano % 1000 == 0) {
+                    position = digits(buffer, position, nano / 1000, 6);
+                } else {
+                    position = digits(buffer, position, nano, 9);
+                }
+            }
+        }
+        buffer[position++] = 'Z';
+        return position;
+    }
+
+    /**
+     * Parses {@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]]} followed by {@code Z} or {@code ±HH:mm}.
+     *
+     * @return the date-time, or null if the text has another shape or values out of range
+     */
+    static OffsetDateTime parse(char[] text, int offset, int length) {
+        int end = offset + length;
+        if(length < 17 || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T' || text[offset + 13] != ':') {
+            return null;
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        if((year | month | day | hour | minute) < 0) {
+            return null;
+        }
+
+        int position = offset + 16;
+        int second = 0;
+        int nano = 0;
+        if(text[position] == ':') {
+            if(position + 3 > end || (second = digits(text, position + 1, 2)) < 0) {
+                return null;
+            }
+            position += 3;
+            if(position < end && text[position] == '.') {
+                int fractionStart = ++position;
+                while (position < end && position - fractionStart < 9 && isDigit(text[position])) {
+                    nano = nano * 10 + (text[position++] - '0');
+                }
+                int fractionDigits = position - fractionStart;
+                if(fractionDigits == 0) {
+                    return null;
+                }
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        ZoneOffset zoneOffset;
+        if(position + 1 == end && text[position] == 'Z') {
+            zoneOffset = ZoneOffset.UTC;
+        } else if(position + 6 == end && (text[position] == '+' || text[position] == '-') && text[position + 3] == ':') {
+            int offsetHours = digits(text, position + 1, 2);
+            int offsetMinutes = digits(text, position + 4, 2);
+            if(offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                return null;
+            }
+            int totalSeconds = offsetHours * 3600 + offsetMinutes * 60;
+            try {
+                zoneOffset = ZoneOffset.ofTotalSeconds(text[position] == '-' ? -totalSeconds : totalSeconds);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        try {
+            return OffsetDateTime.of(year, month, day, hour, minute, second, nano, zoneOffset);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(char[] buffer, int position, int value, int count) {
+        for (int i = position + count - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + count;
+    }
+
+    /**
+     * @return the value of the digits, or -1 if there is a non-digit among them
+     */
+    private static int digits(char[] text, int position, int count) {
+        int value = 0;
+        for (int i = position; i < position + count; i++) {
+            if(!isDigit(text[i])) {
+                return -1;
+            }
+            value = value * 10 + (text[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
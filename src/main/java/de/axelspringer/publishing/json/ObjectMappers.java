@@ -0,0 +1,45 @@
+package de.axelspringer.publishing.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.collect.Maps;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+
+/**
+ * An object mapper per {@link WireFormat}. The binary ones are configured by the same builder as the JSON mapper,
+ * so all formats share the features, modules and annotations of the model.
+ * They aren't beans themselves, which would replace the auto-configured JSON mapper.
+ */
+@Component
+public class ObjectMappers {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    private final Map<WireFormat, ObjectMapper> mappers = Maps.newEnumMap(WireFormat.class);
+
+    @PostConstruct
+    public void init() {
+        mappers.put(WireFormat.JSON, objectMapper);
+        mappers.put(WireFormat.SMILE, configured(new ObjectMapper(new SmileFactory())));
+        mappers.put(WireFormat.CBOR, configured(new ObjectMapper(new CBORFactory())));
+    }
+
+    public ObjectMapper get(WireFormat format) {
+        return mappers.get(format);
+    }
+
+    private ObjectMapper configured(ObjectMapper mapper) {
+        objectMapperBuilder.configure(mapper);
+        return mapper;
+    }
+}
@@ -0,0 +1,48 @@
+package de.axelspringer.publishing.json;
+
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * The formats articles are exchanged in: JSON, and the binary Smile and CBOR encodings of the same data model
+ * for consumers which care more about bytes and parsing time than readability.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    SMILE(new MediaType("application", "x-jackson-smile")),
+    CBOR(new MediaType("application", "cbor"));
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_VALUE = "application/cbor";
+
+    private final MediaType mediaType;
+
+    WireFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The format most preferred by an {@code Accept} header, JSON if it prefers none of them or is missing.
+     */
+    public static WireFormat negotiate(String accept) {
+        if(accept == null) {
+            return JSON;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType mediaType : accepted) {
+            for (WireFormat format : values()) {
+                if(mediaType.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
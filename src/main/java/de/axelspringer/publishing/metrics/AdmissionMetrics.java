@@ -0,0 +1,47 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.service.AdaptiveConcurrencyLimit;
+import de.axelspringer.publishing.service.AdmissionControl;
+import de.axelspringer.publishing.service.TokenBuckets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exposes the rejections of the {@link AdmissionControl} and its current concurrency limits through the actuator
+ * {@code /metrics} endpoint. Nothing without rate limiting.
+ */
+@Component
+public class AdmissionMetrics implements PublicMetrics {
+
+    @Autowired(required = false)
+    private AdmissionControl admissionControl;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        if(admissionControl == null) {
+            return Collections.emptyList();
+        }
+        List<Metric<?>> metrics = Lists.newArrayList();
+        for (TokenBuckets buckets : admissionControl.getTokenBuckets()) {
+            String prefix = "rate-limit." + buckets.getName() + ".";
+            metrics.add(new Metric<>(prefix + "per-second", buckets.getPerSecond()));
+            metrics.add(new Metric<>(prefix + "burst", buckets.getBurst()));
+            metrics.add(new Metric<>(prefix + "clients", buckets.getClients()));
+            metrics.add(new Metric<>(prefix + "rejected", buckets.getRejected()));
+        }
+        for (AdaptiveConcurrencyLimit limit : admissionControl.getConcurrencyLimits()) {
+            String prefix = "concurrency-limit." + limit.getName() + ".";
+            metrics.add(new Metric<>(prefix + "limit", limit.getLimit()));
+            metrics.add(new Metric<>(prefix + "in-flight", limit.getInFlight()));
+            metrics.add(new Metric<>(prefix + "rejected", limit.getRejected()));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,67 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.service.ArticleResponseCache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Statistics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes hit/miss/eviction counters and the off-heap memory of the response cache and of the Hibernate second-level and query caches
+ * through the actuator {@code /metrics} endpoint.
+ */
+@Component
+public class CacheMetrics implements PublicMetrics {
+
+    @Autowired
+    private ArticleResponseCache articleResponseCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = Lists.newArrayList();
+
+        metrics.add(new Metric<>("cache.articles.response.hits", articleResponseCache.getHits()));
+        metrics.add(new Metric<>("cache.articles.response.misses", articleResponseCache.getMisses()));
+        metrics.add(new Metric<>("cache.articles.response.evictions", articleResponseCache.getEvictions()));
+        metrics.add(new Metric<>("cache.articles.response.rejections", articleResponseCache.getRejections()));
+        metrics.add(new Metric<>("cache.articles.response.size", articleResponseCache.size()));
+        metrics.add(new Metric<>("cache.articles.response.bytes", articleResponseCache.getUsedBytes()));
+        metrics.add(new Metric<>("cache.articles.response.off-heap-bytes", articleResponseCache.getAllocatedBytes()));
+
+        org.hibernate.stat.Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        metrics.add(new Metric<>("cache.hibernate.query.hits", statistics.getQueryCacheHitCount()));
+        metrics.add(new Metric<>("cache.hibernate.query.misses", statistics.getQueryCacheMissCount()));
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+            String prefix = "cache.hibernate." + regionName(region) + ".";
+            metrics.add(new Metric<>(prefix + "hits", regionStatistics.getHitCount()));
+            metrics.add(new Metric<>(prefix + "misses", regionStatistics.getMissCount()));
+            metrics.add(new Metric<>(prefix + "size", regionStatistics.getElementCountInMemory()));
+            Ehcache cache = CacheManager.getInstance().getEhcache(region);
+            if(cache != null) {
+                Statistics cacheStatistics = cache.getStatistics();
+                metrics.add(new Metric<>(prefix + "evictions", cacheStatistics.getEvictionCount()));
+            }
+        }
+        return metrics;
+    }
+
+    private static String regionName(String region) {
+        String modelPackage = Article.class.getPackage().getName() + ".";
+        return region.startsWith(modelPackage) ? region.substring(modelPackage.length()) : region.substring(region.lastIndexOf('.') + 1);
+    }
+}
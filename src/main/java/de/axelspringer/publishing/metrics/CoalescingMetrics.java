@@ -0,0 +1,36 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.service.ArticleService;
+import de.axelspringer.publishing.service.SingleFlight;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes how many reads and searches of the {@link ArticleService} shared another one's execution through the actuator
+ * {@code /metrics} endpoint.
+ */
+@Component
+public class CoalescingMetrics implements PublicMetrics {
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = Lists.newArrayList();
+        for (SingleFlight<?, ?> flight : articleService.getSingleFlights()) {
+            String prefix = "coalescing." + flight.getName() + ".";
+            metrics.add(new Metric<>(prefix + "calls", flight.getCalls()));
+            metrics.add(new Metric<>(prefix + "executions", flight.getExecutions()));
+            metrics.add(new Metric<>(prefix + "collapsed", flight.getCollapsed()));
+            metrics.add(new Metric<>(prefix + "in-flight", flight.getInFlight()));
+        }
+        return metrics;
+    }
+}
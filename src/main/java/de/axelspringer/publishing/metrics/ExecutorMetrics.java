@@ -0,0 +1,43 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.service.Bulkhead;
+import de.axelspringer.publishing.service.DatabaseExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the load of the {@link DatabaseExecutor} and of its bulkheads through the actuator {@code /metrics} endpoint.
+ * The maximum queue wait is the longest within the last {@code articles.metrics.window-seconds}.
+ */
+@Component
+public class ExecutorMetrics implements PublicMetrics {
+
+    @Autowired
+    private DatabaseExecutor databaseExecutor;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = Lists.newArrayList();
+        metrics.add(new Metric<>("executor.database.active", databaseExecutor.getActiveThreads()));
+        metrics.add(new Metric<>("executor.database.queued", databaseExecutor.getQueueSize()));
+        metrics.add(new Metric<>("executor.database.completed", databaseExecutor.getCompleted()));
+        metrics.add(new Metric<>("executor.database.rejected", databaseExecutor.getRejected()));
+        metrics.add(new Metric<>("executor.database.timed-out", databaseExecutor.getTimedOut()));
+        metrics.add(new Metric<>("executor.database.queue-wait.total-millis", TimeUnit.NANOSECONDS.toMillis(databaseExecutor.getQueueWaitNanos())));
+        metrics.add(new Metric<>("executor.database.queue-wait.max-millis", TimeUnit.NANOSECONDS.toMillis(databaseExecutor.getMaxQueueWaitNanos())));
+        for (Bulkhead bulkhead : databaseExecutor.getBulkheads()) {
+            String prefix = "bulkhead." + bulkhead.getName() + ".";
+            metrics.add(new Metric<>(prefix + "limit", bulkhead.getLimit()));
+            metrics.add(new Metric<>(prefix + "active", bulkhead.getActive()));
+            metrics.add(new Metric<>(prefix + "rejected", bulkhead.getRejected()));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,96 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts the completed requests of each handler method, and those answered with an error status, as
+ * {@code handler.<controller>.<method>.requests} and {@code .errors} through the actuator {@code /metrics} endpoint.
+ * The {@code .error-rate} is the share of errors among the requests within the last
+ * {@code articles.metrics.window-seconds}, 0 if there were none.
+ */
+@Component
+public class HandlerMetrics extends HandlerInterceptorAdapter implements PublicMetrics {
+
+    @Value("${articles.metrics.window-seconds:60}")
+    private long windowSeconds;
+
+    private final ConcurrentMap<Method, Counts> handlers = Maps.newConcurrentMap();
+
+    // the clock of the error rates of all handlers
+    private volatile LongSupplier nanoTime = System::nanoTime;
+
+    /**
+     * Called once per request, by the dispatch completing it.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if(!(handler instanceof HandlerMethod)) {
+            return;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        Counts counts = handlers.get(handlerMethod.getMethod());
+        if(counts == null) {
+            counts = handlers.computeIfAbsent(handlerMethod.getMethod(),
+                    method -> new Counts("handler." + handlerMethod.getBeanType().getSimpleName() + "." + method.getName() + ".",
+                            TimeUnit.SECONDS.toMillis(windowSeconds), () -> nanoTime.getAsLong()));
+        }
+        counts.requests.increment();
+        boolean error = ex != null || response.getStatus() >= 400;
+        if(error) {
+            counts.errors.increment();
+        }
+        // errors count 1, the sum is the number of errors
+        counts.recent.record(error ? 1 : 0);
+    }
+
+    /**
+     * Replaces the clock the error rates are windowed by, {@link System#nanoTime()} by default, so that tests can move it.
+     */
+    public void setNanoTime(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = Lists.newArrayList();
+        for (Counts counts : handlers.values()) {
+            long requests = counts.requests.sum();
+            long errors = counts.errors.sum();
+            metrics.add(new Metric<>(counts.prefix + "requests", requests));
+            metrics.add(new Metric<>(counts.prefix + "errors", errors));
+            long recentRequests = counts.recent.getCount();
+            metrics.add(new Metric<>(counts.prefix + "error-rate", recentRequests > 0 ? (double) counts.recent.getSum() / recentRequests : 0.0));
+        }
+        return metrics;
+    }
+
+    private static class Counts {
+
+        final String prefix;
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final SlidingWindow recent;
+
+        Counts(String prefix, long windowMillis, LongSupplier nanoTime) {
+            this.prefix = prefix;
+            this.recent = new SlidingWindow(windowMillis, nanoTime);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes the Hibernate statistics of queries, statements, loads and fetches through the actuator {@code /metrics}
+ * endpoint, with the N+1 selects suspected by the {@link StatementCounter}. Fetches are lazy loads of single entities
+ * and collections, which grow much faster than loads when associations are walked one by one.
+ * Hits and misses per cache region are exposed by {@link CacheMetrics}.
+ */
+@Component
+public class HibernateMetrics implements PublicMetrics {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = Lists.newArrayList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        metrics.add(new Metric<>("hibernate.queries", statistics.getQueryExecutionCount()));
+        metrics.add(new Metric<>("hibernate.queries.max-millis", statistics.getQueryExecutionMaxTime()));
+        metrics.add(new Metric<>("hibernate.statements.prepared", statistics.getPrepareStatementCount()));
+        metrics.add(new Metric<>("hibernate.statements.n-plus-one", StatementCounter.getSuspectedNPlusOne()));
+        metrics.add(new Metric<>("hibernate.entities.loaded", statistics.getEntityLoadCount()));
+        metrics.add(new Metric<>("hibernate.entities.fetched", statistics.getEntityFetchCount()));
+        metrics.add(new Metric<>("hibernate.collections.loaded", statistics.getCollectionLoadCount()));
+        metrics.add(new Metric<>("hibernate.collections.fetched", statistics.getCollectionFetchCount()));
+        metrics.add(new Metric<>("hibernate.second-level-cache.hits", statistics.getSecondLevelCacheHitCount()));
+        metrics.add(new Metric<>("hibernate.second-level-cache.misses", statistics.getSecondLevelCacheMissCount()));
+        metrics.add(new Metric<>("hibernate.second-level-cache.puts", statistics.getSecondLevelCachePutCount()));
+        metrics.add(new Metric<>("hibernate.transactions", statistics.getTransactionCount()));
+        return metrics;
+    }
+}
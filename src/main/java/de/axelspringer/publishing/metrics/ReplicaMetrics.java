@@ -0,0 +1,38 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.persistence.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exposes where the {@link ReplicaRoutingDataSource} sent connections, and how many replicas are in rotation,
+ * through the actuator {@code /metrics} endpoint. Nothing without replicas.
+ */
+@Component
+public class ReplicaMetrics implements PublicMetrics {
+
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        if(replicaRoutingDataSource == null) {
+            return Collections.emptyList();
+        }
+        List<Metric<?>> metrics = Lists.newArrayList();
+        metrics.add(new Metric<>("datasource.primary.connections", replicaRoutingDataSource.getPrimaryConnections()));
+        metrics.add(new Metric<>("datasource.primary.pinned-reads", replicaRoutingDataSource.getPinnedReads()));
+        metrics.add(new Metric<>("datasource.replicas.connections", replicaRoutingDataSource.getReplicaConnections()));
+        metrics.add(new Metric<>("datasource.replicas.healthy", replicaRoutingDataSource.getHealthyReplicas()));
+        metrics.add(new Metric<>("datasource.replicas.total", replicaRoutingDataSource.getReplicas()));
+        metrics.add(new Metric<>("datasource.replicas.failovers", replicaRoutingDataSource.getFailovers()));
+        return metrics;
+    }
+}
@@ -0,0 +1,85 @@
+package de.axelspringer.publishing.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * HDR histogram of the values recorded within about the last {@code windowMillis}, kept in ten slots of a tenth of
+ * the window each like {@link SlidingWindow}. Each slot records into a {@link Recorder} and adds its intervals up as
+ * they are read, so reading doesn't reset anything and any number of readers see the same values.
+ * Recording doesn't allocate unless the histogram grows, and only locks for the first value of a slot.
+ * Time is read from {@link System#nanoTime()}, unless another clock is given.
+ */
+public final class SlidingHistogram {
+
+    private static final int SLOTS = 10;
+
+    private final int significantDigits;
+    private final long slotNanos;
+    private final LongSupplier nanoTime;
+    private final Slot[] slots = new Slot[SLOTS];
+
+    public SlidingHistogram(long windowMillis, int significantDigits) {
+        this(windowMillis, significantDigits, System::nanoTime);
+    }
+
+    public SlidingHistogram(long windowMillis, int significantDigits, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.significantDigits = significantDigits;
+        this.slotNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(windowMillis) / SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public void recordValue(long value) {
+        long epoch = Math.floorDiv(nanoTime.getAsLong(), slotNanos);
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) SLOTS)];
+        if(slot.epoch != epoch) {
+            slot.clear(epoch);
+        }
+        slot.recorder.recordValue(value);
+    }
+
+    /**
+     * A copy of the values within the window.
+     */
+    public Histogram getHistogram() {
+        Histogram histogram = new Histogram(significantDigits);
+        long oldest = Math.floorDiv(nanoTime.getAsLong(), slotNanos) - SLOTS + 1;
+        for (Slot slot : slots) {
+            slot.addTo(histogram, oldest);
+        }
+        return histogram;
+    }
+
+    private final class Slot {
+
+        // the slot of time it holds the values of
+        volatile long epoch = Long.MIN_VALUE;
+        final Recorder recorder = new Recorder(significantDigits);
+        // the intervals read from the recorder so far, and the one to recycle by the next read
+        private final Histogram recorded = new Histogram(significantDigits);
+        private Histogram interval;
+
+        synchronized void clear(long epoch) {
+            if(this.epoch != epoch) {
+                recorder.reset();
+                recorded.reset();
+                this.epoch = epoch;
+            }
+        }
+
+        synchronized void addTo(Histogram histogram, long oldest) {
+            if(epoch < oldest) {
+                return;
+            }
+            interval = recorder.getIntervalHistogram(interval);
+            recorded.add(interval);
+            histogram.add(recorded);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.axelspringer.publishing.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Count, sum and maximum of the values recorded within about the last {@code windowMillis}, kept in ten slots of a
+ * tenth of the window each. Reading doesn't reset anything, so any number of readers see the same values.
+ * Recording doesn't allocate and only locks for the first value of a slot, to clear what it held a window ago.
+ * Time is read from {@link System#nanoTime()}, unless another clock is given.
+ */
+public final class SlidingWindow {
+
+    private static final int SLOTS = 10;
+
+    private final long slotNanos;
+    private final LongSupplier nanoTime;
+    private final Slot[] slots = new Slot[SLOTS];
+
+    public SlidingWindow(long windowMillis) {
+        this(windowMillis, System::nanoTime);
+    }
+
+    public SlidingWindow(long windowMillis, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.slotNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(windowMillis) / SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public void record(long value) {
+        long epoch = Math.floorDiv(nanoTime.getAsLong(), slotNanos);
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) SLOTS)];
+        if(slot.epoch != epoch) {
+            slot.clear(epoch);
+        }
+        slot.count.increment();
+        slot.sum.add(value);
+        slot.max.accumulate(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        long oldest = oldestEpoch();
+        for (Slot slot : slots) {
+            if(slot.epoch >= oldest) {
+                count += slot.count.sum();
+            }
+        }
+        return count;
+    }
+
+    public long getSum() {
+        long sum = 0;
+        long oldest = oldestEpoch();
+        for (Slot slot : slots) {
+            if(slot.epoch >= oldest) {
+                sum += slot.sum.sum();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * The largest value, 0 if there is none.
+     */
+    public long getMax() {
+        long max = 0;
+        long oldest = oldestEpoch();
+        for (Slot slot : slots) {
+            if(slot.epoch >= oldest) {
+                max = Math.max(max, slot.max.get());
+            }
+        }
+        return max;
+    }
+
+    private long oldestEpoch() {
+        return Math.floorDiv(nanoTime.getAsLong(), slotNanos) - SLOTS + 1;
+    }
+
+    private static final class Slot {
+
+        // the slot of time it holds the values of
+        volatile long epoch = Long.MIN_VALUE;
+        final LongAdder count = new LongAdder();
+        final LongAdder sum = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        synchronized void clear(long epoch) {
+            if(this.epoch != epoch) {
+                count.reset();
+                sum.reset();
+                max.reset();
+                this.epoch = epoch;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.axelspringer.publishing.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, prepared statements and rows of one stage of request processing, recorded into HDR histograms covering
+ * the last {@code articles.metrics.window-seconds}. Callers take {@link System#nanoTime()} and {@link StatementCounter#mark()}
+ * before the stage and hand both to {@link #record} after it.
+ */
+public final class Stage {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String name;
+    private final StageMetrics metrics;
+
+    private final SlidingHistogram latency;
+    private final SlidingHistogram statements;
+    private final SlidingHistogram rows;
+    private final LongAdder count = new LongAdder();
+
+    Stage(String name, StageMetrics metrics, long windowMillis) {
+        this.name = name;
+        this.metrics = metrics;
+        this.latency = new SlidingHistogram(windowMillis, SIGNIFICANT_DIGITS);
+        this.statements = new SlidingHistogram(windowMillis, SIGNIFICANT_DIGITS);
+        this.rows = new SlidingHistogram(windowMillis, SIGNIFICANT_DIGITS);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long startNanos, long statementMark) {
+        record(startNanos, statementMark, -1);
+    }
+
+    /**
+     * @param rows rows loaded in the stage, or a negative number if it doesn't load any
+     */
+    public void record(long startNanos, long statementMark, int rows) {
+        if(!metrics.isEnabled()) {
+            return;
+        }
+        count.increment();
+        latency.recordValue(Math.max(0, System.nanoTime() - startNanos));
+        statements.recordValue(StatementCounter.since(statementMark));
+        if(rows >= 0) {
+            this.rows.recordValue(rows);
+        }
+    }
+
+    /**
+     * Adds the number of recordings since startup, and percentiles of what was recorded within the window.
+     * Latencies are in microseconds.
+     */
+    void addMetrics(List<Metric<?>> metrics) {
+        long count = this.count.sum();
+        if(count == 0) {
+            return;
+        }
+        Histogram latencyWindow = latency.getHistogram();
+        Histogram statementsWindow = statements.getHistogram();
+        Histogram rowsWindow = rows.getHistogram();
+        String prefix = "stage." + name + ".";
+        metrics.add(new Metric<>(prefix + "count", count));
+        metrics.add(new Metric<>(prefix + "latency-micros.p50", micros(latencyWindow.getValueAtPercentile(50))));
+        metrics.add(new Metric<>(prefix + "latency-micros.p99", micros(latencyWindow.getValueAtPercentile(99))));
+        metrics.add(new Metric<>(prefix + "latency-micros.p999", micros(latencyWindow.getValueAtPercentile(99.9))));
+        metrics.add(new Metric<>(prefix + "latency-micros.max", micros(latencyWindow.getMaxValue())));
+        metrics.add(new Metric<>(prefix + "statements.p99", statementsWindow.getValueAtPercentile(99)));
+        metrics.add(new Metric<>(prefix + "statements.max", statementsWindow.getMaxValue()));
+        if(rowsWindow.getTotalCount() > 0) {
+            metrics.add(new Metric<>(prefix + "rows.p50", rowsWindow.getValueAtPercentile(50)));
+            metrics.add(new Metric<>(prefix + "rows.p99", rowsWindow.getValueAtPercentile(99)));
+            metrics.add(new Metric<>(prefix + "rows.max", rowsWindow.getMaxValue()));
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,62 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.Lists;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the {@link Stage}s requests pass through, exposed through the actuator {@code /metrics} endpoint
+ * as {@code stage.<name>.*}. Percentiles cover the last {@code articles.metrics.window-seconds}.
+ * Stages are looked up once by their users, not per request.
+ * <p>
+ * Recording is switched off with {@code articles.metrics.stages.enabled=false}, or at runtime with {@link #setEnabled}.
+ */
+@Component
+public class StageMetrics implements PublicMetrics {
+
+    @Value("${articles.metrics.stages.enabled:true}")
+    private volatile boolean enabled;
+
+    @Value("${articles.metrics.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    @Value("${articles.metrics.window-seconds:60}")
+    private long windowSeconds;
+
+    private final ConcurrentMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        StatementCounter.setNPlusOneThreshold(nPlusOneThreshold);
+    }
+
+    public Stage stage(String name) {
+        return stages.computeIfAbsent(name, key -> new Stage(key, this, TimeUnit.SECONDS.toMillis(windowSeconds)));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = Lists.newArrayList();
+        for (Stage stage : stages.values()) {
+            stage.addMetrics(metrics);
+        }
+        return metrics;
+    }
+}
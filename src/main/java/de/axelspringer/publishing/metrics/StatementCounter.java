@@ -0,0 +1,77 @@
+package de.axelspringer.publishing.metrics;
+
+import org.hibernate.EmptyInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the statements Hibernate prepares on each thread, so that a {@link Stage} can record how many statements it took.
+ * Registered for the whole session factory with {@code hibernate.ejb.interceptor}, which instantiates it by name,
+ * hence the static state.
+ * <p>
+ * A select prepared {@code articles.metrics.n-plus-one-threshold} times in a row since the last {@link #mark()} is
+ * counted as a suspected N+1: one query per loaded entity, where one query for all of them would do.
+ */
+public class StatementCounter extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(StatementCounter.class);
+
+    private static final ThreadLocal<Counter> COUNTERS = ThreadLocal.withInitial(Counter::new);
+
+    private static final AtomicLong SUSPECTED_N_PLUS_ONE = new AtomicLong();
+
+    private static volatile int nPlusOneThreshold = 10;
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        Counter counter = COUNTERS.get();
+        counter.statements++;
+        if(sql.equals(counter.lastSelect)) {
+            if(++counter.repeats == nPlusOneThreshold) {
+                SUSPECTED_N_PLUS_ONE.incrementAndGet();
+                LOG.debug("Suspected N+1, prepared {} times in a row: {}", counter.repeats, sql);
+            }
+        } else if(sql.regionMatches(true, 0, "select", 0, 6)) {
+            counter.lastSelect = sql;
+            counter.repeats = 1;
+        } else {
+            counter.lastSelect = null;
+        }
+        return sql;
+    }
+
+    /**
+     * The number of statements prepared by the current thread so far. Repeated selects are looked for anew from here.
+     */
+    public static long mark() {
+        Counter counter = COUNTERS.get();
+        counter.lastSelect = null;
+        return counter.statements;
+    }
+
+    /**
+     * The number of statements prepared by the current thread since {@code mark}.
+     */
+    public static long since(long mark) {
+        return COUNTERS.get().statements - mark;
+    }
+
+    public static long getSuspectedNPlusOne() {
+        return SUSPECTED_N_PLUS_ONE.get();
+    }
+
+    static void setNPlusOneThreshold(int threshold) {
+        nPlusOneThreshold = threshold;
+    }
+
+    private static final class Counter {
+
+        private long statements;
+        private String lastSelect;
+        private int repeats;
+    }
+}
@@ -6,31 +6,79 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import de.axelspringer.publishing.json.CustomDateDeserializer;
 import de.axelspringer.publishing.json.CustomDateSerializer;
+import de.axelspringer.publishing.persistence.EpochNanosConverter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Proxy;
 
 import javax.persistence.*;
 import java.time.OffsetDateTime;
+import java.util.Date;
 import java.util.Set;
 
+/**
+ * The body text and the collections are loaded lazily; the text through build time bytecode instrumentation
+ * (see the antrun execution in the pom). Each use case fetches what it needs with the queries of
+ * {@link de.axelspringer.publishing.persistence.ArticleRepository}. Collections which aren't fetched up front
+ * are loaded in batches when first touched, so walking N articles costs a constant number of queries.
+ * <p>
+ * The schema is created and migrated by the Flyway scripts in {@code db/migration}, along with the indexes
+ * serving the search criteria of {@link de.axelspringer.publishing.service.ArticleService#find}.
+ */
 @Entity
-@JsonIgnoreProperties(value = { "handler", "hibernateLazyInitializer" })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@JsonIgnoreProperties(value = { "handler", "hibernateLazyInitializer", "fieldHandler" })
 @Proxy(lazy=false)
 public class Article {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "article_seq")
+    @SequenceGenerator(name = "article_seq", sequenceName = "article_seq", allocationSize = 50)
     @JsonIgnore
     private Integer id;
     private String header;
     private String description;
+    @Basic(fetch = FetchType.LAZY)
     private String text;
     @JsonSerialize(using = CustomDateSerializer.class)
     @JsonDeserialize(using = CustomDateDeserializer.class)
+    @Column(name = "published_nanos")
+    @Convert(converter = EpochNanosConverter.class)
     private OffsetDateTime published;
-    @ManyToMany(fetch=FetchType.EAGER)
+    @ManyToMany
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Author> authors;
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<String> keywords;
+    @Version
+    @JsonIgnore
+    private Integer version;
+    @Temporal(TemporalType.TIMESTAMP)
+    @JsonIgnore
+    private Date lastModified;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = new Date();
+    }
+
+    /**
+     * Copies the content, that is everything but the id, version and modification time, from the given article.
+     */
+    public void copyFrom(Article source) {
+        header = source.header;
+        description = source.description;
+        text = source.text;
+        published = source.published;
+        authors = source.authors;
+        keywords = source.keywords;
+    }
 
     public Integer getId() {
         return id;
@@ -87,4 +135,20 @@ public class Article {
     public void setKeywords(Set<String> keywords) {
         this.keywords = keywords;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
 }
@@ -0,0 +1,62 @@
+package de.axelspringer.publishing.model;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * An entry of the change log, written in the transaction of the change. Its position orders the log
+ * and is the cursor consumers continue from.
+ */
+@Entity
+public class ArticleChange {
+
+    public enum Operation { CREATED, UPDATED, DELETED }
+
+    /**
+     * Not pooled, so that positions are allocated in the order of the writes rather than in blocks per instance.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "article_change_seq")
+    @SequenceGenerator(name = "article_change_seq", sequenceName = "article_change_seq", allocationSize = 1)
+    private Long position;
+    @Column(nullable = false)
+    private Integer articleId;
+    // the version written, null for deletions
+    private Integer version;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Operation operation;
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date timestamp;
+
+    protected ArticleChange() {
+    }
+
+    public ArticleChange(Integer articleId, Integer version, Operation operation) {
+        this.articleId = articleId;
+        this.version = version;
+        this.operation = operation;
+        this.timestamp = new Date();
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public Integer getArticleId() {
+        return articleId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+}
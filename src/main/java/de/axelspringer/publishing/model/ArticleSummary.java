@@ -0,0 +1,49 @@
+package de.axelspringer.publishing.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableSet;
+import de.axelspringer.publishing.json.CustomDateSerializer;
+
+import java.time.OffsetDateTime;
+import java.util.Set;
+
+/**
+ * The id of an article with those of its header fields a search asked for; the others stay null and are omitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ArticleSummary {
+
+    public static final String HEADER = "header";
+    public static final String PUBLISHED = "published";
+    public static final Set<String> FIELDS = ImmutableSet.of(HEADER, PUBLISHED);
+
+    private Integer id;
+    private String header;
+    @JsonSerialize(using = CustomDateSerializer.class)
+    private OffsetDateTime published;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public OffsetDateTime getPublished() {
+        return published;
+    }
+
+    public void setPublished(OffsetDateTime published) {
+        this.published = published;
+    }
+}
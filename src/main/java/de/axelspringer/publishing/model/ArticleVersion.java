@@ -0,0 +1,31 @@
+package de.axelspringer.publishing.model;
+
+import java.util.Date;
+
+/**
+ * Version and modification time of an article, which conditional requests are answered from without loading it.
+ */
+public class ArticleVersion {
+
+    private final Integer id;
+    private final Integer version;
+    private final Date lastModified;
+
+    public ArticleVersion(Integer id, Integer version, Date lastModified) {
+        this.id = id;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,34 @@
+package de.axelspringer.publishing.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a single item of a bulk request: either the id of the stored article or the reason it was rejected.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    private final Integer id;
+    private final String error;
+
+    private BulkItemResult(Integer id, String error) {
+        this.id = id;
+        this.error = error;
+    }
+
+    public static BulkItemResult success(Integer id) {
+        return new BulkItemResult(id, null);
+    }
+
+    public static BulkItemResult failure(String error) {
+        return new BulkItemResult(null, error);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,34 @@
+package de.axelspringer.publishing.persistence;
+
+import de.axelspringer.publishing.model.ArticleChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+@Transactional
+public interface ArticleChangeRepository extends JpaRepository<ArticleChange, Long> {
+
+    /**
+     * Changes after {@code since} and before {@code horizon}, in the order of the log.
+     */
+    @Query("SELECT c FROM ArticleChange c WHERE c.position > :since AND c.position < :horizon AND c.timestamp <= :settled ORDER BY c.position")
+    List<ArticleChange> findChanges(@Param("since") long since, @Param("horizon") long horizon, @Param("settled") Date settled, Pageable pageable);
+
+    /**
+     * The last position before {@code horizon}, null if there is none.
+     */
+    @Query("SELECT MAX(c.position) FROM ArticleChange c WHERE c.position < :horizon AND c.timestamp <= :settled")
+    Long findLastPosition(@Param("horizon") long horizon, @Param("settled") Date settled);
+
+    @Modifying
+    @Query("DELETE FROM ArticleChange c WHERE c.timestamp < :before")
+    int deleteOlderThan(@Param("before") Date before);
+}
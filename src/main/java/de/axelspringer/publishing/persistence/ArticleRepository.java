@@ -1,18 +1,41 @@
 package de.axelspringer.publishing.persistence;
 
 import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @Transactional
-public interface ArticleRepository extends JpaRepository<Article, Integer> {
+public interface ArticleRepository extends JpaRepository<Article, Integer>, ArticleRepositoryCustom {
 
     @Query("SELECT a FROM Article a WHERE a.keywords IN :keywords")
     List<Article> findByKeyword(@Param("keywords") List<String> keywords);
+
+    @Query("SELECT NEW de.axelspringer.publishing.model.ArticleVersion(a.id, a.version, a.lastModified) FROM Article a WHERE a.id = :id")
+    ArticleVersion findVersion(@Param("id") Integer id);
+
+    @Query("SELECT NEW de.axelspringer.publishing.model.ArticleVersion(a.id, a.version, a.lastModified) FROM Article a " +
+            "WHERE a.id > :after ORDER BY a.id")
+    List<ArticleVersion> findPageVersions(@Param("after") Integer after, Pageable pageable);
+
+    /**
+     * The article with everything a client displays, in one statement.
+     */
+    @Query("SELECT a FROM Article a FETCH ALL PROPERTIES LEFT JOIN FETCH a.authors LEFT JOIN FETCH a.keywords WHERE a.id = :id")
+    Article findForDisplay(@Param("id") Integer id);
+
+    /**
+     * The given articles ordered by id, with their text and collections. The joined collections repeat an article
+     * once per author and keyword.
+     */
+    @Query("SELECT a FROM Article a FETCH ALL PROPERTIES LEFT JOIN FETCH a.authors LEFT JOIN FETCH a.keywords WHERE a.id IN :ids ORDER BY a.id")
+    List<Article> findForList(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,68 @@
+package de.axelspringer.publishing.persistence;
+
+import de.axelspringer.publishing.model.Article;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ArticleRepositoryCustom {
+
+    /**
+     * Walks over all articles ordered by id with a forward-only cursor, handing every row to the consumer.
+     * The persistence context is cleared periodically, so memory stays flat regardless of the table size.
+     * The text is selected with the rows, authors and keywords are loaded in batches once the consumer touches them.
+     */
+    @Transactional(readOnly = true)
+    void scrollAll(Consumer<Article> consumer);
+
+    /**
+     * Deletes the article and its author and keyword rows with one statement per table, without loading it first.
+     * Only the article's own second-level cache entries are evicted, after the transaction completes.
+     *
+     * @return whether the article existed
+     */
+    @Transactional
+    boolean deleteById(Integer id);
+
+    /**
+     * Ids of the articles with any of the keywords, by any of the authors and published in the range of epoch nanos,
+     * in ascending order and greater than {@code afterId}. Null criteria don't restrict the result.
+     */
+    @Transactional(readOnly = true)
+    List<Integer> findIds(Collection<String> keywords, Collection<String> authors, Long publishedSinceNanos, Long publishedBeforeNanos,
+                          Integer afterId, int offset, int limit);
+
+    /**
+     * Hands the articles matching like {@link #findIds} to the visitor with a forward-only cursor over one statement,
+     * together with their keywords and author names if asked for. The statement is a union without an order, so the
+     * database may return articles, keywords and authors in any order, and the visitor must not depend on it.
+     *
+     * @return the number of rows visited
+     */
+    @Transactional(readOnly = true)
+    int scrollMatches(Collection<String> keywords, Collection<String> authors, Long publishedSinceNanos, Long publishedBeforeNanos,
+                      boolean withKeywords, boolean withAuthors, MatchVisitor visitor);
+
+    /**
+     * Receives the matches of a search.
+     */
+    interface MatchVisitor {
+
+        /**
+         * @param publishedNanos null if the article isn't published
+         */
+        void article(int id, Long publishedNanos);
+
+        /**
+         * A keyword of a matching article.
+         */
+        void keyword(String keyword);
+
+        /**
+         * The name of an author of a matching article.
+         */
+        void author(String author);
+    }
+}
@@ -0,0 +1,208 @@
+package de.axelspringer.publishing.persistence;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.model.Article;
+import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
+
+    private static final int FETCH_SIZE = 100;
+    private static final int MATCHES_FETCH_SIZE = 1000;
+
+    // kinds of the rows of matchesSql
+    private static final int MATCHED_ARTICLE = 0;
+    private static final int MATCHED_KEYWORD = 1;
+    private static final int MATCHED_AUTHOR = 2;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void scrollAll(Consumer<Article> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        ScrollableResults results = session.createQuery("SELECT a FROM Article a FETCH ALL PROPERTIES ORDER BY a.id").
+                setReadOnly(true).
+                setFetchSize(FETCH_SIZE).
+                scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((Article) results.get(0));
+                if (++count % FETCH_SIZE == 0) {
+                    session.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    @Override
+    public boolean deleteById(Integer id) {
+        Session session = entityManager.unwrap(Session.class);
+        // plain JDBC, so Hibernate doesn't invalidate the whole Article cache region as it does for bulk statements
+        int deleted = session.doReturningWork(connection -> {
+            for (String table : new String[] { "article_authors", "article_keywords" }) {
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE article_id = ?")) {
+                    statement.setInt(1, id);
+                    statement.executeUpdate();
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM article WHERE id = ?")) {
+                statement.setInt(1, id);
+                return statement.executeUpdate();
+            }
+        });
+        SessionFactory sessionFactory = session.getSessionFactory();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                sessionFactory.getCache().evictEntity(Article.class, id);
+                sessionFactory.getCache().evictCollection(Article.class.getName() + ".authors", id);
+                sessionFactory.getCache().evictCollection(Article.class.getName() + ".keywords", id);
+            }
+        });
+        return deleted > 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Integer> findIds(Collection<String> keywords, Collection<String> authors, Long publishedSinceNanos, Long publishedBeforeNanos,
+                                 Integer afterId, int offset, int limit) {
+        Query query = entityManager.createNativeQuery(findIdsSql(keywords != null, authors != null, publishedSinceNanos != null,
+                publishedBeforeNanos != null, afterId != null));
+        if(keywords != null) {
+            query.setParameter("keywords", keywords);
+        }
+        if(authors != null) {
+            query.setParameter("authors", authors);
+        }
+        if(publishedSinceNanos != null) {
+            query.setParameter("publishedSince", publishedSinceNanos);
+        }
+        if(publishedBeforeNanos != null) {
+            query.setParameter("publishedBefore", publishedBeforeNanos);
+        }
+        if(afterId != null) {
+            query.setParameter("after", afterId);
+        }
+        query.setFirstResult(offset);
+        if(limit < Integer.MAX_VALUE) {
+            query.setMaxResults(limit);
+        }
+        return ((List<Number>) query.getResultList()).stream().map(Number::intValue).collect(Collectors.toList());
+    }
+
+    @Override
+    public int scrollMatches(Collection<String> keywords, Collection<String> authors, Long publishedSinceNanos, Long publishedBeforeNanos,
+                             boolean withKeywords, boolean withAuthors, MatchVisitor visitor) {
+        Session session = entityManager.unwrap(Session.class);
+        SQLQuery query = session.createSQLQuery(matchesSql(keywords != null, authors != null, publishedSinceNanos != null,
+                publishedBeforeNanos != null, withKeywords, withAuthors));
+        if(keywords != null) {
+            query.setParameterList("keywords", keywords);
+        }
+        if(authors != null) {
+            query.setParameterList("authors", authors);
+        }
+        if(publishedSinceNanos != null) {
+            query.setParameter("publishedSince", publishedSinceNanos);
+        }
+        if(publishedBeforeNanos != null) {
+            query.setParameter("publishedBefore", publishedBeforeNanos);
+        }
+        ScrollableResults results = query.setReadOnly(true).setFetchSize(MATCHES_FETCH_SIZE).scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            int rows = 0;
+            while (results.next()) {
+                Object[] row = results.get();
+                switch (((Number) row[0]).intValue()) {
+                    case MATCHED_ARTICLE:
+                        visitor.article(((Number) row[1]).intValue(), row[2] != null ? ((Number) row[2]).longValue() : null);
+                        break;
+                    case MATCHED_KEYWORD:
+                        visitor.keyword((String) row[3]);
+                        break;
+                    default:
+                        visitor.author((String) row[3]);
+                }
+                rows++;
+            }
+            return rows;
+        } finally {
+            results.close();
+        }
+    }
+
+    /**
+     * Keywords and authors are matched by subqueries on the join tables alone, which are answered from the indexes
+     * leading with the keyword and the author. The subqueries JPQL renders join the article table first,
+     * scanning all articles on databases which don't reorder joins, like HSQLDB.
+     */
+    static String findIdsSql(boolean keywords, boolean authors, boolean publishedSince, boolean publishedBefore, boolean after) {
+        List<String> predicates = predicates(keywords, authors, publishedSince, publishedBefore);
+        if(after) {
+            predicates.add("a.id > :after");
+        }
+        return "SELECT a.id FROM article a" + where(predicates) + " ORDER BY a.id";
+    }
+
+    /**
+     * The matching articles with their published nanos, and the keywords and the author names of the same articles
+     * if asked for, as rows tagged by kind in one statement. Keywords and authors join their articles by the same
+     * subquery as {@link #findIdsSql}, so the predicates are evaluated for each part. The union isn't ordered, the
+     * database may return the kinds interleaved; sorting all rows would cost more than a visitor that counts in any order.
+     */
+    static String matchesSql(boolean keywords, boolean authors, boolean publishedSince, boolean publishedBefore,
+                             boolean withKeywords, boolean withAuthors) {
+        String where = where(predicates(keywords, authors, publishedSince, publishedBefore));
+        StringBuilder sql = new StringBuilder("SELECT " + MATCHED_ARTICLE + " AS kind, a.id, a.published_nanos, CAST(NULL AS VARCHAR(255)) AS term " +
+                "FROM article a" + where);
+        if(withKeywords) {
+            sql.append(" UNION ALL SELECT " + MATCHED_KEYWORD + ", k.article_id, CAST(NULL AS BIGINT), k.keywords FROM article_keywords k " +
+                    "WHERE k.article_id IN (SELECT a.id FROM article a").append(where).append(")");
+        }
+        if(withAuthors) {
+            sql.append(" UNION ALL SELECT " + MATCHED_AUTHOR + ", aa.article_id, CAST(NULL AS BIGINT), au.name FROM article_authors aa " +
+                    "INNER JOIN author au ON au.id = aa.authors_id WHERE aa.article_id IN (SELECT a.id FROM article a").append(where).append(")");
+        }
+        return sql.toString();
+    }
+
+    private static List<String> predicates(boolean keywords, boolean authors, boolean publishedSince, boolean publishedBefore) {
+        List<String> predicates = Lists.newArrayList();
+        if(keywords) {
+            predicates.add("a.id IN (SELECT k.article_id FROM article_keywords k WHERE k.keywords IN (:keywords))");
+        }
+        if(authors) {
+            predicates.add("a.id IN (SELECT aa.article_id FROM author au INNER JOIN article_authors aa ON aa.authors_id = au.id WHERE au.name IN (:authors))");
+        }
+        if(publishedSince) {
+            predicates.add("a.published_nanos >= :publishedSince");
+        }
+        if(publishedBefore) {
+            predicates.add("a.published_nanos < :publishedBefore");
+        }
+        return predicates;
+    }
+
+    private static String where(List<String> predicates) {
+        return predicates.isEmpty() ? "" : " WHERE " + Joiner.on(" AND ").join(predicates);
+    }
+}
@@ -3,14 +3,26 @@ package de.axelspringer.publishing.persistence;
 import de.axelspringer.publishing.model.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 @Transactional
 public interface AuthorRepository extends JpaRepository<Author, Integer> {
 
     @Query("SELECT a FROM Author a WHERE a.name = :name")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Author find(@Param("name") String name);
+
+    @Query("SELECT a FROM Author a WHERE a.name IN :names")
+    List<Author> findByNames(@Param("names") Collection<String> names);
+
+    @Query("SELECT a.name, a.id FROM Author a")
+    List<Object[]> findAllNames();
 }
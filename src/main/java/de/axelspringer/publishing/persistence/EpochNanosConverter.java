@@ -0,0 +1,45 @@
+package de.axelspringer.publishing.persistence;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Stores dates as nanoseconds since the epoch in a {@code BIGINT} column, which orders like the instants and
+ * can be range scanned through an index. The offset isn't kept, dates are read in UTC as they are written to clients.
+ */
+@Converter
+public class EpochNanosConverter implements AttributeConverter<OffsetDateTime, Long> {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    @Override
+    public Long convertToDatabaseColumn(OffsetDateTime dateTime) {
+        return dateTime != null ? toNanos(dateTime) : null;
+    }
+
+    @Override
+    public OffsetDateTime convertToEntityAttribute(Long nanos) {
+        return nanos != null ? fromNanos(nanos) : null;
+    }
+
+    /**
+     * Epoch nanos, saturated outside of the years 1677-2262 which a long can represent.
+     */
+    public static long toNanos(OffsetDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond();
+        if(seconds >= Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        if(seconds <= Long.MIN_VALUE / NANOS_PER_SECOND) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
+    public static OffsetDateTime fromNanos(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND)).atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,86 @@
+package de.axelspringer.publishing.persistence;
+
+import java.util.function.Supplier;
+
+/**
+ * Where the {@link ReplicaRoutingDataSource} may send the read-only transactions of the current thread.
+ * <p>
+ * Within a scope, opened per request and per task of the database executor, all reads go to the same replica,
+ * so a request doesn't see an article's version from one replica and its body from another, lagging further behind.
+ * A scope can require the primary, for clients which have just written and must read their own writes.
+ * Outside of scopes every read-only transaction picks a replica of its own.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static void begin(boolean primaryRequired) {
+        SCOPE.set(new Scope(primaryRequired));
+    }
+
+    public static void end() {
+        SCOPE.remove();
+    }
+
+    public static boolean isPrimaryRequired() {
+        Scope scope = SCOPE.get();
+        return scope != null && scope.primaryRequired;
+    }
+
+    /**
+     * Runs the work with all its reads on the primary, like the rebuilds of the indexes, which are kept up to date
+     * by the writes of this instance from then on and would miss the writes a replica lags behind for good.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Scope previous = SCOPE.get();
+        SCOPE.set(new Scope(true));
+        try {
+            return work.get();
+        } finally {
+            if(previous != null) {
+                SCOPE.set(previous);
+            } else {
+                SCOPE.remove();
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable work) {
+        onPrimary(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * The replica the reads of the current scope are bound to, or -1 if none is yet or there is no scope.
+     */
+    public static int boundReplica() {
+        Scope scope = SCOPE.get();
+        return scope != null ? scope.replica : -1;
+    }
+
+    /**
+     * Binds the reads of the current scope to the replica, like those of another scope whose result it shares.
+     * Nothing changes for -1 or outside of scopes.
+     */
+    public static void bindReplica(int replica) {
+        Scope scope = SCOPE.get();
+        if(scope != null) {
+            scope.replica = replica;
+        }
+    }
+
+    private static final class Scope {
+
+        final boolean primaryRequired;
+        int replica = -1;
+
+        Scope(boolean primaryRequired) {
+            this.primaryRequired = primaryRequired;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package de.axelspringer.publishing.persistence;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out connections of the replicas to read-only transactions and connections of the primary to everything else.
+ * It has to be wrapped in a {@link LazyConnectionDataSourceProxy}, as the transaction manager asks for the connection
+ * before it marks the transaction read-only; the proxy only gets it once the first statement runs.
+ * <p>
+ * Replicas take turns, unless the current {@link ReadRouting} scope is bound to one or requires the primary.
+ * A replica which fails to hand out a connection is taken out of rotation and its reads fail over to the next one,
+ * or to the primary once none is left. A background check validates a connection of every replica each
+ * {@code healthCheckMillis} and puts replicas back into rotation when they answer again.
+ * Replication lag isn't checked, the database has to keep it within the read-your-writes window.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long healthCheckMillis;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    private ScheduledExecutorService healthChecks;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long healthCheckMillis) {
+        this.primary = primary;
+        ImmutableList.Builder<Replica> builder = ImmutableList.builder();
+        for (int i = 0; i < replicas.size(); i++) {
+            builder.add(new Replica(i, replicas.get(i)));
+        }
+        this.replicas = builder.build();
+        this.healthCheckMillis = healthCheckMillis;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        healthChecks = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("replica-health-check").setDaemon(true).build());
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        healthChecks.shutdownNow();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        if(ReadRouting.isPrimaryRequired()) {
+            pinnedReads.increment();
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        int bound = ReadRouting.boundReplica();
+        if(bound >= 0 && replicas.get(bound).healthy) {
+            Connection connection = replicas.get(bound).connect();
+            if(connection != null) {
+                return connection;
+            }
+        }
+        int first = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((first + i) % replicas.size());
+            if(replica.healthy && replica.index != bound) {
+                Connection connection = replica.connect();
+                if(connection != null) {
+                    ReadRouting.bindReplica(replica.index);
+                    return connection;
+                }
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    public int getReplicas() {
+        return replicas.size();
+    }
+
+    public int getHealthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    /**
+     * Connections handed out by the primary, for writes and for reads no replica could take.
+     */
+    public long getPrimaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    /**
+     * Read-only transactions sent to the primary as the scope required it.
+     */
+    public long getPinnedReads() {
+        return pinnedReads.sum();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    /**
+     * Replicas taken out of rotation, as they failed to hand out a connection or their health check.
+     */
+    public long getFailovers() {
+        return failovers.sum();
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if(healthy && !replica.healthy) {
+                LOG.info("Replica {} is healthy again, back in rotation", replica.index);
+                replica.healthy = true;
+            } else if(!healthy && replica.healthy) {
+                replica.fail(null);
+            }
+        }
+    }
+
+    private final class Replica {
+
+        final int index;
+        final DataSource dataSource;
+        volatile boolean healthy = true;
+
+        Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * A connection of this replica, or null if it failed and has been taken out of rotation.
+         */
+        Connection connect() {
+            try {
+                Connection connection = dataSource.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                fail(e);
+                return null;
+            }
+        }
+
+        synchronized void fail(Exception cause) {
+            if(healthy) {
+                healthy = false;
+                failovers.increment();
+                LOG.warn("Replica {} failed, out of rotation until its health check passes", index, cause);
+            }
+        }
+    }
+}
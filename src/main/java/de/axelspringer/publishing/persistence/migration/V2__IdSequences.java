@@ -0,0 +1,32 @@
+package de.axelspringer.publishing.persistence.migration;
+
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Replaces the shared {@code hibernate_sequence} by a sequence per table, from which Hibernate allocates
+ * {@value #ALLOCATION_SIZE} ids at a time. Hibernate hands out the ids up to a value read from the sequence,
+ * so each starts {@value #ALLOCATION_SIZE} above the highest id of its table.
+ */
+public class V2__IdSequences implements JdbcMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[] { "article", "author" }) {
+                long maxId;
+                try (ResultSet result = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+                    result.next();
+                    maxId = result.getLong(1);
+                }
+                statement.execute("CREATE SEQUENCE " + table + "_seq START WITH " + (maxId + ALLOCATION_SIZE) + " INCREMENT BY " + ALLOCATION_SIZE);
+            }
+            statement.execute("DROP SEQUENCE hibernate_sequence");
+        }
+    }
+}
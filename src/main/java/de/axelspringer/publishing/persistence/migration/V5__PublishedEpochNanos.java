@@ -0,0 +1,47 @@
+package de.axelspringer.publishing.persistence.migration;
+
+import de.axelspringer.publishing.persistence.EpochNanosConverter;
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+
+/**
+ * Moves the publication dates from {@code published}, where Hibernate stored them Java serialized, to
+ * {@code published_nanos} as {@link EpochNanosConverter epoch nanos}. Serialized dates don't order like the dates
+ * they encode, so range criteria on them could neither be trusted nor use an index.
+ */
+public class V5__PublishedEpochNanos implements JdbcMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE article ADD COLUMN published_nanos BIGINT");
+            try (ResultSet serialized = statement.executeQuery("SELECT id, published FROM article WHERE published IS NOT NULL");
+                 PreparedStatement update = connection.prepareStatement("UPDATE article SET published_nanos = ? WHERE id = ?")) {
+                int batched = 0;
+                while (serialized.next()) {
+                    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized.getBytes(2)))) {
+                        update.setLong(1, EpochNanosConverter.toNanos((OffsetDateTime) in.readObject()));
+                    }
+                    update.setInt(2, serialized.getInt(1));
+                    update.addBatch();
+                    if(++batched % BATCH_SIZE == 0) {
+                        update.executeBatch();
+                    }
+                }
+                if(batched % BATCH_SIZE != 0) {
+                    update.executeBatch();
+                }
+            }
+            statement.execute("ALTER TABLE article DROP COLUMN published");
+        }
+    }
+}
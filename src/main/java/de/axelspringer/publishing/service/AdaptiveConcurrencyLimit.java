@@ -0,0 +1,115 @@
+package de.axelspringer.publishing.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests of one kind in progress to a limit following their latency: once per window the
+ * average latency is compared with its long-term average, and the limit is lowered towards as little as half of it
+ * while the latency is more than {@value #TOLERANCE} times as high. Otherwise the limit is raised by up to the square
+ * root of itself, if it was at least half reached. Each window moves the limit a fifth of the way, within its bounds.
+ * Requests over the limit are rejected right away.
+ * Neither admitting nor completing a request locks or allocates.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    static final double TOLERANCE = 1.5;
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BASELINE_SMOOTHING = 0.05;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+
+    private volatile int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong windowEnd;
+
+    // only read and written by the thread ending a window
+    private double baselineNanos;
+    private double estimate;
+
+    AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit, long windowMillis) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.windowEnd = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if(current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if(inFlight.compareAndSet(current, current + 1)) {
+                int peak;
+                while ((peak = peakInFlight.get()) <= current && !peakInFlight.compareAndSet(peak, current + 1)) {
+                    // retry
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Completes a request admitted by {@link #tryAcquire}, ending the window if it is over.
+     */
+    void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        this.latencyNanos.add(latencyNanos);
+        samples.increment();
+        long end = windowEnd.get();
+        long now = System.nanoTime();
+        if(now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            adapt();
+        }
+    }
+
+    private void adapt() {
+        long count = samples.sumThenReset();
+        long total = latencyNanos.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if(count == 0) {
+            return;
+        }
+        double latency = (double) total / count;
+        baselineNanos = baselineNanos == 0 ? latency : baselineNanos * (1 - BASELINE_SMOOTHING) + latency * BASELINE_SMOOTHING;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineNanos / latency));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        if(peak < limit / 2) {
+            // not limited by the limit, so its latency tells nothing about a higher one
+            target = Math.min(target, estimate);
+        }
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - SMOOTHING) + target * SMOOTHING));
+        limit = (int) estimate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,110 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Maps;
+import de.axelspringer.publishing.exception.ServiceUnavailableException;
+import de.axelspringer.publishing.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits requests by budget: each client has {@link TokenBuckets} of its own for reads,
+ * searches and writes. Searches and writes are further limited by an {@link AdaptiveConcurrencyLimit} shared by all
+ * clients, which follows their latency, so that they don't take all connections while the database slows down.
+ * A client over its budget gets a {@link TooManyRequestsException} telling it when to retry; a request over the
+ * concurrency limit a {@link ServiceUnavailableException}, like one rejected by a {@link Bulkhead}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.rate-limit", name = "enabled")
+public class AdmissionControl {
+
+    public enum Budget { READ, SEARCH, WRITE }
+
+    @Value("${articles.rate-limit.read.per-second:200}")
+    private double readPerSecond;
+
+    @Value("${articles.rate-limit.read.burst:400}")
+    private int readBurst;
+
+    @Value("${articles.rate-limit.search.per-second:20}")
+    private double searchPerSecond;
+
+    @Value("${articles.rate-limit.search.burst:40}")
+    private int searchBurst;
+
+    @Value("${articles.rate-limit.write.per-second:20}")
+    private double writePerSecond;
+
+    @Value("${articles.rate-limit.write.burst:50}")
+    private int writeBurst;
+
+    @Value("${articles.rate-limit.clients:100000}")
+    private long maxClients;
+
+    @Value("${articles.rate-limit.concurrency.search.initial:16}")
+    private int searchInitialLimit;
+
+    @Value("${articles.rate-limit.concurrency.search.max:32}")
+    private int searchMaxLimit;
+
+    @Value("${articles.rate-limit.concurrency.write.initial:8}")
+    private int writeInitialLimit;
+
+    @Value("${articles.rate-limit.concurrency.write.max:16}")
+    private int writeMaxLimit;
+
+    @Value("${articles.rate-limit.concurrency.min:2}")
+    private int minLimit;
+
+    @Value("${articles.rate-limit.concurrency.window-millis:1000}")
+    private long windowMillis;
+
+    private final Map<Budget, TokenBuckets> tokenBuckets = Maps.newEnumMap(Budget.class);
+    private final Map<Budget, AdaptiveConcurrencyLimit> concurrencyLimits = Maps.newEnumMap(Budget.class);
+
+    @PostConstruct
+    public void init() {
+        tokenBuckets.put(Budget.READ, new TokenBuckets("read", readPerSecond, readBurst, maxClients));
+        tokenBuckets.put(Budget.SEARCH, new TokenBuckets("search", searchPerSecond, searchBurst, maxClients));
+        tokenBuckets.put(Budget.WRITE, new TokenBuckets("write", writePerSecond, writeBurst, maxClients));
+        concurrencyLimits.put(Budget.SEARCH, new AdaptiveConcurrencyLimit("search", searchInitialLimit, minLimit, searchMaxLimit, windowMillis));
+        concurrencyLimits.put(Budget.WRITE, new AdaptiveConcurrencyLimit("write", writeInitialLimit, minLimit, writeMaxLimit, windowMillis));
+    }
+
+    /**
+     * Admits a request of the client, which has to be {@link #complete completed} once it is done.
+     */
+    public void admit(String client, Budget budget) {
+        long waitNanos = tokenBuckets.get(budget).tryTake(client);
+        if(waitNanos > 0) {
+            throw new TooManyRequestsException("Too many " + budget.name().toLowerCase() + " requests",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        AdaptiveConcurrencyLimit concurrencyLimit = concurrencyLimits.get(budget);
+        if(concurrencyLimit != null && !concurrencyLimit.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many concurrent " + budget.name().toLowerCase() + " requests");
+        }
+    }
+
+    /**
+     * Completes a request admitted by {@link #admit}.
+     */
+    public void complete(Budget budget, long latencyNanos) {
+        AdaptiveConcurrencyLimit concurrencyLimit = concurrencyLimits.get(budget);
+        if(concurrencyLimit != null) {
+            concurrencyLimit.release(latencyNanos);
+        }
+    }
+
+    public Iterable<TokenBuckets> getTokenBuckets() {
+        return tokenBuckets.values();
+    }
+
+    public Iterable<AdaptiveConcurrencyLimit> getConcurrencyLimits() {
+        return concurrencyLimits.values();
+    }
+}
@@ -0,0 +1,292 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.TreeMultiset;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.axelspringer.publishing.exception.ServiceUnavailableException;
+import de.axelspringer.publishing.model.ArticleChange;
+import de.axelspringer.publishing.model.ArticleChange.Operation;
+import de.axelspringer.publishing.persistence.ArticleChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox of article changes, from which consumers sync incrementally by position.
+ * <p>
+ * Positions are allocated when a change is appended, but transactions may commit in another order. So that a consumer
+ * continuing from the last position it has seen never skips a change, reads stop short of the oldest change still
+ * in flight in this instance, and of the changes whose position is being allocated while they read. Neither holds
+ * a lock during its statements: only the bookkeeping of the positions in flight is synchronized.
+ * With several writing instances, {@code articles.changes.settle-millis} should exceed the time a write transaction
+ * takes to commit, as their transactions aren't known here.
+ * <p>
+ * Consumers waiting for changes are answered by a single thread after each local commit and every
+ * {@code articles.changes.poll-millis}, with one query for all of them. At most {@code articles.changes.max-waiting}
+ * may wait at once, each for a bounded page of changes.
+ * <p>
+ * Created lazily by the first write or read of changes, as nothing needs its threads before.
+ */
+@Component
+@Lazy
+public class ArticleChangeLog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleChangeLog.class);
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ArticleChangeRepository articleChangeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${articles.changes.max-waiting:1000}")
+    private int maxWaiting;
+
+    @Value("${articles.changes.poll-millis:1000}")
+    private long pollMillis;
+
+    @Value("${articles.changes.settle-millis:0}")
+    private long settleMillis;
+
+    @Value("${articles.changes.retention-hours:168}")
+    private long retentionHours;
+
+    /**
+     * Guards the positions in flight, never held during statements.
+     */
+    private final Object allocation = new Object();
+
+    // positions of uncommitted changes, and for changes still being allocated the lowest position they can get
+    private final TreeMultiset<Long> inFlight = TreeMultiset.create();
+    // the highest position allocated by this instance
+    private long lastAllocated;
+    // allocations begun, so that reads can tell whether one began while they ran
+    private long allocations;
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicBoolean pollScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("article-changes").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::prune, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Waiter waiter; (waiter = waiters.poll()) != null; ) {
+            waiter.future.complete(Collections.emptyList());
+        }
+    }
+
+    /**
+     * Appends a change within the current transaction, which must exist.
+     */
+    public void append(Integer articleId, Integer version, Operation operation) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Article changes must be appended within the transaction of the change");
+        }
+        ArticleChange change = new ArticleChange(articleId, version, operation);
+        long lowest;
+        synchronized (allocation) {
+            // the sequence hands out higher positions than any allocated before
+            lowest = lastAllocated + 1;
+            inFlight.add(lowest);
+            allocations++;
+        }
+        Long position;
+        try {
+            // only reads the sequence, the change is inserted when the transaction is flushed
+            entityManager.persist(change);
+            position = change.getPosition();
+        } finally {
+            synchronized (allocation) {
+                inFlight.remove(lowest);
+                if(change.getPosition() != null) {
+                    inFlight.add(change.getPosition());
+                    lastAllocated = Math.max(lastAllocated, change.getPosition());
+                }
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (allocation) {
+                    inFlight.remove(position);
+                }
+                if(status == STATUS_COMMITTED) {
+                    wakeUp();
+                }
+            }
+        });
+    }
+
+    /**
+     * Up to {@code limit} changes after the position {@code since}, in the order of the log.
+     */
+    public List<ArticleChange> changesSince(long since, int limit) {
+        Date settled = new Date(System.currentTimeMillis() - settleMillis);
+        Horizon horizon = horizon();
+        List<ArticleChange> changes = articleChangeRepository.findChanges(since, horizon.below, settled, new PageRequest(0, limit));
+        long last = horizon.lastVisible();
+        return changes.stream().filter(change -> change.getPosition() <= last).collect(Collectors.toList());
+    }
+
+    /**
+     * The position up to which {@link #changesSince} returns every change now, 0 if the log is empty. A consumer that has
+     * applied the current state of all articles can continue from it.
+     */
+    public long lastPosition() {
+        Date settled = new Date(System.currentTimeMillis() - settleMillis);
+        Horizon horizon = horizon();
+        Long last = articleChangeRepository.findLastPosition(horizon.below, settled);
+        return last != null ? Math.min(last, horizon.lastVisible()) : 0;
+    }
+
+    private Horizon horizon() {
+        synchronized (allocation) {
+            return new Horizon(inFlight.isEmpty() ? Long.MAX_VALUE : inFlight.firstEntry().getElement(), lastAllocated, allocations);
+        }
+    }
+
+    public long getRetentionMillis() {
+        return TimeUnit.HOURS.toMillis(retentionHours);
+    }
+
+    /**
+     * Like {@link #changesSince}, but if there are none yet, completes once there are or with none after the timeout.
+     *
+     * @throws ServiceUnavailableException if {@code articles.changes.max-waiting} consumers are waiting already
+     */
+    public CompletableFuture<List<ArticleChange>> awaitChanges(long since, int limit, long timeoutMillis) {
+        List<ArticleChange> changes = changesSince(since, limit);
+        if(!changes.isEmpty() || timeoutMillis <= 0) {
+            return CompletableFuture.completedFuture(changes);
+        }
+        if(waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new ServiceUnavailableException("Too many consumers waiting for changes");
+        }
+        Waiter waiter = new Waiter(since, limit, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        waiters.add(waiter);
+        // a commit since the read above may have polled before the waiter was added
+        wakeUp();
+        scheduler.schedule(this::wakeUp, timeoutMillis, TimeUnit.MILLISECONDS);
+        return waiter.future;
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    private void wakeUp() {
+        if(!scheduler.isShutdown() && pollScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::poll);
+        }
+    }
+
+    /**
+     * Reads the changes after the oldest position a consumer waits at, and hands every waiting consumer those after its own.
+     */
+    private void poll() {
+        pollScheduled.set(false);
+        if(waiters.isEmpty()) {
+            return;
+        }
+        try {
+            long since = waiters.stream().mapToLong(waiter -> waiter.since).min().getAsLong();
+            List<ArticleChange> changes = changesSince(since, MAX_PAGE_SIZE);
+            long now = System.nanoTime();
+            for (Iterator<Waiter> iterator = waiters.iterator(); iterator.hasNext(); ) {
+                Waiter waiter = iterator.next();
+                List<ArticleChange> page = changes.stream().
+                        filter(change -> change.getPosition() > waiter.since).
+                        limit(waiter.limit).
+                        collect(Collectors.toList());
+                if(!page.isEmpty() || now - waiter.deadline >= 0) {
+                    iterator.remove();
+                    waiting.decrementAndGet();
+                    waiter.future.complete(page);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Reading article changes for waiting consumers failed", e);
+        }
+    }
+
+    private void prune() {
+        try {
+            int deleted = articleChangeRepository.deleteOlderThan(new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours)));
+            LOG.debug("Pruned {} article changes", deleted);
+        } catch (RuntimeException e) {
+            LOG.warn("Pruning article changes failed", e);
+        }
+    }
+
+    /**
+     * What a read may return, as of its start: the changes below the oldest position in flight. Changes allocated
+     * while it runs get positions above the last one allocated at its start, and one of them may commit before
+     * another allocated earlier. So once any was, the changes above that position are left to the next read.
+     */
+    private final class Horizon {
+
+        private final long below;
+        private final long lastAllocated;
+        private final long allocations;
+
+        private Horizon(long below, long lastAllocated, long allocations) {
+            this.below = below;
+            this.lastAllocated = lastAllocated;
+            this.allocations = allocations;
+        }
+
+        long lastVisible() {
+            synchronized (allocation) {
+                return ArticleChangeLog.this.allocations == allocations ? Long.MAX_VALUE : lastAllocated;
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final long since;
+        private final int limit;
+        private final long deadline;
+        private final CompletableFuture<List<ArticleChange>> future = new CompletableFuture<>();
+
+        private Waiter(long since, int limit, long deadline) {
+            this.since = since;
+            this.limit = limit;
+            this.deadline = deadline;
+        }
+    }
+}
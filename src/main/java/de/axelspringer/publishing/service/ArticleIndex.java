@@ -0,0 +1,483 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleChange;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.ArticleRepositoryCustom;
+import de.axelspringer.publishing.persistence.EpochNanosConverter;
+import de.axelspringer.publishing.persistence.ReadRouting;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-process search index answering keyword/author/published queries without touching the database.
+ * Keywords and authors are kept as posting lists of article ids in compressed bitmaps, published dates
+ * as a sorted array of epoch nanos with the matching article ids. The index is loaded at startup and
+ * kept up to date by {@link ArticleService} after each commit, and by following the {@link ArticleChangeLog} every
+ * {@code articles.index.refresh-millis} for the writes of other instances. Those updates may arrive out of order,
+ * so an article is only replaced by a newer version, and a deleted article stays deleted.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.index", name = "enabled")
+public class ArticleIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleIndex.class);
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    @Lazy
+    private ArticleChangeLog articleChangeLog;
+
+    @Value("${articles.index.refresh-millis:100}")
+    private long refreshMillis;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Held while changes are applied and while the index is rebuilt, which moves the position.
+     */
+    private final Object syncing = new Object();
+
+    // the change log position the index has caught up to
+    private volatile long position;
+
+    private ScheduledExecutorService scheduler;
+
+    private final Map<String, RoaringBitmap> keywords = Maps.newHashMap();
+    private final Map<String, RoaringBitmap> authors = Maps.newHashMap();
+    private final Map<Integer, Document> documents = Maps.newHashMap();
+    // ids aren't reused, so a late update of a deleted article can be recognized by its id
+    private final RoaringBitmap deleted = new RoaringBitmap();
+
+    private long[] published = new long[16];
+    private int[] publishedIds = new int[16];
+    private int publishedSize;
+
+    @PostConstruct
+    public void open() {
+        rebuild();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("article-index").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public void rebuild() {
+        synchronized (syncing) {
+            // the articles are read after the position, so they reflect all changes up to it at least
+            long lastPosition = articleChangeLog.lastPosition();
+            rebuild(lastPosition);
+            position = lastPosition;
+        }
+    }
+
+    private void rebuild(long lastPosition) {
+        lock.writeLock().lock();
+        try {
+            keywords.clear();
+            authors.clear();
+            documents.clear();
+            deleted.clear();
+            publishedSize = 0;
+            ReadRouting.onPrimary(() -> articleRepository.scrollAll(article -> {
+                Document document = Document.of(article);
+                add(article.getId(), document);
+                if(document.published != null) {
+                    appendPublished(document.published, article.getId());
+                }
+            }));
+            sortPublished();
+            keywords.values().forEach(RoaringBitmap::runOptimize);
+            authors.values().forEach(RoaringBitmap::runOptimize);
+            LOG.info("Article index loaded: {} articles, {} keywords, {} authors, at change {}",
+                    documents.size(), keywords.size(), authors.size(), lastPosition);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the changes logged since the last refresh, those of other instances among them.
+     */
+    public void refresh() {
+        try {
+            synchronized (syncing) {
+                while (sync()) {
+                    // until a page comes back short
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Article index refresh failed", e);
+        }
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Adds or replaces the article, unless the index already has a newer version of it or it has been deleted.
+     */
+    public void index(Article article) {
+        Document document = Document.of(article);
+        lock.writeLock().lock();
+        try {
+            Document indexed = documents.get(article.getId());
+            if(deleted.contains(article.getId()) || indexed != null && indexed.isNewerThan(document)) {
+                return;
+            }
+            remove(article.getId(), indexed);
+            add(article.getId(), document);
+            if(document.published != null) {
+                insertPublished(document.published, article.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            deleted.add(id);
+            remove(id, documents.get(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Same semantics as {@link ArticleService#find}: any of the keywords, any of the authors,
+     * published in {@code [publishedSince, publishedBefore)}; absent criteria are ignored.
+     *
+     * @return matching article ids in ascending order
+     */
+    public int[] find(Collection<String> keywords, Collection<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = match(keywords, authors, publishedSince, publishedBefore);
+            return result != null ? result.toArray() : new int[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hands the articles matching like {@link #find} to the visitor in ascending order, each followed by its keywords
+     * and authors if asked for. The index is read-locked meanwhile, the visitor must not block.
+     *
+     * @return the number of matching articles
+     */
+    public int visit(Collection<String> keywords, Collection<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore,
+                     boolean withKeywords, boolean withAuthors, ArticleRepositoryCustom.MatchVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = match(keywords, authors, publishedSince, publishedBefore);
+            if(result == null) {
+                return 0;
+            }
+            for (IntIterator ids = result.getIntIterator(); ids.hasNext(); ) {
+                int id = ids.next();
+                Document document = documents.get(id);
+                visitor.article(id, document.published);
+                if(withKeywords) {
+                    for (String keyword : document.keywords) {
+                        visitor.keyword(keyword);
+                    }
+                }
+                if(withAuthors) {
+                    for (String author : document.authors) {
+                        visitor.author(author);
+                    }
+                }
+            }
+            return result.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the index against the repository. Writes running concurrently with the check may be reported too.
+     *
+     * @return ids of articles which are missing, stale or orphaned in the index
+     */
+    public List<Integer> verify() {
+        Map<Integer, Document> expected = Maps.newHashMap();
+        ReadRouting.onPrimary(() -> articleRepository.scrollAll(article -> expected.put(article.getId(), Document.of(article))));
+        List<Integer> inconsistent = Lists.newArrayList();
+        lock.readLock().lock();
+        try {
+            expected.forEach((id, document) -> {
+                if(!document.equals(documents.get(id))) {
+                    inconsistent.add(id);
+                }
+            });
+            documents.keySet().stream().filter(id -> !expected.containsKey(id)).forEach(inconsistent::add);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return inconsistent;
+    }
+
+    /**
+     * Reloads the articles of the next page of changes and indexes or removes them.
+     *
+     * @return whether there may be more changes
+     */
+    private boolean sync() {
+        List<ArticleChange> changes = articleChangeLog.changesSince(position, ArticleChangeLog.MAX_PAGE_SIZE);
+        if(changes.isEmpty()) {
+            return false;
+        }
+        Set<Integer> ids = changes.stream().map(ArticleChange::getArticleId).collect(Collectors.toSet());
+        Map<Integer, Article> articles = Maps.newHashMap();
+        // the joined collections repeat an article, which is the same instance each time
+        ReadRouting.onPrimary(() -> articleRepository.findForList(ids)).forEach(article -> articles.put(article.getId(), article));
+        for (Integer id : ids) {
+            Article article = articles.get(id);
+            if(article != null) {
+                index(article);
+            } else {
+                remove(id);
+            }
+        }
+        position = changes.get(changes.size() - 1).getPosition();
+        return changes.size() == ArticleChangeLog.MAX_PAGE_SIZE;
+    }
+
+    private void add(int id, Document document) {
+        documents.put(id, document);
+        for (String keyword : document.keywords) {
+            keywords.computeIfAbsent(keyword, k -> new RoaringBitmap()).add(id);
+        }
+        for (String author : document.authors) {
+            authors.computeIfAbsent(author, k -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    private void remove(int id, Document document) {
+        if(document == null) {
+            return;
+        }
+        documents.remove(id);
+        for (String keyword : document.keywords) {
+            removePosting(keywords, keyword, id);
+        }
+        for (String author : document.authors) {
+            removePosting(authors, author, id);
+        }
+        if(document.published != null) {
+            removePublished(document.published, id);
+        }
+    }
+
+    private static void removePosting(Map<String, RoaringBitmap> postings, String term, int id) {
+        RoaringBitmap bitmap = postings.get(term);
+        if(bitmap != null) {
+            bitmap.remove(id);
+            if(bitmap.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private void insertPublished(long nanos, int id) {
+        if(publishedSize == published.length) {
+            int capacity = publishedSize + (publishedSize >> 1) + 1;
+            published = Arrays.copyOf(published, capacity);
+            publishedIds = Arrays.copyOf(publishedIds, capacity);
+        }
+        int position = lowerBound(nanos, id);
+        System.arraycopy(published, position, published, position + 1, publishedSize - position);
+        System.arraycopy(publishedIds, position, publishedIds, position + 1, publishedSize - position);
+        published[position] = nanos;
+        publishedIds[position] = id;
+        publishedSize++;
+    }
+
+    private void appendPublished(long nanos, int id) {
+        if(publishedSize == published.length) {
+            int capacity = publishedSize + (publishedSize >> 1) + 1;
+            published = Arrays.copyOf(published, capacity);
+            publishedIds = Arrays.copyOf(publishedIds, capacity);
+        }
+        published[publishedSize] = nanos;
+        publishedIds[publishedSize] = id;
+        publishedSize++;
+    }
+
+    /**
+     * Orders the dates appended while rebuilding by (timestamp, id), once instead of per insert.
+     */
+    private void sortPublished() {
+        long[] nanos = published;
+        int[] ids = publishedIds;
+        int[] order = IntStream.range(0, publishedSize).boxed().
+                sorted(Comparator.<Integer>comparingLong(i -> nanos[i]).thenComparingInt(i -> ids[i])).
+                mapToInt(Integer::intValue).toArray();
+        published = new long[Math.max(publishedSize, 16)];
+        publishedIds = new int[published.length];
+        for (int position = 0; position < publishedSize; position++) {
+            published[position] = nanos[order[position]];
+            publishedIds[position] = ids[order[position]];
+        }
+    }
+
+    private void removePublished(long nanos, int id) {
+        int position = lowerBound(nanos, id);
+        if(position < publishedSize && published[position] == nanos && publishedIds[position] == id) {
+            System.arraycopy(published, position + 1, published, position, publishedSize - position - 1);
+            System.arraycopy(publishedIds, position + 1, publishedIds, position, publishedSize - position - 1);
+            publishedSize--;
+        }
+    }
+
+    /**
+     * @return first position whose timestamp is not less than {@code nanos}
+     */
+    private int lowerBound(long nanos) {
+        return lowerBound(nanos, Integer.MIN_VALUE);
+    }
+
+    /**
+     * @return first position whose (timestamp, id) pair is not less than the given one
+     */
+    private int lowerBound(long nanos, int id) {
+        int low = 0;
+        int high = publishedSize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if(published[middle] < nanos || published[middle] == nanos && publishedIds[middle] < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the ids matching the criteria, null without any
+     */
+    private RoaringBitmap match(Collection<String> keywords, Collection<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
+        RoaringBitmap result = null;
+        if(keywords != null && !keywords.isEmpty()) {
+            result = intersect(result, union(this.keywords, keywords));
+        }
+        if(authors != null && !authors.isEmpty()) {
+            result = intersect(result, union(this.authors, authors));
+        }
+        if(publishedSince != null || publishedBefore != null) {
+            int from = publishedSince != null ? lowerBound(EpochNanosConverter.toNanos(publishedSince)) : 0;
+            int to = publishedBefore != null ? lowerBound(EpochNanosConverter.toNanos(publishedBefore)) : publishedSize;
+            RoaringBitmap range = from < to ? RoaringBitmap.bitmapOf(Arrays.copyOfRange(publishedIds, from, to)) : new RoaringBitmap();
+            result = intersect(result, range);
+        }
+        return result;
+    }
+
+    private static RoaringBitmap union(Map<String, RoaringBitmap> postings, Collection<String> terms) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (String term : terms) {
+            RoaringBitmap bitmap = postings.get(term);
+            if(bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap result, RoaringBitmap bitmap) {
+        if(result == null) {
+            return bitmap;
+        }
+        result.and(bitmap);
+        return result;
+    }
+
+    private static final class Document {
+        private final String[] keywords;
+        private final String[] authors;
+        private final Long published;
+        private final Integer version;
+
+        private Document(String[] keywords, String[] authors, Long published, Integer version) {
+            this.keywords = keywords;
+            this.authors = authors;
+            this.published = published;
+            this.version = version;
+        }
+
+        static Document of(Article article) {
+            Set<String> keywords = article.getKeywords();
+            Set<Author> authors = article.getAuthors();
+            String[] keywordTerms = keywords != null ? keywords.stream().sorted().toArray(String[]::new) : new String[0];
+            String[] authorTerms = authors != null ? authors.stream().map(Author::getName).sorted().toArray(String[]::new) : new String[0];
+            return new Document(keywordTerms, authorTerms, article.getPublished() != null ? EpochNanosConverter.toNanos(article.getPublished()) : null,
+                    article.getVersion());
+        }
+
+        boolean isNewerThan(Document document) {
+            return version != null && document.version != null && version > document.version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Document document = (Document) o;
+            return Arrays.equals(keywords, document.keywords) &&
+                    Arrays.equals(authors, document.authors) &&
+                    Objects.equals(published, document.published);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(keywords), Arrays.hashCode(authors), published);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.ReadRouting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cheap health check of the search index: compares the number of indexed articles with the repository, counted at
+ * most every {@code articles.index.health.cache-seconds}. The index follows the change log with a delay, so it is
+ * only reported down if the numbers differ by more than {@code articles.index.health.tolerance}.
+ * A full comparison is available through {@link ArticleIndex#verify()}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.index", name = "enabled")
+public class ArticleIndexHealthIndicator extends AbstractHealthIndicator {
+
+    @Autowired
+    private ArticleIndex articleIndex;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Value("${articles.index.health.cache-seconds:30}")
+    private long cacheSeconds;
+
+    @Value("${articles.index.health.tolerance:100}")
+    private long tolerance;
+
+    private Supplier<Long> stored;
+
+    @PostConstruct
+    public void init() {
+        stored = Suppliers.memoizeWithExpiration(() -> ReadRouting.onPrimary(articleRepository::count), cacheSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        int indexed = articleIndex.size();
+        long stored = this.stored.get();
+        (Math.abs(indexed - stored) <= tolerance ? builder.up() : builder.down()).
+                withDetail("indexed", indexed).
+                withDetail("stored", stored).
+                withDetail("position", articleIndex.getPosition());
+    }
+}
@@ -0,0 +1,409 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import de.axelspringer.publishing.json.WireFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serialized article documents keyed by article id and {@link WireFormat}, each holding one version of the article.
+ * Entries are invalidated by {@link ArticleService} on update and delete, and replaced when they are asked for
+ * with another version, as a read from a replica lagging behind may cache an old version after the invalidation.
+ * A document is stored under the version it was serialized from, which the loader reports, not the one asked for,
+ * as the article may have changed since its version was read.
+ * <p>
+ * The documents are stored off the heap, in blocks of {@code articles.response-cache.block-size} bytes carved from
+ * direct buffers of up to {@value #SLAB_BYTES} bytes, allocated as needed up to {@code articles.response-cache.max-bytes}.
+ * When they are all taken, the least recently used entries make room for a new one only if a {@link FrequencySketch}
+ * of all lookups rates it more popular than them (TinyLFU), so one-off reads don't flush the hot documents.
+ * Entries expire {@code articles.response-cache.ttl-seconds} after they were written.
+ * A {@link Body} pins its blocks until it is released, so that they aren't reused while it is written out.
+ */
+@Component
+public class ArticleResponseCache {
+
+    private static final int SLAB_BYTES = 1 << 20;
+
+    private static final int FORMATS = WireFormat.values().length;
+
+    @Value("${articles.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${articles.response-cache.block-size:1024}")
+    private int blockSize;
+
+    @Value("${articles.response-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // all guarded by this
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private FrequencySketch sketch;
+    private ByteBuffer[] slabs;
+    private int blocksPerSlab;
+    private int allocatedBlocks;
+    private int totalBlocks;
+    private int[] freeBlocks;
+    private int freeCount;
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    private final ConcurrentMap<Long, Load> loads = Maps.newConcurrentMap();
+
+    private final ThreadLocal<byte[]> copyBuffers = ThreadLocal.withInitial(() -> new byte[blockSize]);
+
+    @PostConstruct
+    public void init() {
+        totalBlocks = (int) Math.min(maxBytes / blockSize, Integer.MAX_VALUE);
+        blocksPerSlab = Math.max(1, Math.min(SLAB_BYTES / blockSize, totalBlocks));
+        slabs = new ByteBuffer[(totalBlocks + blocksPerSlab - 1) / blocksPerSlab];
+        freeBlocks = new int[totalBlocks];
+        sketch = new FrequencySketch(totalBlocks);
+    }
+
+    /**
+     * Returns the cached document of the version or loads it; concurrent loads of the same version are collapsed into one.
+     * A loaded document may have another version than asked for, the body tells which.
+     * The body must be {@link Body#release() released} once it is written.
+     */
+    public Body get(Integer id, int version, WireFormat format, Callable<Document> loader) {
+        long key = key(id, format);
+        Body cached = lookup(key, version);
+        if(cached != null) {
+            return cached;
+        }
+        Load load = new Load(version);
+        Load running = loads.putIfAbsent(key, load);
+        if(running != null && running.version == version) {
+            try {
+                return new Body(running.document.join());
+            } catch (CompletionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+        try {
+            Document document = loader.call();
+            store(key, document);
+            load.document.complete(document);
+            return new Body(document);
+        } catch (Exception e) {
+            load.document.completeExceptionally(e);
+            throw Throwables.propagate(e);
+        } finally {
+            if(running == null) {
+                loads.remove(key, load);
+            }
+        }
+    }
+
+    public synchronized void invalidate(Integer id) {
+        for (WireFormat format : WireFormat.values()) {
+            Entry entry = entries.remove(key(id, format));
+            if(entry != null) {
+                discard(entry);
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        for (Entry entry : entries.values()) {
+            discard(entry);
+        }
+        entries.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Documents not cached because the entries they would have replaced were asked for more often.
+     */
+    public synchronized long getRejections() {
+        return rejections;
+    }
+
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    /**
+     * Bytes of the cached documents.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Bytes of direct buffers allocated so far.
+     */
+    public synchronized long getAllocatedBytes() {
+        return (long) allocatedBlocks * blockSize;
+    }
+
+    private synchronized Body lookup(long key, int version) {
+        sketch.increment(key);
+        Entry entry = entries.get(key);
+        if(entry != null && (entry.version != version || System.nanoTime() - entry.expiresNanos >= 0)) {
+            entries.remove(key);
+            discard(entry);
+            entry = null;
+        }
+        if(entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.pins++;
+        return new Body(entry);
+    }
+
+    private synchronized void store(long key, Document document) {
+        byte[] body = document.bytes;
+        Entry previous = entries.remove(key);
+        if(previous != null) {
+            discard(previous);
+        }
+        int blocks = (body.length + blockSize - 1) / blockSize;
+        if(blocks > totalBlocks || !reserve(key, blocks)) {
+            rejections++;
+            return;
+        }
+        Entry entry = new Entry(document.version, document.lastModified, body.length, new int[blocks],
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        for (int i = 0; i < blocks; i++) {
+            int block = freeBlocks[--freeCount];
+            entry.blocks[i] = block;
+            ByteBuffer slab = slab(block);
+            slab.put(body, i * blockSize, Math.min(blockSize, body.length - i * blockSize));
+        }
+        entries.put(key, entry);
+        usedBytes += body.length;
+    }
+
+    /**
+     * Makes sure there are that many free blocks, allocating new ones within the budget and else evicting the least
+     * recently used entries, provided the key is asked for more often than each of them.
+     */
+    private boolean reserve(long key, int blocks) {
+        while (freeCount < blocks && allocatedBlocks < totalBlocks) {
+            allocateSlab();
+        }
+        if(freeCount >= blocks) {
+            return true;
+        }
+        int frequency = sketch.frequency(key);
+        List<Long> victims = Lists.newArrayList();
+        int freed = freeCount;
+        for (Iterator<java.util.Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator(); freed < blocks && eldest.hasNext(); ) {
+            java.util.Map.Entry<Long, Entry> victim = eldest.next();
+            if(sketch.frequency(victim.getKey()) >= frequency) {
+                return false;
+            }
+            victims.add(victim.getKey());
+            if(victim.getValue().pins == 0) {
+                freed += victim.getValue().blocks.length;
+            }
+        }
+        if(freed < blocks) {
+            // the rest is pinned by bodies being written
+            return false;
+        }
+        for (Long victim : victims) {
+            discard(entries.remove(victim));
+            evictions++;
+        }
+        return true;
+    }
+
+    private void allocateSlab() {
+        int slab = allocatedBlocks / blocksPerSlab;
+        int blocks = Math.min(blocksPerSlab, totalBlocks - allocatedBlocks);
+        slabs[slab] = ByteBuffer.allocateDirect(blocks * blockSize);
+        for (int i = blocks - 1; i >= 0; i--) {
+            freeBlocks[freeCount++] = allocatedBlocks + i;
+        }
+        allocatedBlocks += blocks;
+    }
+
+    /**
+     * Frees the blocks of a removed entry, or leaves that to the last body pinning them.
+     */
+    private void discard(Entry entry) {
+        usedBytes -= entry.length;
+        entry.removed = true;
+        if(entry.pins == 0) {
+            free(entry);
+        }
+    }
+
+    private synchronized void unpin(Entry entry) {
+        if(--entry.pins == 0 && entry.removed) {
+            free(entry);
+        }
+    }
+
+    private void free(Entry entry) {
+        for (int block : entry.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    /**
+     * A view of the block in its slab.
+     */
+    private ByteBuffer slab(int block) {
+        ByteBuffer slab = slabs[block / blocksPerSlab].duplicate();
+        slab.position(block % blocksPerSlab * blockSize);
+        return slab;
+    }
+
+    private static long key(Integer id, WireFormat format) {
+        return (long) id * FORMATS + format.ordinal();
+    }
+
+    /**
+     * A serialized version of an article, as loaded.
+     */
+    public static final class Document {
+
+        private final int version;
+        private final long lastModified;
+        private final byte[] bytes;
+
+        public Document(int version, long lastModified, byte[] bytes) {
+            this.version = version;
+            this.lastModified = lastModified;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * A document to send, either from the cache or as loaded.
+     */
+    public final class Body {
+
+        private final Entry entry;
+        private final Document document;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Body(Entry entry) {
+            this.entry = entry;
+            this.document = null;
+        }
+
+        private Body(Document document) {
+            this.entry = null;
+            this.document = document;
+        }
+
+        /**
+         * The version of the article the document was serialized from.
+         */
+        public int getVersion() {
+            return entry != null ? entry.version : document.version;
+        }
+
+        public long getLastModified() {
+            return entry != null ? entry.lastModified : document.lastModified;
+        }
+
+        public int length() {
+            return entry != null ? entry.length : document.bytes.length;
+        }
+
+        /**
+         * Copies the document to the stream, through a small per-thread buffer if it is cached.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            if(entry == null) {
+                out.write(document.bytes);
+                return;
+            }
+            if(released.get()) {
+                throw new IllegalStateException("Body has been released");
+            }
+            byte[] buffer = copyBuffers.get();
+            for (int i = 0; i < entry.blocks.length; i++) {
+                int length = Math.min(blockSize, entry.length - i * blockSize);
+                slab(entry.blocks[i]).get(buffer, 0, length);
+                out.write(buffer, 0, length);
+            }
+        }
+
+        public byte[] toByteArray() {
+            if(entry == null) {
+                return document.bytes;
+            }
+            byte[] copy = new byte[entry.length];
+            for (int i = 0; i < entry.blocks.length; i++) {
+                slab(entry.blocks[i]).get(copy, i * blockSize, Math.min(blockSize, entry.length - i * blockSize));
+            }
+            return copy;
+        }
+
+        /**
+         * Unpins the cached blocks; only the first call counts.
+         */
+        public void release() {
+            if(entry != null && released.compareAndSet(false, true)) {
+                unpin(entry);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        final int version;
+        final long lastModified;
+        final int length;
+        final int[] blocks;
+        final long expiresNanos;
+        int pins;
+        boolean removed;
+
+        Entry(int version, long lastModified, int length, int[] blocks, long expiresNanos) {
+            this.version = version;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.blocks = blocks;
+            this.expiresNanos = expiresNanos;
+        }
+    }
+
+    private static final class Load {
+
+        final int version;
+        final CompletableFuture<Document> document = new CompletableFuture<>();
+
+        Load(int version) {
+            this.version = version;
+        }
+    }
+}
@@ -1,82 +1,521 @@
 package de.axelspringer.publishing.service;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import de.axelspringer.publishing.exception.BadRequestException;
+import de.axelspringer.publishing.exception.NotFoundException;
+import de.axelspringer.publishing.exception.PreconditionFailedException;
+import de.axelspringer.publishing.metrics.Stage;
+import de.axelspringer.publishing.metrics.StageMetrics;
+import de.axelspringer.publishing.metrics.StatementCounter;
 import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleChange.Operation;
+import de.axelspringer.publishing.model.ArticleSummary;
+import de.axelspringer.publishing.model.ArticleVersion;
 import de.axelspringer.publishing.model.Article_;
 import de.axelspringer.publishing.model.Author;
 import de.axelspringer.publishing.model.Author_;
+import de.axelspringer.publishing.model.BulkItemResult;
 import de.axelspringer.publishing.persistence.ArticleRepository;
-import de.axelspringer.publishing.persistence.AuthorRepository;
-import org.apache.commons.beanutils.BeanUtilsBean;
+import de.axelspringer.publishing.persistence.EpochNanosConverter;
+import de.axelspringer.publishing.persistence.ReadRouting;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
-import javax.ws.rs.NotFoundException;
 import java.time.OffsetDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * Writes run in transactions of their own on the primary. Reads run in read-only transactions, which go to a replica
+ * when they are configured, see {@link de.axelspringer.publishing.persistence.ReplicaRoutingDataSource}.
+ * <p>
+ * Concurrent identical reads and searches share one execution unless {@code articles.coalescing.enabled=false},
+ * see {@link SingleFlight}. They are identical if their criteria are: keyword and author lists in any order and
+ * with duplicates, and published dates at the same instant in any offset, and if they read from the same replica.
+ * Reads which have to see the latest writes, on the primary, run on their own.
+ */
 @Service
 public class ArticleService {
 
+    // search criteria, in the order of the bits of criteria()
+    private static final String[] CRITERIA = { "keywords", "authors", "published-since", "published-before" };
+    private static final int CRITERIA_COMBINATIONS = 1 << CRITERIA.length;
+
     @Autowired
     private ArticleRepository articleRepository;
 
     @Autowired
-    private AuthorRepository authorRepository;
+    EntityManager entityManager;
+
+    @Autowired(required = false)
+    private ArticleIndex articleIndex;
+
+    @Autowired(required = false)
+    private ArticleTextIndex articleTextIndex;
 
     @Autowired
-    EntityManager entityManager;
+    private ArticleResponseCache articleResponseCache;
+
+    @Autowired
+    private AuthorCache authorCache;
+
+    // started by the first write
+    @Autowired
+    @Lazy
+    private ArticleChangeLog articleChangeLog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StageMetrics stageMetrics;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${articles.search.facet-size:10}")
+    private int facetSize;
+
+    @Value("${articles.coalescing.enabled:true}")
+    private boolean coalescing;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    private final SingleFlight<List<Object>, Routed<Article>> reads = new SingleFlight<>("read");
+    private final SingleFlight<List<Object>, Routed<List<Article>>> finds = new SingleFlight<>("find");
+    private final SingleFlight<List<Object>, Routed<List<Integer>>> findIds = new SingleFlight<>("find-ids");
+    private final SingleFlight<List<Object>, Routed<SearchPage>> searches = new SingleFlight<>("search");
 
+    private Stage resolveAuthorsStage;
+    private Stage readStage;
+    private Stage pageVersionsStage;
+    private Stage pageStage;
+    private Stage textSearchStage;
+    private Stage summariesStage;
+    // indexed by SearchPage.Sort ordinal
+    private final Stage[] searchStages = new Stage[SearchPage.Sort.values().length];
+    // indexed by the criteria given
+    private final Stage[] findBuildStages = new Stage[CRITERIA_COMBINATIONS];
+    private final Stage[] findStages = new Stage[CRITERIA_COMBINATIONS];
+    private final Stage[] findIdsStages = new Stage[CRITERIA_COMBINATIONS];
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        resolveAuthorsStage = stageMetrics.stage("authors.resolve");
+        readStage = stageMetrics.stage("read");
+        pageVersionsStage = stageMetrics.stage("list.versions");
+        pageStage = stageMetrics.stage("list.page");
+        textSearchStage = stageMetrics.stage("search.text");
+        summariesStage = stageMetrics.stage("search.summaries");
+        for (SearchPage.Sort sort : SearchPage.Sort.values()) {
+            searchStages[sort.ordinal()] = stageMetrics.stage("search.sorted." + sort.name().toLowerCase());
+        }
+        for (int criteria = 0; criteria < CRITERIA_COMBINATIONS; criteria++) {
+            String name = criteriaName(criteria);
+            findBuildStages[criteria] = stageMetrics.stage("find." + name + ".build");
+            findStages[criteria] = stageMetrics.stage("find." + name);
+            findIdsStages[criteria] = stageMetrics.stage("find-ids." + name);
+        }
+    }
+
+    /**
+     * Stores the article, appending its creation to the {@link ArticleChangeLog} in the same transaction.
+     */
     public Article create(Article article) {
         article.setAuthors(resolveAuthors(article.getAuthors()));
-        return articleRepository.saveAndFlush(article);
+        Article created = transactionTemplate.execute(status -> {
+            Article stored = articleRepository.saveAndFlush(article);
+            articleChangeLog.append(stored.getId(), stored.getVersion(), Operation.CREATED);
+            return stored;
+        });
+        if(articleIndex != null) {
+            articleIndex.index(created);
+        }
+        return created;
     }
 
+    /**
+     * Stores the articles in JDBC batches of {@code hibernate.jdbc.batch_size}, resolving all their authors up front.
+     * A failing batch is retried item by item, so one bad article doesn't reject its neighbours.
+     *
+     * @return one result per article, in the order of the input
+     */
+    public List<BulkItemResult> createAll(List<Article> articles) {
+        Map<String, Author> authors = resolveAuthorNames(articles.stream().
+                filter(Objects::nonNull).
+                filter(article -> article.getAuthors() != null).
+                flatMap(article -> article.getAuthors().stream()).
+                map(Author::getName).
+                collect(Collectors.toSet()));
+        List<BulkItemResult> results = Lists.newArrayListWithCapacity(articles.size());
+        for (List<Article> batch : Lists.partition(articles, batchSize)) {
+            batch.stream().filter(Objects::nonNull).forEach(article -> article.setAuthors(article.getAuthors() == null ? Sets.newHashSet() :
+                    article.getAuthors().stream().map(author -> authors.get(author.getName())).collect(Collectors.toSet())));
+            try {
+                persist(batch.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+                batch.forEach(article -> results.add(article != null ? created(article) : BulkItemResult.failure("Article is missing")));
+            } catch (RuntimeException batchFailure) {
+                for (Article article : batch) {
+                    if (article == null) {
+                        results.add(BulkItemResult.failure("Article is missing"));
+                        continue;
+                    }
+                    try {
+                        article.setId(null);
+                        persist(Collections.singletonList(article));
+                        results.add(created(article));
+                    } catch (RuntimeException e) {
+                        results.add(BulkItemResult.failure(Throwables.getRootCause(e).getMessage()));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Loads the article with its text, authors and keywords in one statement.
+     */
     public Article read(Integer id) {
-        ensureArticleExists(id);
-        return articleRepository.getOne(id);
+        return coalesced(reads, () -> {
+            long started = System.nanoTime(), statements = StatementCounter.mark();
+            Article article = articleRepository.findForDisplay(id);
+            readStage.record(started, statements, article != null ? 1 : 0);
+            if(article == null) {
+                throw new NotFoundException("Article doesn't exist");
+            }
+            return article;
+        }, id);
+    }
+
+    /**
+     * Version of the article, read without loading it.
+     */
+    @Transactional(readOnly = true)
+    public ArticleVersion readVersion(Integer id) {
+        ArticleVersion version = articleRepository.findVersion(id);
+        if(version == null) {
+            throw new NotFoundException("Article doesn't exist");
+        }
+        return version;
     }
 
     public Article update(Article article) {
-        ensureArticleExists(article.getId());
+        return update(article, null);
+    }
+
+    /**
+     * Replaces the stored article. It is loaded once and changed in place, so the update is flushed
+     * by dirty checking instead of another load by {@code merge}.
+     *
+     * @param expectedVersions versions the stored article must have to be replaced, or null to replace any
+     * @throws PreconditionFailedException if the stored article has another version
+     */
+    public Article update(Article article, Set<Integer> expectedVersions) {
         article.setAuthors(resolveAuthors(article.getAuthors()));
-        Article origin = articleRepository.getOne(article.getId());
-        try {
-            BeanUtilsBean.getInstance().copyProperties(origin, article);
-        } catch (Exception e) {
-            Throwables.propagate(e);
+        Article updated = transactionTemplate.execute(status -> {
+            Article origin = entityManager.find(Article.class, article.getId());
+            if(origin == null) {
+                throw new NotFoundException("Article doesn't exist");
+            }
+            if(expectedVersions != null && !expectedVersions.contains(origin.getVersion())) {
+                throw new PreconditionFailedException("Article has been modified");
+            }
+            origin.copyFrom(article);
+            // the version is incremented on flush
+            entityManager.flush();
+            articleChangeLog.append(origin.getId(), origin.getVersion(), Operation.UPDATED);
+            return origin;
+        });
+        articleResponseCache.invalidate(updated.getId());
+        if(articleIndex != null) {
+            articleIndex.index(updated);
         }
-        return articleRepository.saveAndFlush(origin);
+        return updated;
     }
 
     public void delete(Integer id) {
-        ensureArticleExists(id);
-        articleRepository.delete(id);
+        transactionTemplate.execute(status -> {
+            // a single statement, the version deleted isn't read for the change
+            if(!articleRepository.deleteById(id)) {
+                throw new NotFoundException("Article doesn't exist");
+            }
+            articleChangeLog.append(id, null, Operation.DELETED);
+            return null;
+        });
+        articleResponseCache.invalidate(id);
+        if(articleIndex != null) {
+            articleIndex.remove(id);
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<Article> findAll() {
         return articleRepository.findAll();
     }
 
+    /**
+     * Keyset pagination: returns the versions of up to {@code limit} articles with an id greater than {@code after}, ordered by id.
+     * The articles themselves are loaded with {@link #findPage(List)}, so that the collections can be joined to them
+     * without breaking the limit.
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleVersion> findPageVersions(Integer after, int limit) {
+        long started = System.nanoTime(), statements = StatementCounter.mark();
+        List<ArticleVersion> versions = articleRepository.findPageVersions(after != null ? after : Integer.MIN_VALUE, new PageRequest(0, limit));
+        pageVersionsStage.record(started, statements, versions.size());
+        return versions;
+    }
+
+    /**
+     * The articles of a page selected by {@link #findPageVersions}, ordered by id.
+     */
+    @Transactional(readOnly = true)
+    public List<Article> findPage(List<ArticleVersion> versions) {
+        if(versions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long started = System.nanoTime(), statements = StatementCounter.mark();
+        List<Integer> ids = versions.stream().map(ArticleVersion::getId).collect(Collectors.toList());
+        List<Article> rows = articleRepository.findForList(ids);
+        pageStage.record(started, statements, rows.size());
+        return Lists.newArrayList(Sets.newLinkedHashSet(rows));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Article> consumer) {
+        articleRepository.scrollAll(consumer);
+    }
+
+    /**
+     * Articles matching all given criteria, loaded without their text and collections.
+     */
     public List<Article> find(List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
+        return coalesced(finds, () -> {
+            int given = criteria(keywords, authors, publishedSince, publishedBefore);
+            long started = System.nanoTime(), statements = StatementCounter.mark();
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Article> criteria = criteriaBuilder.createQuery(Article.class);
+            Root<Article> articleRoot = criteria.from(Article.class);
+            Predicate[] predicates = predicates(criteriaBuilder, criteria, articleRoot, keywords, authors, publishedSince, publishedBefore);
+            TypedQuery<Article> query = entityManager.createQuery(criteria.where(predicates));
+            findBuildStages[given].record(started, statements);
+
+            started = System.nanoTime();
+            statements = StatementCounter.mark();
+            List<Article> articles = query.getResultList();
+            findStages[given].record(started, statements, articles.size());
+            return Collections.unmodifiableList(articles);
+        }, normalized(keywords), normalized(authors), nanos(publishedSince), nanos(publishedBefore));
+    }
+
+    /**
+     * Ids of the articles matching {@link #find}; answered from the in-memory {@link ArticleIndex} when it is enabled.
+     */
+    public List<Integer> findIds(List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
+        return findIds(keywords, authors, publishedSince, publishedBefore, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ids of the articles matching {@link #find} in ascending order, skipping the first {@code offset}.
+     * Without the {@link ArticleIndex} only the ids are selected, no article is loaded, and the criteria are
+     * answered from the indexes of the join tables and {@code published}.
+     */
+    public List<Integer> findIds(List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore,
+                                 int offset, int limit) {
+        if(articleIndex != null) {
+            List<Integer> ids = Ints.asList(articleIndex.find(keywords, authors, publishedSince, publishedBefore));
+            return ids.subList(Math.min(offset, ids.size()), (int) Math.min((long) offset + limit, ids.size()));
+        }
+        return coalesced(findIds, () -> {
+            long started = System.nanoTime(), statements = StatementCounter.mark();
+            List<Integer> ids = articleRepository.findIds(keywords != null && !keywords.isEmpty() ? keywords : null,
+                    authors != null && !authors.isEmpty() ? authors : null,
+                    publishedSince != null ? EpochNanosConverter.toNanos(publishedSince) : null,
+                    publishedBefore != null ? EpochNanosConverter.toNanos(publishedBefore) : null,
+                    null, offset, limit);
+            findIdsStages[criteria(keywords, authors, publishedSince, publishedBefore)].record(started, statements, ids.size());
+            return Collections.unmodifiableList(ids);
+        }, normalized(keywords), normalized(authors), nanos(publishedSince), nanos(publishedBefore), offset, limit);
+    }
+
+    public boolean isTextSearchEnabled() {
+        return articleTextIndex != null;
+    }
+
+    /**
+     * Ids of the articles matching the full-text query and {@link #find}'s criteria, best match first.
+     *
+     * @see ArticleTextIndex#search
+     */
+    public List<Integer> findIds(String text, List<String> keywords, List<String> authors,
+                                 OffsetDateTime publishedSince, OffsetDateTime publishedBefore, int offset, int limit) {
+        if(articleTextIndex == null) {
+            throw new BadRequestException("Full-text search is not enabled");
+        }
+        long started = System.nanoTime(), statements = StatementCounter.mark();
+        List<Integer> ids = articleTextIndex.search(text, keywords, authors, publishedSince, publishedBefore, offset, limit);
+        textSearchStage.record(started, statements, ids.size());
+        return ids;
+    }
+
+    /**
+     * One page of the articles matching {@link #find}'s criteria and the full-text query, if any, in the given order,
+     * with the facet counts over all matches. All matches are visited once, keeping only the best {@code limit} after
+     * the cursor; see {@link SearchCollector}. Answered by the {@link ArticleTextIndex} with a query, else by the
+     * {@link ArticleIndex} when it is enabled, else by the database. Unfaceted pages in id order are selected
+     * by the database directly, continuing after the id of the cursor.
+     *
+     * @param cursor the {@link SearchPage#getNext() next} cursor of the previous page, null for the first
+     */
+    public SearchPage search(String text, List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore,
+                             SearchPage.Sort sort, String cursor, int limit, Set<SearchPage.Facet> facets) {
+        if(sort == SearchPage.Sort.RELEVANCE && text == null) {
+            throw new BadRequestException("Sorting by relevance needs a full-text query");
+        }
+        if(text != null && articleTextIndex == null) {
+            throw new BadRequestException("Full-text search is not enabled");
+        }
+        return coalesced(searches, () -> collect(text, keywords, authors, publishedSince, publishedBefore, sort, cursor, limit, facets),
+                text, normalized(keywords), normalized(authors), nanos(publishedSince), nanos(publishedBefore), sort, cursor, limit, facets);
+    }
+
+    private SearchPage collect(String text, List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore,
+                               SearchPage.Sort sort, String cursor, int limit, Set<SearchPage.Facet> facets) {
+        SearchCollector collector = new SearchCollector(sort, cursor, limit, facets, facetSize);
+        boolean withKeywords = facets.contains(SearchPage.Facet.KEYWORDS);
+        boolean withAuthors = facets.contains(SearchPage.Facet.AUTHORS);
+        long started = System.nanoTime(), statements = StatementCounter.mark();
+        SearchPage page;
+        int visited;
+        if(text != null) {
+            visited = articleTextIndex.collect(text, keywords, authors, publishedSince, publishedBefore, collector);
+            page = collector.page();
+        } else if(articleIndex != null) {
+            visited = articleIndex.visit(keywords, authors, publishedSince, publishedBefore, withKeywords, withAuthors, collector);
+            page = collector.page();
+        } else if(sort == SearchPage.Sort.ID && facets.isEmpty()) {
+            List<Integer> ids = articleRepository.findIds(keywords != null && !keywords.isEmpty() ? keywords : null,
+                    authors != null && !authors.isEmpty() ? authors : null,
+                    publishedSince != null ? EpochNanosConverter.toNanos(publishedSince) : null,
+                    publishedBefore != null ? EpochNanosConverter.toNanos(publishedBefore) : null,
+                    collector.afterId(), 0, limit + 1);
+            visited = ids.size();
+            page = collector.page(ids);
+        } else {
+            visited = articleRepository.scrollMatches(keywords != null && !keywords.isEmpty() ? keywords : null,
+                    authors != null && !authors.isEmpty() ? authors : null,
+                    publishedSince != null ? EpochNanosConverter.toNanos(publishedSince) : null,
+                    publishedBefore != null ? EpochNanosConverter.toNanos(publishedBefore) : null,
+                    withKeywords, withAuthors, collector);
+            page = collector.page();
+        }
+        searchStages[sort.ordinal()].record(started, statements, visited);
+        return page;
+    }
+
+    /**
+     * Summaries of the given articles in the order of the ids, selecting only the id and the requested {@link ArticleSummary#FIELDS}.
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleSummary> findSummaries(List<Integer> ids, Set<String> fields) {
+        long started = System.nanoTime(), statements = StatementCounter.mark();
+        Map<Integer, ArticleSummary> summaries = Maps.newHashMapWithExpectedSize(ids.size());
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Article> criteria = criteriaBuilder.createQuery(Article.class);
-        Root<Article> articleRoot = criteria.from(Article.class);
+        for (List<Integer> chunk : Lists.partition(ids, batchSize)) {
+            CriteriaQuery<Tuple> criteria = criteriaBuilder.createTupleQuery();
+            Root<Article> articleRoot = criteria.from(Article.class);
+            List<Selection<?>> selections = Lists.newArrayList(articleRoot.get(Article_.id).alias("id"));
+            if(fields.contains(ArticleSummary.HEADER)) {
+                selections.add(articleRoot.get(Article_.header).alias(ArticleSummary.HEADER));
+            }
+            if(fields.contains(ArticleSummary.PUBLISHED)) {
+                selections.add(articleRoot.get(Article_.published).alias(ArticleSummary.PUBLISHED));
+            }
+            criteria.multiselect(selections).where(articleRoot.get(Article_.id).in(chunk));
+            for (Tuple tuple : entityManager.createQuery(criteria).getResultList()) {
+                ArticleSummary summary = new ArticleSummary();
+                summary.setId(tuple.get("id", Integer.class));
+                if(fields.contains(ArticleSummary.HEADER)) {
+                    summary.setHeader(tuple.get(ArticleSummary.HEADER, String.class));
+                }
+                if(fields.contains(ArticleSummary.PUBLISHED)) {
+                    summary.setPublished(tuple.get(ArticleSummary.PUBLISHED, OffsetDateTime.class));
+                }
+                summaries.put(summary.getId(), summary);
+            }
+        }
+        summariesStage.record(started, statements, summaries.size());
+        return ids.stream().map(summaries::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * The criteria given, as a bit set over {@link #CRITERIA}.
+     */
+    private static int criteria(List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
+        return (keywords != null && !keywords.isEmpty() ? 1 : 0) |
+                (authors != null && !authors.isEmpty() ? 2 : 0) |
+                (publishedSince != null ? 4 : 0) |
+                (publishedBefore != null ? 8 : 0);
+    }
+
+    private static String criteriaName(int criteria) {
+        List<String> names = Lists.newArrayList();
+        for (int i = 0; i < CRITERIA.length; i++) {
+            if((criteria & 1 << i) != 0) {
+                names.add(CRITERIA[i]);
+            }
+        }
+        return names.isEmpty() ? "none" : String.join("+", names);
+    }
+
+    /**
+     * Keywords and authors are matched with {@code id IN (subquery)} rather than joins, which would repeat an article
+     * once per matching keyword or author and need a {@code DISTINCT} to fold them again.
+     */
+    private Predicate[] predicates(CriteriaBuilder criteriaBuilder, AbstractQuery<?> criteria, Root<Article> articleRoot,
+                                   List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
         List<Predicate> predicates = Lists.newArrayList();
 
         if(keywords != null && !keywords.isEmpty()) {
-            SetJoin<Article, String> keywordsJoin = articleRoot.join(Article_.keywords);
-            predicates.add(keywordsJoin.in(keywords));
+            Subquery<Integer> keywordsQuery = criteria.subquery(Integer.class);
+            Root<Article> keywordsRoot = keywordsQuery.from(Article.class);
+            SetJoin<Article, String> keywordsJoin = keywordsRoot.join(Article_.keywords);
+            predicates.add(articleRoot.get(Article_.id).in(keywordsQuery.select(keywordsRoot.get(Article_.id)).where(keywordsJoin.in(keywords))));
         }
 
         if(authors!=null && !authors.isEmpty()) {
-            SetJoin<Article, Author> authorsJoin = articleRoot.join(Article_.authors);
-            predicates.add(authorsJoin.get(Author_.name).in(authors));
+            Subquery<Integer> authorsQuery = criteria.subquery(Integer.class);
+            Root<Article> authorsRoot = authorsQuery.from(Article.class);
+            SetJoin<Article, Author> authorsJoin = authorsRoot.join(Article_.authors);
+            predicates.add(articleRoot.get(Article_.id).in(authorsQuery.select(authorsRoot.get(Article_.id)).where(authorsJoin.get(Author_.name).in(authors))));
         }
 
         if(publishedSince != null) {
@@ -87,28 +526,93 @@ public class ArticleService {
             predicates.add(criteriaBuilder.lessThan(articleRoot.get(Article_.published), publishedBefore));
         }
 
-        return entityManager.createQuery(criteria.where(predicates.toArray(new Predicate[predicates.size()])).distinct(true)).getResultList();
+        return predicates.toArray(new Predicate[predicates.size()]);
     }
 
-    private void ensureArticleExists(Integer id) {
-        if(!articleRepository.exists(id)) {
-            throw new NotFoundException("Article doesn't exist");
+    private void persist(List<Article> articles) {
+        transactionTemplate.execute(status -> {
+            articles.forEach(entityManager::persist);
+            articles.forEach(article -> articleChangeLog.append(article.getId(), article.getVersion(), Operation.CREATED));
+            entityManager.flush();
+            entityManager.clear();
+            return null;
+        });
+    }
+
+    private BulkItemResult created(Article article) {
+        if(articleIndex != null) {
+            articleIndex.index(article);
         }
+        return BulkItemResult.success(article.getId());
     }
 
     private Set<Author> resolveAuthors(Set<Author> authors) {
-        Set<Author> resolvedAuthors = Sets.newHashSet();
-        if (authors != null) {
-            authors.removeIf(author -> {
-                Author existing = authorRepository.find(author.getName());
-                if (existing != null) {
-                    resolvedAuthors.add(existing);
-                    return true;
-                }
-                return false;
-            });
-            resolvedAuthors.addAll(authorRepository.save(authors));
+        if (authors == null) {
+            return Sets.newHashSet();
+        }
+        Map<String, Author> resolvedAuthors = resolveAuthorNames(authors.stream().map(Author::getName).collect(Collectors.toSet()));
+        return authors.stream().map(author -> resolvedAuthors.get(author.getName())).collect(Collectors.toSet());
+    }
+
+    private Map<String, Author> resolveAuthorNames(Set<String> names) {
+        long started = System.nanoTime(), statements = StatementCounter.mark();
+        Map<String, Author> authors = authorCache.resolve(names);
+        resolveAuthorsStage.record(started, statements, names.size());
+        return authors;
+    }
+
+    /**
+     * The {@link SingleFlight}s of the reads and searches, for their metrics.
+     */
+    public List<SingleFlight<?, ?>> getSingleFlights() {
+        return ImmutableList.of(reads, finds, findIds, searches);
+    }
+
+    /**
+     * Runs the work in a read-only transaction, shared with the concurrent calls of the flight with equal keys.
+     * Calls within a transaction run it there on their own, as they may have to see its changes, and so do calls
+     * which have to read from the primary: a running execution may have started before the write they have to see.
+     * Calls share only with calls bound to the same replica; calls not bound yet follow the replica of the execution
+     * they share, so that the later reads of their scope don't see another replica lagging further behind.
+     */
+    private <V> V coalesced(SingleFlight<List<Object>, Routed<V>> flight, Supplier<V> work, Object... key) {
+        Supplier<V> transactional = () -> readOnlyTransactionTemplate.execute(status -> work.get());
+        if(!coalescing || TransactionSynchronizationManager.isActualTransactionActive() || ReadRouting.isPrimaryRequired()) {
+            return transactional.get();
+        }
+        int replica = ReadRouting.boundReplica();
+        Routed<V> routed = flight.execute(Lists.asList(replica, key), () -> new Routed<>(transactional.get(), ReadRouting.boundReplica()));
+        if(replica < 0) {
+            ReadRouting.bindReplica(routed.replica);
+        }
+        return routed.result;
+    }
+
+    /**
+     * The values as a set, to match in any order and with duplicates; null if there are none, like for the queries.
+     */
+    private static Set<String> normalized(List<String> values) {
+        return values != null && !values.isEmpty() ? Sets.newHashSet(values) : null;
+    }
+
+    /**
+     * The instant, to match in any offset.
+     */
+    private static Long nanos(OffsetDateTime date) {
+        return date != null ? EpochNanosConverter.toNanos(date) : null;
+    }
+
+    /**
+     * A result shared by a {@link SingleFlight} with the replica it was read from, -1 if none.
+     */
+    private static final class Routed<V> {
+
+        final V result;
+        final int replica;
+
+        Routed(V result, int replica) {
+            this.result = result;
+            this.replica = replica;
         }
-        return resolvedAuthors;
     }
 }
@@ -0,0 +1,690 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.axelspringer.publishing.exception.PreconditionFailedException;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jdbc.ReturningWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies the whole corpus, articles with their authors and keywords, in a compact binary snapshot, to reseed another
+ * environment or a replica much faster than through the REST API.
+ * <p>
+ * The snapshot is a series of checksummed sections, see {@link SnapshotWriter}: all authors by id, then the articles
+ * by id in chunks of {@value #CHUNK_SIZE}, each stored column by column: delta coded ids, versions, last modified epoch
+ * millis, published epoch nanos, headers, descriptions and texts, then the author ids and keyword references of each.
+ * Keywords are coded as indexes into a dictionary, whose new entries precede the chunk first using them.
+ * A last section holds the totals, so that a truncated snapshot is noticed. Either way only a chunk is held in memory
+ * at a time, besides the keyword dictionary.
+ * <p>
+ * Snapshots are only imported into empty article and author tables. The ids are kept, the chunks are inserted with
+ * JDBC batches by {@code articles.snapshot.import-threads} workers, each chunk in a transaction of its own, and a failed
+ * import deletes what it inserted. Afterwards the id sequences are moved past the imported ids, the caches are
+ * cleared and the indexes rebuilt. The import is not recorded in the {@link ArticleChangeLog}.
+ */
+@Component
+public class ArticleSnapshots {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleSnapshots.class);
+
+    static final int CHUNK_SIZE = 1000;
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final byte AUTHORS = 'A';
+    private static final byte KEYWORDS = 'K';
+    private static final byte ARTICLES = 'R';
+    private static final byte END = 'E';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ArticleResponseCache articleResponseCache;
+
+    @Autowired
+    private AuthorCache authorCache;
+
+    @Autowired(required = false)
+    private ArticleIndex articleIndex;
+
+    @Autowired(required = false)
+    private ArticleTextIndex articleTextIndex;
+
+    @Value("${articles.snapshot.import-threads:0}")
+    private int importThreads;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Writes a snapshot of all articles, read in one transaction, so that the chunks are consistent with each other
+     * where the database isolates repeatable reads by snapshots.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Totals export(WritableByteChannel channel) throws IOException {
+        long started = System.nanoTime();
+        SnapshotWriter writer = new SnapshotWriter(channel);
+        Totals totals = new Totals();
+        try {
+            entityManager.unwrap(Session.class).doWork(connection -> {
+                try {
+                    exportAuthors(connection, writer, totals);
+                    exportArticles(connection, writer, totals);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.putVarLong(totals.authors);
+        writer.putVarLong(totals.articles);
+        writer.putVarLong(totals.keywords);
+        writer.endSection(END);
+        LOG.info("Snapshot exported: {} articles, {} authors, {} keywords, {} bytes in {} ms", totals.articles, totals.authors,
+                totals.keywords, writer.bytesWritten(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return totals;
+    }
+
+    /**
+     * Loads a snapshot into the empty database.
+     *
+     * @throws PreconditionFailedException if there are articles or authors already
+     * @throws IllegalArgumentException if the snapshot is corrupt or truncated, in which case nothing is imported
+     */
+    public Totals importFrom(ReadableByteChannel channel) throws IOException {
+        long started = System.nanoTime();
+        if(inTransaction(connection -> count(connection, "article") + count(connection, "author")) > 0) {
+            throw new PreconditionFailedException("Snapshots can only be imported into an empty database");
+        }
+        int threads = importThreads > 0 ? importThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads),
+                new ThreadFactoryBuilder().setNameFormat("article-snapshot-import-%d").build(), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> pending = Lists.newArrayList();
+        Totals totals;
+        boolean imported = false;
+        try {
+            totals = load(new SnapshotReader(channel), workers, pending);
+            imported = true;
+        } finally {
+            if(!imported) {
+                // running inserts finish rather than being interrupted, which may leave their connection's locks behind
+                pending.forEach(insert -> insert.cancel(false));
+            }
+            workers.shutdown();
+            if(!imported) {
+                deleteAll(workers);
+            }
+        }
+        inTransaction(connection -> {
+            restartSequence(connection, "article");
+            restartSequence(connection, "author");
+            return null;
+        });
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityRegions();
+        cache.evictCollectionRegions();
+        cache.evictQueryRegions();
+        articleResponseCache.invalidateAll();
+        authorCache.reload();
+        if(articleIndex != null) {
+            articleIndex.rebuild();
+        }
+        if(articleTextIndex != null) {
+            articleTextIndex.rebuild();
+        }
+        LOG.info("Snapshot imported: {} articles, {} authors, {} keywords in {} ms with {} threads", totals.articles, totals.authors,
+                totals.keywords, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), threads);
+        return totals;
+    }
+
+    private void exportAuthors(Connection connection, SnapshotWriter writer, Totals totals) throws SQLException, IOException {
+        int[] ids = new int[CHUNK_SIZE];
+        String[] names = new String[CHUNK_SIZE];
+        try (PreparedStatement statement = connection.prepareStatement("SELECT id, name FROM author WHERE id > ? ORDER BY id")) {
+            statement.setMaxRows(CHUNK_SIZE);
+            int after = Integer.MIN_VALUE;
+            int size;
+            do {
+                statement.setInt(1, after);
+                size = 0;
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        ids[size] = result.getInt(1);
+                        names[size++] = result.getString(2);
+                    }
+                }
+                if(size > 0) {
+                    writer.putVarInt(size);
+                    long previous = 0;
+                    for (int i = 0; i < size; i++) {
+                        writer.putSignedVarLong(ids[i] - previous);
+                        previous = ids[i];
+                        writer.putString(names[i]);
+                    }
+                    writer.endSection(AUTHORS);
+                    totals.authors += size;
+                    after = ids[size - 1];
+                }
+            } while (size == CHUNK_SIZE);
+        }
+    }
+
+    private void exportArticles(Connection connection, SnapshotWriter writer, Totals totals) throws SQLException, IOException {
+        Chunk chunk = new Chunk();
+        Map<String, Integer> dictionary = Maps.newHashMap();
+        List<String> newKeywords = Lists.newArrayList();
+        try (PreparedStatement articles = connection.prepareStatement("SELECT id, header, description, text, published_nanos, version, " +
+                "last_modified FROM article WHERE id > ? ORDER BY id");
+             PreparedStatement authors = connection.prepareStatement("SELECT article_id, authors_id FROM article_authors " +
+                     "WHERE article_id BETWEEN ? AND ? ORDER BY article_id, authors_id");
+             PreparedStatement keywords = connection.prepareStatement("SELECT article_id, keywords FROM article_keywords " +
+                     "WHERE article_id BETWEEN ? AND ? ORDER BY article_id, keywords")) {
+            articles.setMaxRows(CHUNK_SIZE);
+            int after = Integer.MIN_VALUE;
+            do {
+                articles.setInt(1, after);
+                chunk.clear();
+                try (ResultSet result = articles.executeQuery()) {
+                    while (result.next()) {
+                        chunk.add(result);
+                    }
+                }
+                if(chunk.size == 0) {
+                    break;
+                }
+                int first = chunk.ids[0];
+                int last = chunk.ids[chunk.size - 1];
+                authors.setInt(1, first);
+                authors.setInt(2, last);
+                try (ResultSet result = authors.executeQuery()) {
+                    while (result.next()) {
+                        chunk.addAuthor(result.getInt(1), result.getInt(2));
+                    }
+                }
+                keywords.setInt(1, first);
+                keywords.setInt(2, last);
+                try (ResultSet result = keywords.executeQuery()) {
+                    while (result.next()) {
+                        String keyword = result.getString(2);
+                        Integer index = dictionary.get(keyword);
+                        if(index == null) {
+                            index = dictionary.size();
+                            dictionary.put(keyword, index);
+                            newKeywords.add(keyword);
+                        }
+                        chunk.addKeyword(result.getInt(1), keyword, index);
+                    }
+                }
+                if(!newKeywords.isEmpty()) {
+                    writer.putVarInt(newKeywords.size());
+                    for (String keyword : newKeywords) {
+                        writer.putString(keyword);
+                    }
+                    writer.endSection(KEYWORDS);
+                    newKeywords.clear();
+                }
+                chunk.write(writer);
+                writer.endSection(ARTICLES);
+                totals.articles += chunk.size;
+                after = last;
+            } while (chunk.size == CHUNK_SIZE);
+        }
+        totals.keywords = dictionary.size();
+    }
+
+    private Totals load(SnapshotReader reader, ExecutorService workers, List<Future<?>> pending) throws IOException {
+        Totals totals = new Totals();
+        List<String> dictionary = Lists.newArrayList();
+        boolean authorsInserted = false;
+        while (true) {
+            byte type = reader.nextSection();
+            switch (type) {
+                case AUTHORS:
+                    if(authorsInserted) {
+                        throw reader.corrupt("authors after articles");
+                    }
+                    int size = reader.getVarInt();
+                    if(size < 0 || size > CHUNK_SIZE) {
+                        throw reader.corrupt("invalid number of authors");
+                    }
+                    int[] ids = new int[size];
+                    String[] names = new String[size];
+                    long previous = 0;
+                    for (int i = 0; i < size; i++) {
+                        previous += reader.getSignedVarLong();
+                        ids[i] = (int) previous;
+                        names[i] = reader.getString();
+                    }
+                    reader.endSection();
+                    pending.add(workers.submit(() -> inTransaction(connection -> insertAuthors(connection, ids, names))));
+                    totals.authors += size;
+                    break;
+                case KEYWORDS:
+                    int added = reader.getVarInt();
+                    for (int i = 0; i < added; i++) {
+                        dictionary.add(reader.getString());
+                    }
+                    reader.endSection();
+                    break;
+                case ARTICLES:
+                    if(!authorsInserted) {
+                        // the articles refer to them
+                        await(pending, true);
+                        authorsInserted = true;
+                    }
+                    Chunk chunk = Chunk.read(reader, dictionary);
+                    reader.endSection();
+                    pending.add(workers.submit(() -> inTransaction(chunk::insert)));
+                    totals.articles += chunk.size;
+                    await(pending, false);
+                    break;
+                case END:
+                    long authors = reader.getVarLong();
+                    long articles = reader.getVarLong();
+                    long keywords = reader.getVarLong();
+                    reader.endSection();
+                    await(pending, true);
+                    totals.keywords = dictionary.size();
+                    if(authors != totals.authors || articles != totals.articles || keywords != totals.keywords) {
+                        throw reader.corrupt("totals don't match");
+                    }
+                    return totals;
+                default:
+                    throw reader.corrupt("unknown type " + (char) type);
+            }
+        }
+    }
+
+    /**
+     * Waits for the inserts, or only collects those done so far, failing on the first that failed.
+     */
+    private static void await(List<Future<?>> pending, boolean all) {
+        try {
+            for (Iterator<Future<?>> inserts = pending.iterator(); inserts.hasNext(); ) {
+                Future<?> insert = inserts.next();
+                if(all || insert.isDone()) {
+                    insert.get();
+                    inserts.remove();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Snapshot import interrupted", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Snapshot import failed", e.getCause());
+        }
+    }
+
+    private static Void insertAuthors(Connection connection, int[] ids, String[] names) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO author (id, name) VALUES (?, ?)")) {
+            for (int i = 0; i < ids.length; i++) {
+                statement.setInt(1, ids[i]);
+                statement.setString(2, names[i]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return null;
+    }
+
+    /**
+     * Removes a failed import, once the workers have stopped.
+     */
+    private void deleteAll(ExecutorService workers) {
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+            inTransaction(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (String table : new String[] { "article_keywords", "article_authors", "article", "author" }) {
+                        statement.executeUpdate("DELETE FROM " + table);
+                    }
+                }
+                return null;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOG.error("Failed snapshot import could not be deleted", e);
+        }
+    }
+
+    /**
+     * Moves the id sequence of the table past its highest id, the way {@code V2__IdSequences} created it,
+     * unless it is there already.
+     */
+    private void restartSequence(Connection connection, String table) throws SQLException {
+        String sequence = table + "_seq";
+        String nextValue = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getDialect().getSequenceNextValString(sequence);
+        try (Statement statement = connection.createStatement()) {
+            long maxId;
+            try (ResultSet result = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+                result.next();
+                maxId = result.getLong(1);
+            }
+            long next;
+            try (ResultSet result = statement.executeQuery(nextValue)) {
+                result.next();
+                next = result.getLong(1);
+            }
+            if(next < maxId + ALLOCATION_SIZE) {
+                statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + ALLOCATION_SIZE));
+            }
+        }
+    }
+
+    private <T> T inTransaction(ReturningWork<T> work) {
+        return transactionTemplate.execute(status -> entityManager.unwrap(Session.class).doReturningWork(work));
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    /**
+     * What a snapshot holds.
+     */
+    public static final class Totals {
+
+        private long articles;
+        private long authors;
+        private long keywords;
+
+        public long getArticles() {
+            return articles;
+        }
+
+        public long getAuthors() {
+            return authors;
+        }
+
+        /**
+         * Distinct keywords.
+         */
+        public long getKeywords() {
+            return keywords;
+        }
+    }
+
+    /**
+     * Up to {@value #CHUNK_SIZE} articles in ascending id order, as columns.
+     */
+    private static final class Chunk {
+
+        int size;
+        final int[] ids = new int[CHUNK_SIZE];
+        final int[] versions = new int[CHUNK_SIZE];
+        final long[] lastModified = new long[CHUNK_SIZE];
+        final boolean[] isPublished = new boolean[CHUNK_SIZE];
+        final long[] published = new long[CHUNK_SIZE];
+        final String[] headers = new String[CHUNK_SIZE];
+        final String[] descriptions = new String[CHUNK_SIZE];
+        final String[] texts = new String[CHUNK_SIZE];
+        // per article, and all of them in article order
+        final int[] authorCounts = new int[CHUNK_SIZE];
+        int[] authors = new int[CHUNK_SIZE];
+        int authorsSize;
+        final int[] keywordCounts = new int[CHUNK_SIZE];
+        String[] keywords = new String[CHUNK_SIZE];
+        int[] keywordIndexes = new int[CHUNK_SIZE];
+        int keywordsSize;
+
+        void clear() {
+            size = 0;
+            authorsSize = 0;
+            keywordsSize = 0;
+            Arrays.fill(authorCounts, 0);
+            Arrays.fill(keywordCounts, 0);
+        }
+
+        void add(ResultSet result) throws SQLException {
+            ids[size] = result.getInt(1);
+            headers[size] = result.getString(2);
+            descriptions[size] = result.getString(3);
+            texts[size] = result.getString(4);
+            published[size] = result.getLong(5);
+            isPublished[size] = !result.wasNull();
+            versions[size] = result.getInt(6);
+            lastModified[size] = result.getTimestamp(7).getTime();
+            size++;
+        }
+
+        /**
+         * Adds an author of an article of the chunk; they come in article order.
+         */
+        void addAuthor(int articleId, int authorId) {
+            int article = Arrays.binarySearch(ids, 0, size, articleId);
+            if(article >= 0) {
+                if(authorsSize == authors.length) {
+                    authors = Arrays.copyOf(authors, authorsSize * 2);
+                }
+                authors[authorsSize++] = authorId;
+                authorCounts[article]++;
+            }
+        }
+
+        /**
+         * Adds a keyword of an article of the chunk; they come in article order.
+         */
+        void addKeyword(int articleId, String keyword, int index) {
+            int article = Arrays.binarySearch(ids, 0, size, articleId);
+            if(article >= 0) {
+                if(keywordsSize == keywords.length) {
+                    keywords = Arrays.copyOf(keywords, keywordsSize * 2);
+                    keywordIndexes = Arrays.copyOf(keywordIndexes, keywordsSize * 2);
+                }
+                keywords[keywordsSize] = keyword;
+                keywordIndexes[keywordsSize++] = index;
+                keywordCounts[article]++;
+            }
+        }
+
+        void write(SnapshotWriter writer) {
+            writer.putVarInt(size);
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                writer.putSignedVarLong(ids[i] - previous);
+                previous = ids[i];
+            }
+            for (int i = 0; i < size; i++) {
+                writer.putVarInt(versions[i]);
+            }
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                writer.putSignedVarLong(lastModified[i] - previous);
+                previous = lastModified[i];
+            }
+            writer.putBits(isPublished, size);
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                if(isPublished[i]) {
+                    writer.putSignedVarLong(published[i] - previous);
+                    previous = published[i];
+                }
+            }
+            for (String[] column : new String[][] { headers, descriptions, texts }) {
+                for (int i = 0; i < size; i++) {
+                    writer.putString(column[i]);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                writer.putVarInt(authorCounts[i]);
+            }
+            for (int i = 0; i < authorsSize; i++) {
+                writer.putVarInt(authors[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                writer.putVarInt(keywordCounts[i]);
+            }
+            for (int i = 0; i < keywordsSize; i++) {
+                writer.putVarInt(keywordIndexes[i]);
+            }
+        }
+
+        static Chunk read(SnapshotReader reader, List<String> dictionary) {
+            Chunk chunk = new Chunk();
+            int size = reader.getVarInt();
+            if(size < 0 || size > CHUNK_SIZE) {
+                throw reader.corrupt("invalid number of articles");
+            }
+            chunk.size = size;
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += reader.getSignedVarLong();
+                chunk.ids[i] = (int) previous;
+            }
+            for (int i = 0; i < size; i++) {
+                chunk.versions[i] = reader.getVarInt();
+            }
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += reader.getSignedVarLong();
+                chunk.lastModified[i] = previous;
+            }
+            reader.getBits(chunk.isPublished, size);
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                if(chunk.isPublished[i]) {
+                    previous += reader.getSignedVarLong();
+                    chunk.published[i] = previous;
+                }
+            }
+            for (String[] column : new String[][] { chunk.headers, chunk.descriptions, chunk.texts }) {
+                for (int i = 0; i < size; i++) {
+                    column[i] = reader.getString();
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                chunk.authorCounts[i] = references(reader);
+                chunk.authorsSize += chunk.authorCounts[i];
+            }
+            chunk.authors = new int[chunk.authorsSize];
+            for (int i = 0; i < chunk.authorsSize; i++) {
+                chunk.authors[i] = reader.getVarInt();
+            }
+            for (int i = 0; i < size; i++) {
+                chunk.keywordCounts[i] = references(reader);
+                chunk.keywordsSize += chunk.keywordCounts[i];
+            }
+            chunk.keywords = new String[chunk.keywordsSize];
+            for (int i = 0; i < chunk.keywordsSize; i++) {
+                int index = reader.getVarInt();
+                if(index < 0 || index >= dictionary.size()) {
+                    throw reader.corrupt("unknown keyword");
+                }
+                chunk.keywords[i] = dictionary.get(index);
+            }
+            return chunk;
+        }
+
+        /**
+         * The number of authors or keywords of an article, each taking at least a byte of the section.
+         */
+        private static int references(SnapshotReader reader) {
+            int count = reader.getVarInt();
+            if(count < 0 || count > SnapshotReader.MAX_SECTION_BYTES) {
+                throw reader.corrupt("invalid number of references");
+            }
+            return count;
+        }
+
+        Void insert(Connection connection) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO article (id, header, description, text, " +
+                    "published_nanos, version, last_modified) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < size; i++) {
+                    statement.setInt(1, ids[i]);
+                    statement.setString(2, headers[i]);
+                    statement.setString(3, descriptions[i]);
+                    statement.setString(4, texts[i]);
+                    if(isPublished[i]) {
+                        statement.setLong(5, published[i]);
+                    } else {
+                        statement.setNull(5, Types.BIGINT);
+                    }
+                    statement.setInt(6, versions[i]);
+                    statement.setTimestamp(7, new Timestamp(lastModified[i]));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO article_authors (article_id, authors_id) VALUES (?, ?)")) {
+                for (int i = 0, reference = 0; i < size; i++) {
+                    for (int end = reference + authorCounts[i]; reference < end; reference++) {
+                        statement.setInt(1, ids[i]);
+                        statement.setInt(2, authors[reference]);
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO article_keywords (article_id, keywords) VALUES (?, ?)")) {
+                for (int i = 0, reference = 0; i < size; i++) {
+                    for (int end = reference + keywordCounts[i]; reference < end; reference++) {
+                        statement.setInt(1, ids[i]);
+                        statement.setString(2, keywords[reference]);
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,621 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.axelspringer.publishing.exception.BadRequestException;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleChange;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.EpochNanosConverter;
+import de.axelspringer.publishing.persistence.ReadRouting;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermsQuery;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text index over header, description and text of the articles, stored in a memory mapped Lucene directory
+ * on local disk. Keywords, authors and published dates are indexed too, so that the criteria of {@link ArticleService#find}
+ * can narrow a text query without the database.
+ * <p>
+ * The index follows the {@link ArticleChangeLog}, so that it sees the writes of every instance: every
+ * {@code articles.text-index.refresh-millis} the changed articles are reloaded and become searchable with a
+ * near-real-time refresh. The writes are committed to disk every {@code articles.text-index.commit-seconds} and on
+ * shutdown, together with the position in the change log they reach. At startup, the index continues from that position.
+ * It is rebuilt in the background instead if it has another format or if the changes it misses may have been pruned
+ * from the log already; {@link #isReady()} is false until it has caught up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.text-index", name = "enabled")
+public class ArticleTextIndex {
+
+    /**
+     * The deepest result a text query can page to, as hits are ranked in memory.
+     */
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticleTextIndex.class);
+
+    private static final String ID = "id";
+    private static final String HEADER = "header";
+    private static final String DESCRIPTION = "description";
+    private static final String TEXT = "text";
+    private static final String KEYWORD = "keyword";
+    private static final String AUTHOR = "author";
+    private static final String PUBLISHED = "published";
+
+    /**
+     * Recorded with every commit; an index written in another format, like one without the doc values
+     * the sorted search reads, is rebuilt at startup.
+     */
+    private static final String FORMAT = "format";
+    private static final String FORMAT_VERSION = "2";
+    /**
+     * Recorded with every commit: the change log position the committed index reflects, and when it was read.
+     */
+    private static final String POSITION = "position";
+    private static final String SYNCED = "synced";
+
+    private static final Map<String, Float> TEXT_FIELD_WEIGHTS = ImmutableMap.of(HEADER, 3f, DESCRIPTION, 2f, TEXT, 1f);
+
+    private static final int REINDEX_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    @Lazy
+    private ArticleChangeLog articleChangeLog;
+
+    @Value("${articles.text-index.path}")
+    private String path;
+
+    @Value("${articles.text-index.refresh-millis:100}")
+    private long refreshMillis;
+
+    @Value("${articles.text-index.commit-seconds:60}")
+    private long commitSeconds;
+
+    @Value("${articles.text-index.reindex-threads:0}")
+    private int reindexThreads;
+
+    /**
+     * Syncs, refreshes and commits share the read lock, a rebuild takes the write lock so that no refresh exposes a half
+     * built index.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Held while changes are applied, so that an article reloaded earlier can't overwrite one reloaded later.
+     */
+    private final Object syncing = new Object();
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private Directory directory;
+    // replaced, under the write lock, when a failed rebuild is rolled back
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private ScheduledExecutorService scheduler;
+
+    // the change log position the index has caught up to, and when it was read
+    private volatile long position;
+    private volatile long syncedMillis;
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = new MMapDirectory(Paths.get(path));
+        openWriter();
+        Map<String, String> commitData = writer.getCommitData();
+        String format = commitData.get(FORMAT);
+        boolean rebuild;
+        if(!FORMAT_VERSION.equals(format)) {
+            LOG.info("Text index has format {}, expected {}: rebuilding", format, FORMAT_VERSION);
+            rebuild = true;
+        } else if(!commitData.containsKey(POSITION) ||
+                System.currentTimeMillis() - Long.parseLong(commitData.get(SYNCED)) > articleChangeLog.getRetentionMillis()) {
+            LOG.info("Text index was last synced at {}, before the retention of the change log: rebuilding", commitData.get(SYNCED));
+            rebuild = true;
+        } else {
+            position = Long.parseLong(commitData.get(POSITION));
+            syncedMillis = Long.parseLong(commitData.get(SYNCED));
+            rebuild = false;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("article-text-index").setDaemon(true).build());
+        scheduler.execute(() -> catchUp(rebuild));
+        scheduler.scheduleWithFixedDelay(this::commit, commitSeconds, commitSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        try {
+            commit();
+        } finally {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
+
+    /**
+     * Whether the index has caught up with the change log since startup.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Applies the changes logged so far and makes them searchable. Searches otherwise see them after the next scheduled refresh.
+     */
+    public void refresh() {
+        if(!lock.readLock().tryLock()) {
+            return;
+        }
+        try {
+            syncAll();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Text index refresh failed", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reindexes all articles. The repository is scrolled on the calling thread while the documents are analyzed
+     * and added by {@code articles.text-index.reindex-threads} workers, one per processor by default.
+     * Searches keep seeing the previous index until the rebuild is committed. If it fails, the index is rolled back
+     * to its last commit and keeps its position, so that no commit persists a half built index.
+     */
+    public void rebuild() {
+        rebuild(articleChangeLog.lastPosition());
+    }
+
+    private void rebuild(long lastPosition) {
+        int threads = reindexThreads > 0 ? reindexThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads),
+                new ThreadFactoryBuilder().setNameFormat("article-text-reindex-%d").build(), new ThreadPoolExecutor.CallerRunsPolicy());
+        lock.writeLock().lock();
+        boolean committed = false;
+        try {
+            long started = System.nanoTime(), startedMillis = System.currentTimeMillis();
+            writer.deleteAll();
+            List<Future<?>> chunks = Lists.newArrayList();
+            List<Document> chunk = Lists.newArrayListWithCapacity(REINDEX_CHUNK_SIZE);
+            ReadRouting.onPrimary(() -> articleRepository.scrollAll(article -> {
+                chunk.add(document(article));
+                if(chunk.size() == REINDEX_CHUNK_SIZE) {
+                    chunks.add(addAll(workers, Lists.newArrayList(chunk)));
+                    chunk.clear();
+                }
+            }));
+            chunks.add(addAll(workers, chunk));
+            for (Future<?> added : chunks) {
+                added.get();
+            }
+            // the articles are read after the position, so they reflect all changes up to it at least
+            position = lastPosition;
+            syncedMillis = startedMillis;
+            commitWithPosition();
+            committed = true;
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            LOG.info("Text index rebuilt: {} articles in {} ms with {} threads",
+                    writer.numDocs(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), threads);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Text index rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Text index rebuild failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            try {
+                if(!committed) {
+                    rollback();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Ids of the articles matching the text query, best match first, skipping the first {@code offset}.
+     * The query is parsed leniently: all terms must match, {@code "..."} matches a phrase, {@code -} excludes a term,
+     * {@code |} matches either side and {@code *} a prefix. Terms in the header weigh most, then the description, then the text.
+     * The other criteria filter like in {@link ArticleService#find} and don't affect the ranking.
+     */
+    public List<Integer> search(String text, Collection<String> keywords, Collection<String> authors,
+                                OffsetDateTime publishedSince, OffsetDateTime publishedBefore, int offset, int limit) {
+        if((long) offset + limit > MAX_RESULT_WINDOW) {
+            throw new BadRequestException("Text search results are limited to the first " + MAX_RESULT_WINDOW);
+        }
+        Query query = query(text, keywords, authors, publishedSince, publishedBefore);
+        try {
+            SearcherManager searcherManager = this.searcherManager;
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(query, offset + limit).scoreDocs;
+                List<Integer> ids = Lists.newArrayListWithCapacity(Math.max(hits.length - offset, 0));
+                List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+                for (int i = offset; i < hits.length; i++) {
+                    LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(hits[i].doc, leaves));
+                    NumericDocValues id = leaf.reader().getNumericDocValues(ID);
+                    ids.add((int) id.get(hits[i].doc - leaf.docBase));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Hands all articles matching like {@link #search} to the collector, scored only if it sorts by relevance.
+     * Ids, published dates and the keywords and authors to count are read from doc values, per segment,
+     * and facet values are counted by segment ordinal before they are resolved to terms.
+     *
+     * @return the number of matching articles
+     */
+    int collect(String text, Collection<String> keywords, Collection<String> authors,
+                OffsetDateTime publishedSince, OffsetDateTime publishedBefore, SearchCollector collector) {
+        Query query = query(text, keywords, authors, publishedSince, publishedBefore);
+        try {
+            SearcherManager searcherManager = this.searcherManager;
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                LeafCollector leafCollector = new LeafCollector(collector);
+                searcher.search(query, leafCollector);
+                leafCollector.countFacets();
+                return collector.matches();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return writer.numDocs();
+    }
+
+    private Future<?> addAll(ExecutorService workers, List<Document> documents) {
+        return workers.submit(() -> {
+            writer.addDocuments(documents);
+            return null;
+        });
+    }
+
+    /**
+     * Rebuilds the index or applies the changes it missed while it was closed, then starts following the change log.
+     * Retried until it succeeds.
+     */
+    private void catchUp(boolean rebuild) {
+        try {
+            if(rebuild) {
+                rebuild();
+            } else {
+                long started = System.nanoTime(), from = position;
+                lock.readLock().lock();
+                try {
+                    syncAll();
+                    searcherManager.maybeRefreshBlocking();
+                } finally {
+                    lock.readLock().unlock();
+                }
+                ready = true;
+                LOG.info("Text index caught up from change {} to {} in {} ms", from, position,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Text index could not catch up, retrying", e);
+            scheduler.schedule(() -> catchUp(rebuild), commitSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Applies all changes logged so far, one page after the other. The caller holds the read lock.
+     */
+    private void syncAll() throws IOException {
+        synchronized (syncing) {
+            while (sync()) {
+                // until a page comes back short
+            }
+        }
+    }
+
+    /**
+     * Reloads the articles of the next page of changes and updates or removes their documents.
+     *
+     * @return whether there may be more changes
+     */
+    private boolean sync() throws IOException {
+        long readMillis = System.currentTimeMillis();
+        List<ArticleChange> changes = articleChangeLog.changesSince(position, ArticleChangeLog.MAX_PAGE_SIZE);
+        if(!changes.isEmpty()) {
+            Set<Integer> ids = changes.stream().map(ArticleChange::getArticleId).collect(Collectors.toSet());
+            Map<Integer, Article> articles = Maps.newHashMap();
+            // the joined collections repeat an article, which is the same instance each time
+            ReadRouting.onPrimary(() -> articleRepository.findForList(ids)).forEach(article -> articles.put(article.getId(), article));
+            for (Integer id : ids) {
+                Article article = articles.get(id);
+                if(article != null) {
+                    writer.updateDocument(new Term(ID, String.valueOf(id)), document(article));
+                } else {
+                    writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+                }
+            }
+            position = changes.get(changes.size() - 1).getPosition();
+        }
+        syncedMillis = readMillis;
+        return changes.size() == ArticleChangeLog.MAX_PAGE_SIZE;
+    }
+
+    private void openWriter() throws IOException {
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, true, null);
+    }
+
+    /**
+     * Discards everything since the last commit. Rolling back closes the writer, so a new one is opened on the
+     * last commit, along with a searcher manager for it. Searches still holding a searcher of the old one release it there.
+     */
+    private void rollback() {
+        SearcherManager previous = searcherManager;
+        try {
+            // workers interrupted by the shutdown may have closed the writer already, which then throws
+            writer.rollback();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Text index rollback failed", e);
+        }
+        try {
+            openWriter();
+            previous.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void commitWithPosition() throws IOException {
+        writer.setCommitData(ImmutableMap.of(FORMAT, FORMAT_VERSION, POSITION, String.valueOf(position), SYNCED, String.valueOf(syncedMillis)));
+        writer.commit();
+    }
+
+    private void commit() {
+        lock.readLock().lock();
+        try {
+            commitWithPosition();
+        } catch (IOException e) {
+            LOG.warn("Text index commit failed", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Query query(String text, Collection<String> keywords, Collection<String> authors,
+                        OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, TEXT_FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query textQuery = parser.parse(text);
+        if(textQuery == null) {
+            // nothing searchable left after analysis, e.g. only stop words
+            return new BooleanQuery.Builder().build();
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+        if(keywords != null && !keywords.isEmpty()) {
+            query.add(new TermsQuery(KEYWORD, keywords.stream().map(BytesRef::new).toArray(BytesRef[]::new)), BooleanClause.Occur.FILTER);
+        }
+        if(authors != null && !authors.isEmpty()) {
+            query.add(new TermsQuery(AUTHOR, authors.stream().map(BytesRef::new).toArray(BytesRef[]::new)), BooleanClause.Occur.FILTER);
+        }
+        if(publishedSince != null || publishedBefore != null) {
+            query.add(NumericRangeQuery.newLongRange(PUBLISHED,
+                    publishedSince != null ? EpochNanosConverter.toNanos(publishedSince) : null,
+                    publishedBefore != null ? EpochNanosConverter.toNanos(publishedBefore) : null,
+                    true, false), BooleanClause.Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    private static Document document(Article article) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(article.getId()), Field.Store.NO));
+        document.add(new NumericDocValuesField(ID, article.getId()));
+        addText(document, HEADER, article.getHeader());
+        addText(document, DESCRIPTION, article.getDescription());
+        addText(document, TEXT, article.getText());
+        if(article.getKeywords() != null) {
+            for (String keyword : article.getKeywords()) {
+                document.add(new StringField(KEYWORD, keyword, Field.Store.NO));
+                document.add(new SortedSetDocValuesField(KEYWORD, new BytesRef(keyword)));
+            }
+        }
+        if(article.getAuthors() != null) {
+            for (Author author : article.getAuthors()) {
+                document.add(new StringField(AUTHOR, author.getName(), Field.Store.NO));
+                document.add(new SortedSetDocValuesField(AUTHOR, new BytesRef(author.getName())));
+            }
+        }
+        if(article.getPublished() != null) {
+            long published = EpochNanosConverter.toNanos(article.getPublished());
+            document.add(new LongField(PUBLISHED, published, Field.Store.NO));
+            document.add(new NumericDocValuesField(PUBLISHED, published));
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if(value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    /**
+     * Feeds the hits of one search to a {@link SearchCollector}, segment by segment.
+     */
+    private static final class LeafCollector extends SimpleCollector {
+
+        private final SearchCollector collector;
+        private final boolean scores;
+        private final boolean countKeywords;
+        private final boolean countAuthors;
+
+        private Scorer scorer;
+        private NumericDocValues ids;
+        private NumericDocValues published;
+        private Bits hasPublished;
+        private SortedSetDocValues keywords;
+        private SortedSetDocValues authors;
+        // by ordinal in the current segment
+        private int[] keywordCounts;
+        private int[] authorCounts;
+
+        LeafCollector(SearchCollector collector) {
+            this.collector = collector;
+            scores = collector.sort() == SearchPage.Sort.RELEVANCE;
+            countKeywords = collector.counts(SearchPage.Facet.KEYWORDS);
+            countAuthors = collector.counts(SearchPage.Facet.AUTHORS);
+        }
+
+        @Override
+        public boolean needsScores() {
+            return scores;
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) {
+            this.scorer = scorer;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            countFacets();
+            LeafReader reader = context.reader();
+            ids = DocValues.getNumeric(reader, ID);
+            published = DocValues.getNumeric(reader, PUBLISHED);
+            hasPublished = DocValues.getDocsWithField(reader, PUBLISHED);
+            if(countKeywords) {
+                keywords = DocValues.getSortedSet(reader, KEYWORD);
+                keywordCounts = new int[(int) keywords.getValueCount()];
+            }
+            if(countAuthors) {
+                authors = DocValues.getSortedSet(reader, AUTHOR);
+                authorCounts = new int[(int) authors.getValueCount()];
+            }
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            collector.hit((int) ids.get(doc), hasPublished.get(doc) ? published.get(doc) : SearchCollector.UNPUBLISHED,
+                    scores ? scorer.score() : 0);
+            if(countKeywords) {
+                count(keywords, keywordCounts, doc);
+            }
+            if(countAuthors) {
+                count(authors, authorCounts, doc);
+            }
+        }
+
+        /**
+         * Resolves the ordinals counted in the current segment.
+         */
+        void countFacets() {
+            if(keywordCounts != null) {
+                countFacet(SearchPage.Facet.KEYWORDS, keywords, keywordCounts);
+                keywordCounts = null;
+            }
+            if(authorCounts != null) {
+                countFacet(SearchPage.Facet.AUTHORS, authors, authorCounts);
+                authorCounts = null;
+            }
+        }
+
+        private static void count(SortedSetDocValues values, int[] counts, int doc) {
+            values.setDocument(doc);
+            for (long ordinal = values.nextOrd(); ordinal != SortedSetDocValues.NO_MORE_ORDS; ordinal = values.nextOrd()) {
+                counts[(int) ordinal]++;
+            }
+        }
+
+        private void countFacet(SearchPage.Facet facet, SortedSetDocValues values, int[] counts) {
+            for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+                if(counts[ordinal] > 0) {
+                    collector.count(facet, values.lookupOrd(ordinal).utf8ToString(), counts[ordinal]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package de.axelspringer.publishing.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} while the full-text index is rebuilt or catches up with the change log at startup,
+ * so that {@code /health} keeps the instance out of rotation.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.text-index", name = "enabled")
+public class ArticleTextIndexHealthIndicator extends AbstractHealthIndicator {
+
+    @Autowired
+    private ArticleTextIndex articleTextIndex;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        (articleTextIndex.isReady() ? builder.up() : builder.outOfService()).
+                withDetail("indexed", articleTextIndex.size()).
+                withDetail("position", articleTextIndex.getPosition());
+    }
+}
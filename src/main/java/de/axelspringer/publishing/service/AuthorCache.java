@@ -0,0 +1,156 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.AuthorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves author names to stored authors. Known names are mapped to ids in memory and loaded by id,
+ * which the second-level cache answers without a query. Unknown names are looked up with one query per call,
+ * concurrent lookups of the same name are collapsed into one, and names which are still missing are inserted
+ * with upsert semantics: losing a race on the unique name constraint just reads the winner's row.
+ */
+@Component
+public class AuthorCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuthorCache.class);
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Author>> loading = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void warmUp() {
+        for (Object[] author : authorRepository.findAllNames()) {
+            ids.put((String) author[0], (Integer) author[1]);
+        }
+        LOG.info("Author cache warmed up with {} authors", ids.size());
+    }
+
+    /**
+     * Forgets all names and loads them again, after the authors were replaced wholesale.
+     */
+    public void reload() {
+        ids.clear();
+        warmUp();
+    }
+
+    public Map<String, Author> resolve(Set<String> names) {
+        Map<String, Author> resolved = Maps.newHashMapWithExpectedSize(names.size());
+        Set<String> misses = Sets.newHashSet();
+        for (String name : names) {
+            Integer id = ids.get(name);
+            Author author = id != null ? entityManager.find(Author.class, id) : null;
+            if(author != null) {
+                resolved.put(name, author);
+            } else {
+                if(id != null) {
+                    // the author was removed behind our back
+                    ids.remove(name, id);
+                }
+                misses.add(name);
+            }
+        }
+        if(!misses.isEmpty()) {
+            resolved.putAll(load(misses));
+        }
+        return resolved;
+    }
+
+    private Map<String, Author> load(Set<String> names) {
+        Map<String, CompletableFuture<Author>> owned = Maps.newHashMap();
+        Map<String, CompletableFuture<Author>> awaited = Maps.newHashMap();
+        for (String name : names) {
+            CompletableFuture<Author> future = new CompletableFuture<>();
+            CompletableFuture<Author> inFlight = loading.putIfAbsent(name, future);
+            if(inFlight == null) {
+                owned.put(name, future);
+            } else {
+                awaited.put(name, inFlight);
+            }
+        }
+
+        Map<String, Author> loaded = Maps.newHashMapWithExpectedSize(names.size());
+        if(!owned.isEmpty()) {
+            try {
+                loaded.putAll(findOrInsert(owned.keySet()));
+                owned.forEach((name, future) -> {
+                    ids.put(name, loaded.get(name).getId());
+                    future.complete(loaded.get(name));
+                });
+            } catch (RuntimeException e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.keySet().forEach(loading::remove);
+            }
+        }
+        try {
+            awaited.forEach((name, future) -> loaded.put(name, future.join()));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return loaded;
+    }
+
+    private Map<String, Author> findOrInsert(Set<String> names) {
+        Map<String, Author> found = authorRepository.findByNames(names).stream().collect(Collectors.toMap(Author::getName, author -> author));
+        List<Author> missing = names.stream().filter(name -> !found.containsKey(name)).map(Author::fromJson).collect(Collectors.toList());
+        if(!missing.isEmpty()) {
+            try {
+                authorRepository.save(missing).forEach(author -> found.put(author.getName(), author));
+            } catch (DataIntegrityViolationException e) {
+                // another writer inserted some of the names in the meantime
+                missing.forEach(author -> found.put(author.getName(), upsert(author.getName())));
+            }
+        }
+        return found;
+    }
+
+    private Author upsert(String name) {
+        Author existing = findUncached(name);
+        if(existing != null) {
+            return existing;
+        }
+        try {
+            return authorRepository.saveAndFlush(Author.fromJson(name));
+        } catch (DataIntegrityViolationException e) {
+            existing = findUncached(name);
+            if(existing == null) {
+                throw e;
+            }
+            return existing;
+        }
+    }
+
+    /**
+     * Bypasses the query cache, which doesn't see rows inserted by other nodes.
+     */
+    private Author findUncached(String name) {
+        List<Author> authors = authorRepository.findByNames(Collections.singleton(name));
+        return authors.isEmpty() ? null : authors.get(0);
+    }
+}
@@ -0,0 +1,50 @@
+package de.axelspringer.publishing.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests of one kind which are queued for or running on the {@link DatabaseExecutor},
+ * so that a burst of one kind can't take all its threads. Requests over the limit are rejected right away.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int limit;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    Bulkhead(String name, int limit) {
+        this.name = name;
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+    }
+
+    boolean tryAcquire() {
+        if(permits.tryAcquire()) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getActive() {
+        return limit - permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,173 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.axelspringer.publishing.exception.ServiceUnavailableException;
+import de.axelspringer.publishing.metrics.SlidingWindow;
+import de.axelspringer.publishing.persistence.ReadRouting;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of threads running the database work of asynchronous requests, so that container threads
+ * aren't held while waiting on JDBC. Each kind of request has its own {@link Bulkhead}. Work is rejected with a
+ * {@link ServiceUnavailableException} when its bulkhead or the queue is full, and when it has waited longer than
+ * {@code articles.async.queue-timeout-millis} for a thread, as its client has likely given up by then.
+ * Work runs in a {@link ReadRouting} scope of its own, which requires the primary if the submitting request did.
+ * <p>
+ * With {@code articles.async.enabled=false} the work runs on the calling thread instead.
+ */
+@Component
+public class DatabaseExecutor {
+
+    public enum Workload { SEARCH, LIST, DISPLAY }
+
+    @Value("${articles.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${articles.async.threads:32}")
+    private int threads;
+
+    @Value("${articles.async.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${articles.async.queue-timeout-millis:2000}")
+    private long queueTimeoutMillis;
+
+    @Value("${articles.async.bulkheads.search:16}")
+    private int searchLimit;
+
+    @Value("${articles.async.bulkheads.list:8}")
+    private int listLimit;
+
+    @Value("${articles.async.bulkheads.display:24}")
+    private int displayLimit;
+
+    @Value("${articles.metrics.window-seconds:60}")
+    private long windowSeconds;
+
+    private final Map<Workload, Bulkhead> bulkheads = Maps.newEnumMap(Workload.class);
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private SlidingWindow recentQueueWaits;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        bulkheads.put(Workload.SEARCH, new Bulkhead("search", searchLimit));
+        bulkheads.put(Workload.LIST, new Bulkhead("list", listLimit));
+        bulkheads.put(Workload.DISPLAY, new Bulkhead("display", displayLimit));
+        recentQueueWaits = new SlidingWindow(TimeUnit.SECONDS.toMillis(windowSeconds));
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("database-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs the work within the bulkhead of its workload.
+     *
+     * @return the result of the work, or a {@link ServiceUnavailableException} if it was rejected
+     */
+    public <T> CompletableFuture<T> submit(Workload workload, Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if(!enabled) {
+            run(work, future);
+            return future;
+        }
+        Bulkhead bulkhead = bulkheads.get(workload);
+        if(!bulkhead.tryAcquire()) {
+            future.completeExceptionally(new ServiceUnavailableException("Too many concurrent " + bulkhead.getName() + " requests"));
+            return future;
+        }
+        long submitted = System.nanoTime();
+        boolean primaryRequired = ReadRouting.isPrimaryRequired();
+        try {
+            executor.execute(() -> {
+                try {
+                    long waited = System.nanoTime() - submitted;
+                    queueWaitNanos.add(waited);
+                    recentQueueWaits.record(waited);
+                    if(waited > TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis)) {
+                        timedOut.increment();
+                        future.completeExceptionally(new ServiceUnavailableException("Request waited too long for a database thread"));
+                        return;
+                    }
+                    ReadRouting.begin(primaryRequired);
+                    run(work, future);
+                } finally {
+                    ReadRouting.end();
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            rejected.increment();
+            future.completeExceptionally(new ServiceUnavailableException("Too many queued database requests"));
+        }
+        return future;
+    }
+
+    public Iterable<Bulkhead> getBulkheads() {
+        return bulkheads.values();
+    }
+
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getCompleted() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Work rejected because the queue was full, not counting rejections by the bulkheads.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getQueueWaitNanos() {
+        return queueWaitNanos.sum();
+    }
+
+    /**
+     * Longest wait for a thread within the last {@code articles.metrics.window-seconds}.
+     */
+    public long getMaxQueueWaitNanos() {
+        return recentQueueWaits.getMax();
+    }
+
+    private static <T> void run(Callable<T> work, CompletableFuture<T> future) {
+        try {
+            future.complete(work.call());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.axelspringer.publishing.service;
+
+/**
+ * Approximate access frequencies of long keys for TinyLFU admission: a count-min sketch of four rows of counters
+ * saturating at 15. Once as many accesses as ten times its width were counted, all counters are halved, so that
+ * the sketch forgets old popularity. Estimates are never too low, only too high when keys collide in all rows.
+ * Not thread-safe.
+ */
+final class FrequencySketch {
+
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = { 0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L };
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedKeys number of distinct keys worth telling apart, like the number of cache entries
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(16, expectedKeys - 1) << 1);
+        counters = new byte[ROWS][width];
+        mask = width - 1;
+        sampleSize = 10 * width;
+    }
+
+    void increment(long key) {
+        boolean added = false;
+        for (int row = 0; row < ROWS; row++) {
+            int index = index(key, row);
+            if(counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+        if(added && ++additions >= sampleSize) {
+            age();
+        }
+    }
+
+    int frequency(long key) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counters[row][index(key, row)]);
+        }
+        return frequency;
+    }
+
+    private void age() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions >>= 1;
+    }
+
+    private int index(long key, int row) {
+        long hash = (key + SEEDS[row]) * SEEDS[row];
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+}
@@ -0,0 +1,273 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.primitives.Ints;
+import de.axelspringer.publishing.persistence.ArticleRepositoryCustom;
+import de.axelspringer.publishing.persistence.EpochNanosConverter;
+import de.axelspringer.publishing.service.SearchPage.Facet;
+import de.axelspringer.publishing.service.SearchPage.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects one page of search results and the facet counts in a single pass over all matches, in any order.
+ * The best {@code limit + 1} hits after the cursor are kept in a bounded heap of primitive sort keys and ids,
+ * the one beyond the limit only telling that there is a next page, so memory doesn't grow with the matches.
+ * Facet values are counted in a map per facet and only the top {@code facetSize} of each are returned.
+ * Not thread-safe, one per search.
+ */
+final class SearchCollector implements ArticleRepositoryCustom.MatchVisitor {
+
+    /**
+     * Published key of articles without a published date, sorting them last.
+     */
+    static final long UNPUBLISHED = Long.MIN_VALUE;
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final Ordering<Map.Entry<String, int[]>> MOST_FREQUENT = new Ordering<Map.Entry<String, int[]>>() {
+        @Override
+        public int compare(Map.Entry<String, int[]> left, Map.Entry<String, int[]> right) {
+            int byCount = Integer.compare(right.getValue()[0], left.getValue()[0]);
+            return byCount != 0 ? byCount : left.getKey().compareTo(right.getKey());
+        }
+    };
+
+    private final Sort sort;
+    private final int limit;
+    private final int facetSize;
+
+    private final boolean after;
+    private final long afterKey;
+    private final int afterId;
+
+    // heap of the best hits so far with the worst at the root
+    private final long[] keys;
+    private final int[] ids;
+    private int size;
+
+    private final EnumMap<Facet, Map<String, int[]>> facets = new EnumMap<>(Facet.class);
+    private final boolean countMonths;
+    private int matches;
+
+    // the month of the last published date counted, as most hits in a row are close in time
+    private long monthStart;
+    private long monthEnd;
+    private int[] monthCount;
+
+    SearchCollector(Sort sort, String cursor, int limit, Set<Facet> facets, int facetSize) {
+        this.sort = sort;
+        this.limit = limit;
+        this.facetSize = facetSize;
+        if(cursor != null) {
+            long[] position = SearchPage.position(sort, cursor);
+            after = true;
+            afterKey = position[0];
+            afterId = (int) position[1];
+        } else {
+            after = false;
+            afterKey = 0;
+            afterId = 0;
+        }
+        keys = new long[limit + 1];
+        ids = new int[limit + 1];
+        for (Facet facet : facets) {
+            this.facets.put(facet, Maps.newHashMap());
+        }
+        countMonths = facets.contains(Facet.MONTHS);
+    }
+
+    Sort sort() {
+        return sort;
+    }
+
+    boolean counts(Facet facet) {
+        return facets.containsKey(facet);
+    }
+
+    /**
+     * @return the id after which the next page starts, or null at the start; only meaningful when sorted by id
+     */
+    Integer afterId() {
+        return after ? afterId : null;
+    }
+
+    int matches() {
+        return matches;
+    }
+
+    /**
+     * A matching article.
+     *
+     * @param published epoch nanos, or {@link #UNPUBLISHED}
+     * @param score relevance to the full-text query, if sorted by it
+     */
+    void hit(int id, long published, float score) {
+        matches++;
+        if(countMonths && published != UNPUBLISHED) {
+            countMonth(published);
+        }
+        switch (sort) {
+            case PUBLISHED:
+                offer(published, id);
+                break;
+            case RELEVANCE:
+                // the bits of non-negative floats order like the floats
+                offer(Float.floatToIntBits(score), id);
+                break;
+            default:
+                offer(0, id);
+        }
+    }
+
+    /**
+     * Adds to the count of a facet value, of as many matches.
+     */
+    void count(Facet facet, String value, int count) {
+        Map<String, int[]> counts = facets.get(facet);
+        if(counts != null) {
+            counts.computeIfAbsent(value, v -> new int[1])[0] += count;
+        }
+    }
+
+    @Override
+    public void article(int id, Long publishedNanos) {
+        hit(id, publishedNanos != null ? publishedNanos : UNPUBLISHED, 0);
+    }
+
+    @Override
+    public void keyword(String keyword) {
+        count(Facet.KEYWORDS, keyword, 1);
+    }
+
+    @Override
+    public void author(String author) {
+        count(Facet.AUTHORS, author, 1);
+    }
+
+    /**
+     * Empties the heap into the page, best hit first.
+     */
+    SearchPage page() {
+        int hits = size;
+        long[] sortedKeys = new long[hits];
+        int[] sortedIds = new int[hits];
+        for (int i = hits - 1; i >= 0; i--) {
+            sortedKeys[i] = keys[0];
+            sortedIds[i] = ids[0];
+            size--;
+            keys[0] = keys[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+        String next = null;
+        if(hits > limit) {
+            hits = limit;
+            next = SearchPage.cursor(sort, sortedKeys[limit - 1], sortedIds[limit - 1]);
+        }
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        facets.forEach((facet, values) -> counts.put(facet.key(), top(values)));
+        return new SearchPage(Ints.asList(Arrays.copyOf(sortedIds, hits)), next, counts);
+    }
+
+    /**
+     * A page of hits found elsewhere, ids in ascending order past the cursor; one more than the limit if there are more.
+     */
+    SearchPage page(List<Integer> idsAfterCursor) {
+        for (Integer id : idsAfterCursor) {
+            hit(id, UNPUBLISHED, 0);
+        }
+        return page();
+    }
+
+    private Map<String, Integer> top(Map<String, int[]> values) {
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> value : MOST_FREQUENT.leastOf(values.entrySet(), facetSize)) {
+            top.put(value.getKey(), value.getValue()[0]);
+        }
+        return top;
+    }
+
+    private void countMonth(long nanos) {
+        if(monthCount == null || nanos < monthStart || nanos >= monthEnd) {
+            LocalDate month = LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), 0, ZoneOffset.UTC).
+                    toLocalDate().withDayOfMonth(1);
+            monthStart = toNanos(month);
+            monthEnd = toNanos(month.plusMonths(1));
+            monthCount = facets.get(Facet.MONTHS).computeIfAbsent(month.format(MONTH), m -> new int[1]);
+        }
+        monthCount[0]++;
+    }
+
+    private static long toNanos(LocalDate date) {
+        return EpochNanosConverter.toNanos(OffsetDateTime.of(date.atStartOfDay(), ZoneOffset.UTC));
+    }
+
+    private void offer(long key, int id) {
+        if(after && !(key < afterKey || key == afterKey && id > afterId)) {
+            // on a previous page
+            return;
+        }
+        if(size < keys.length) {
+            keys[size] = key;
+            ids[size] = id;
+            siftUp(size++);
+        } else if(better(key, id, keys[0], ids[0])) {
+            keys[0] = key;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+    private static boolean better(long key, int id, long otherKey, int otherId) {
+        return key > otherKey || key == otherKey && id < otherId;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if(!better(keys[parent], ids[parent], keys[position], ids[position])) {
+                return;
+            }
+            swap(parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int worst = position;
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                if(better(keys[worst], ids[worst], keys[child], ids[child])) {
+                    worst = child;
+                }
+            }
+            if(worst == position) {
+                return;
+            }
+            swap(position, worst);
+            position = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
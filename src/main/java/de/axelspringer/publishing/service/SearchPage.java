@@ -0,0 +1,115 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.base.Splitter;
+import de.axelspringer.publishing.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One page of sorted search results, with the cursor of the next page and the facet counts over all matches.
+ */
+public class SearchPage {
+
+    public enum Sort {
+        /**
+         * Ascending ids, the order of search results without a sort.
+         */
+        ID,
+        /**
+         * Newest first, articles without a published date last; ties in ascending ids.
+         */
+        PUBLISHED,
+        /**
+         * Best match of the full-text query first; ties in ascending ids.
+         */
+        RELEVANCE;
+
+        /**
+         * Looked up rather than {@link #valueOf}, which throws with a stack trace for a malformed request.
+         */
+        public static Sort of(String name) {
+            for (Sort sort : values()) {
+                if(sort.name().equalsIgnoreCase(name)) {
+                    return sort;
+                }
+            }
+            throw new BadRequestException("Sort must be one of id, published or relevance");
+        }
+    }
+
+    public enum Facet {
+        KEYWORDS, AUTHORS,
+        /**
+         * Published year and month in UTC, as {@code yyyy-MM}.
+         */
+        MONTHS;
+
+        public static Facet of(String name) {
+            for (Facet facet : values()) {
+                if(facet.name().equalsIgnoreCase(name)) {
+                    return facet;
+                }
+            }
+            throw new BadRequestException("Facets must be some of keywords, authors or months");
+        }
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final List<Integer> ids;
+    private final String next;
+    private final Map<String, Map<String, Integer>> facets;
+
+    SearchPage(List<Integer> ids, String next, Map<String, Map<String, Integer>> facets) {
+        this.ids = ids;
+        this.next = next;
+        this.facets = facets;
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * Cursor of the page after this one, null on the last page.
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Counts of the requested facets by value, largest first.
+     */
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+
+    /**
+     * The opaque cursor continuing after the hit with the sort key and id; only valid with the same sort.
+     */
+    static String cursor(Sort sort, long key, int id) {
+        String position = sort.name().charAt(0) + ":" + key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the sort key and the id of the last hit before the cursor
+     */
+    static long[] position(Sort sort, String cursor) {
+        try {
+            List<String> parts = Splitter.on(':').splitToList(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+            if(parts.size() == 3 && parts.get(0).equals(String.valueOf(sort.name().charAt(0)))) {
+                return new long[] { Long.parseLong(parts.get(1)), Integer.parseInt(parts.get(2)) };
+            }
+        } catch (IllegalArgumentException e) {
+            // not a cursor, reported below
+        }
+        throw new BadRequestException("Cursor is invalid or from another sort");
+    }
+}
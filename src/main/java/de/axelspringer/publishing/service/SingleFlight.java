@@ -0,0 +1,75 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Maps;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls of one kind with equal keys into one execution: the first call runs the work,
+ * the calls arriving while it runs wait for it and get its result or exception. A call arriving after it finished
+ * runs the work again, nothing is cached. Results are shared and must not be modified.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = Maps.newConcurrentMap();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    SingleFlight(String name) {
+        this.name = name;
+    }
+
+    V execute(K key, Supplier<V> work) {
+        calls.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = flights.putIfAbsent(key, flight);
+        if(running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        executions.increment();
+        V result;
+        try {
+            result = work.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // later calls start anew
+        flights.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * Calls which shared another one's execution.
+     */
+    public long getCollapsed() {
+        return getCalls() - getExecutions();
+    }
+
+    public int getInFlight() {
+        return flights.size();
+    }
+}
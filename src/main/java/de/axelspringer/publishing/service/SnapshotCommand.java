@@ -0,0 +1,73 @@
+package de.axelspringer.publishing.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Runs the application as a command line tool when started with {@code --articles.snapshot.export=<file>}
+ * or {@code --articles.snapshot.import=<file>}: writes or loads the {@link ArticleSnapshots snapshot} file and exits,
+ * with status 1 if that failed. An export is written next to the file and moved there once complete.
+ */
+@Component
+public class SnapshotCommand implements CommandLineRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotCommand.class);
+
+    @Autowired
+    private ArticleSnapshots articleSnapshots;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${articles.snapshot.export:}")
+    private String exportPath;
+
+    @Value("${articles.snapshot.import:}")
+    private String importPath;
+
+    @Override
+    public void run(String... args) {
+        if(exportPath.isEmpty() && importPath.isEmpty()) {
+            return;
+        }
+        int status = 1;
+        try {
+            if(!exportPath.isEmpty()) {
+                export(Paths.get(exportPath));
+            } else {
+                try (FileChannel channel = FileChannel.open(Paths.get(importPath), StandardOpenOption.READ)) {
+                    articleSnapshots.importFrom(channel);
+                }
+            }
+            status = 0;
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Snapshot failed", e);
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+
+    private void export(Path path) throws IOException {
+        Path partial = path.resolveSibling(path.getFileName() + ".partial");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            articleSnapshots.export(channel);
+            channel.force(false);
+        }
+        Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,153 @@
+package de.axelspringer.publishing.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Reads what {@link SnapshotWriter} wrote, a section at a time. Each section is verified against its checksum before
+ * its payload is read with the get methods, and must be read completely. A snapshot which is corrupt, truncated or
+ * of another format is rejected with an {@link IllegalArgumentException}. Not thread-safe.
+ */
+final class SnapshotReader {
+
+    /**
+     * Larger sections are taken for corruption rather than allocated.
+     */
+    static final int MAX_SECTION_BYTES = 64 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer sectionHeader = ByteBuffer.allocate(SnapshotWriter.SECTION_HEADER_BYTES);
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer payload = ByteBuffer.allocate(64 * 1024);
+    private int sections;
+
+    SnapshotReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        if(!read(header) || header.getInt(0) != SnapshotWriter.MAGIC) {
+            throw new IllegalArgumentException("Not an article snapshot");
+        }
+        if(header.getInt(4) != SnapshotWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + header.getInt(4));
+        }
+    }
+
+    /**
+     * Reads and verifies the next section.
+     *
+     * @return its type
+     */
+    byte nextSection() throws IOException {
+        sections++;
+        sectionHeader.clear();
+        if(!read(sectionHeader)) {
+            throw new IllegalArgumentException("Snapshot is truncated");
+        }
+        byte type = sectionHeader.get(0);
+        int length = sectionHeader.getInt(1);
+        if(length < 0 || length > MAX_SECTION_BYTES) {
+            throw corrupt("invalid length");
+        }
+        if(payload.capacity() < length) {
+            payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+        }
+        payload.clear().limit(length);
+        if(!read(payload)) {
+            throw new IllegalArgumentException("Snapshot is truncated");
+        }
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+        if((int) crc.getValue() != sectionHeader.getInt(5)) {
+            throw corrupt("checksum mismatch");
+        }
+        return type;
+    }
+
+    /**
+     * Makes sure the payload of the current section was read completely.
+     */
+    void endSection() {
+        if(payload.hasRemaining()) {
+            throw corrupt("unexpected trailing bytes");
+        }
+    }
+
+    int getVarInt() {
+        long value = getVarLong();
+        if(value >>> 32 != 0) {
+            throw corrupt("integer out of range");
+        }
+        return (int) value;
+    }
+
+    long getVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte next = get();
+            value |= (long) (next & 0x7F) << shift;
+            if(next >= 0) {
+                return value;
+            }
+        }
+        throw corrupt("integer out of range");
+    }
+
+    long getSignedVarLong() {
+        long value = getVarLong();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    String getString() {
+        int length = getVarInt() - 1;
+        if(length < 0) {
+            return null;
+        }
+        if(length > payload.remaining()) {
+            throw corrupt("string out of bounds");
+        }
+        String value = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    void getBits(boolean[] bits, int count) {
+        for (int i = 0; i < count; i += 8) {
+            int packed = get();
+            for (int bit = 0; bit < 8 && i + bit < count; bit++) {
+                bits[i + bit] = (packed & 1 << bit) != 0;
+            }
+        }
+    }
+
+    /**
+     * Rejects the current section.
+     */
+    IllegalArgumentException corrupt(String reason) {
+        return new IllegalArgumentException("Snapshot is corrupt: " + reason + " in section " + sections);
+    }
+
+    private byte get() {
+        if(!payload.hasRemaining()) {
+            throw corrupt("unexpected end of section");
+        }
+        return payload.get();
+    }
+
+    /**
+     * Fills the buffer.
+     *
+     * @return false if the channel ended first
+     */
+    private boolean read(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if(channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
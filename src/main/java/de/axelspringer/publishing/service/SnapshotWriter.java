@@ -0,0 +1,119 @@
+package de.axelspringer.publishing.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the binary format of {@link ArticleSnapshots} to a channel: a header of {@link #MAGIC} and {@link #VERSION},
+ * followed by sections of a type byte, the length and CRC32 of the payload, and the payload.
+ * A payload is built with the put methods and written by {@link #endSection}. Integers are variable length quantities
+ * of seven bits per byte, signed ones zigzag encoded, and strings UTF-8 prefixed with their length plus one,
+ * zero standing for null. Not thread-safe.
+ */
+final class SnapshotWriter {
+
+    static final int MAGIC = 0x41534E50; // "ASNP"
+    static final int VERSION = 1;
+    static final int SECTION_HEADER_BYTES = 9;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer sectionHeader = ByteBuffer.allocate(SECTION_HEADER_BYTES);
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer payload = ByteBuffer.allocate(64 * 1024);
+    private long bytes;
+
+    SnapshotWriter(WritableByteChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        write(header);
+    }
+
+    void putVarInt(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            payload.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        payload.put((byte) value);
+    }
+
+    void putVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            payload.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        payload.put((byte) value);
+    }
+
+    void putSignedVarLong(long value) {
+        putVarLong(value << 1 ^ value >> 63);
+    }
+
+    void putString(String value) {
+        if(value == null) {
+            putVarInt(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        putVarInt(utf8.length + 1);
+        ensure(utf8.length);
+        payload.put(utf8);
+    }
+
+    /**
+     * The first {@code count} flags, eight to a byte.
+     */
+    void putBits(boolean[] bits, int count) {
+        ensure((count + 7) / 8);
+        for (int i = 0; i < count; i += 8) {
+            int packed = 0;
+            for (int bit = 0; bit < 8 && i + bit < count; bit++) {
+                if(bits[i + bit]) {
+                    packed |= 1 << bit;
+                }
+            }
+            payload.put((byte) packed);
+        }
+    }
+
+    /**
+     * Writes the section built since the last one.
+     */
+    void endSection(byte type) throws IOException {
+        payload.flip();
+        crc.reset();
+        crc.update(payload.duplicate());
+        sectionHeader.clear();
+        sectionHeader.put(type).putInt(payload.remaining()).putInt((int) crc.getValue());
+        sectionHeader.flip();
+        write(sectionHeader);
+        write(payload);
+        payload.clear();
+    }
+
+    /**
+     * Bytes written to the channel so far.
+     */
+    long bytesWritten() {
+        return bytes;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            bytes += channel.write(buffer);
+        }
+    }
+
+    private void ensure(int more) {
+        if(payload.remaining() < more) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(payload.capacity() * 2, payload.position() + more));
+            payload.flip();
+            payload = larger.put(payload);
+        }
+    }
+}
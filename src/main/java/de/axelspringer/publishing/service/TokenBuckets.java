@@ -0,0 +1,94 @@
+package de.axelspringer.publishing.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A token bucket per client, refilled at a fixed rate up to its burst size. Each bucket is a single long, the time
+ * at which it will be full again (the generic cell rate algorithm), updated by compare-and-set, so taking a token
+ * neither locks nor allocates once the client has been seen. Once there are {@code maxClients} buckets, a new client
+ * drops those which are full, as they hold nothing a new bucket wouldn't; the next sweep waits until twice as many
+ * buckets are left, so that clients within their budgets can't make each new one sweep.
+ */
+public class TokenBuckets {
+
+    private final String name;
+    private final double perSecond;
+    private final int burst;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long maxClients;
+    private final ConcurrentMap<String, AtomicLong> fullAt = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private volatile long sweepAt;
+
+    TokenBuckets(String name, double perSecond, int burst, long maxClients) {
+        this.name = name;
+        this.perSecond = perSecond;
+        this.burst = burst;
+        this.intervalNanos = Math.max(1, (long) (1e9 / perSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.maxClients = maxClients;
+        this.sweepAt = maxClients;
+    }
+
+    /**
+     * Takes a token from the client's bucket.
+     *
+     * @return 0 if there was one, else the nanoseconds until there will be
+     */
+    long tryTake(String client) {
+        AtomicLong bucket = fullAt.get(client);
+        if(bucket == null) {
+            if(fullAt.size() >= sweepAt) {
+                sweep();
+            }
+            // full since forever
+            bucket = fullAt.computeIfAbsent(client, key -> new AtomicLong(Long.MIN_VALUE));
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long full = bucket.get();
+            long next = Math.max(full, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if(wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if(bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private synchronized void sweep() {
+        if(fullAt.size() < sweepAt) {
+            return;
+        }
+        long now = System.nanoTime();
+        fullAt.values().removeIf(bucket -> bucket.get() <= now);
+        sweepAt = Math.max(maxClients, 2L * fullAt.size());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPerSecond() {
+        return perSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getClients() {
+        return fullAt.size();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
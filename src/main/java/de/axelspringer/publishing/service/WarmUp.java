@@ -0,0 +1,151 @@
+package de.axelspringer.publishing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.json.ObjectMappers;
+import de.axelspringer.publishing.json.WireFormat;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleSummary;
+import de.axelspringer.publishing.model.ArticleVersion;
+import de.axelspringer.publishing.model.Author;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Primes the read, search and serialization paths once the context is up, so that the first requests don't pay for
+ * class loading, JIT compilation and cold connections. It repeats them {@code articles.warm-up.iterations} times
+ * for a sample of the stored articles, or for a made up one if there are none, but for at most
+ * {@code articles.warm-up.max-millis}.
+ * <p>
+ * Until it is done, this health indicator reports {@code OUT_OF_SERVICE}, so {@code /health} keeps the instance out of
+ * rotation. A failing warm-up is logged and the instance served anyway.
+ */
+@Component
+@ConditionalOnProperty(prefix = "articles.warm-up", name = "enabled", matchIfMissing = true)
+public class WarmUp extends AbstractHealthIndicator implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmUp.class);
+
+    private static final int SAMPLE_SIZE = 10;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectMappers objectMappers;
+
+    @Value("${articles.warm-up.iterations:200}")
+    private int iterations;
+
+    @Value("${articles.warm-up.max-millis:30000}")
+    private long maxMillis;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean done;
+    private volatile int completedIterations;
+    private volatile long tookMillis;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if(started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::warmUp, "warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if(done) {
+            builder.up().withDetail("iterations", completedIterations).withDetail("millis", tookMillis);
+        } else {
+            builder.outOfService();
+        }
+    }
+
+    private void warmUp() {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        int iteration = 0;
+        try {
+            List<Article> sample = sample();
+            for (; iteration < iterations && System.nanoTime() - deadline < 0; iteration++) {
+                prime(sample.get(iteration % sample.size()));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Warm-up failed after {} iterations, serving cold", iteration, e);
+        } finally {
+            completedIterations = iteration;
+            tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            done = true;
+            LOG.info("Warmed up with {} iterations in {} ms", completedIterations, tookMillis);
+        }
+    }
+
+    private List<Article> sample() {
+        List<ArticleVersion> versions = articleService.findPageVersions(null, SAMPLE_SIZE);
+        if(versions.isEmpty()) {
+            return Collections.singletonList(madeUpArticle());
+        }
+        List<Article> sample = Lists.newArrayListWithCapacity(versions.size());
+        for (ArticleVersion version : versions) {
+            sample.add(articleService.read(version.getId()));
+        }
+        return sample;
+    }
+
+    /**
+     * What {@code GET /articles/{id}} and {@code GET /articles/search} do, without going through HTTP and the caches.
+     */
+    private void prime(Article article) throws IOException {
+        if(article.getId() != null) {
+            article = articleService.read(article.getId());
+        }
+        for (WireFormat format : WireFormat.values()) {
+            objectMappers.get(format).writeValueAsBytes(article);
+        }
+        List<String> keywords = article.getKeywords() != null ? ImmutableList.copyOf(article.getKeywords()) : null;
+        List<Integer> ids = articleService.findIds(keywords, null, null, null, 0, SAMPLE_SIZE);
+        objectMapper.writeValueAsBytes(ImmutableMap.of("results", articleService.findSummaries(ids, ArticleSummary.FIELDS)));
+        if(articleService.isTextSearchEnabled() && article.getHeader() != null) {
+            objectMapper.writeValueAsBytes(ImmutableMap.of("results",
+                    articleService.findIds(article.getHeader(), null, null, null, null, 0, SAMPLE_SIZE)));
+        }
+    }
+
+    private static Article madeUpArticle() {
+        Article article = new Article();
+        article.setHeader("Warm-up");
+        article.setDescription("Primes the read and search paths");
+        article.setText("Not stored");
+        article.setPublished(OffsetDateTime.now());
+        article.setAuthors(ImmutableSet.of(Author.fromJson("warm-up")));
+        article.setKeywords(ImmutableSet.of("warm-up"));
+        return article;
+    }
+}
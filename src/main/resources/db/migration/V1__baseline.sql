@@ -0,0 +1,33 @@
+-- The schema as it was created by hand before it was migrated. Existing databases are baselined at this version.
+
+CREATE SEQUENCE hibernate_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE author (
+    id INTEGER NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT author_name UNIQUE (name)
+);
+
+CREATE TABLE article (
+    id INTEGER NOT NULL,
+    header VARCHAR(255),
+    description VARCHAR(255),
+    text VARCHAR(255),
+    published VARBINARY(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE article_authors (
+    article_id INTEGER NOT NULL,
+    authors_id INTEGER NOT NULL,
+    PRIMARY KEY (article_id, authors_id),
+    CONSTRAINT article_authors_article FOREIGN KEY (article_id) REFERENCES article (id),
+    CONSTRAINT article_authors_author FOREIGN KEY (authors_id) REFERENCES author (id)
+);
+
+CREATE TABLE article_keywords (
+    article_id INTEGER NOT NULL,
+    keywords VARCHAR(255),
+    CONSTRAINT article_keywords_article FOREIGN KEY (article_id) REFERENCES article (id)
+);
@@ -0,0 +1,5 @@
+-- Optimistic locking and conditional requests. Existing articles start at version 0, modified now.
+
+ALTER TABLE article ADD COLUMN version INTEGER DEFAULT 0 NOT NULL;
+
+ALTER TABLE article ADD COLUMN last_modified TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
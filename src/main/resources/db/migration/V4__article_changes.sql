@@ -0,0 +1,15 @@
+-- The change log of ArticleChangeLog. Positions aren't pooled, so that they follow the order of the writes.
+
+CREATE SEQUENCE article_change_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE article_change (
+    position BIGINT NOT NULL,
+    article_id INTEGER NOT NULL,
+    version INTEGER,
+    operation VARCHAR(8) NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (position)
+);
+
+-- pruning after the retention period
+CREATE INDEX article_change_timestamp ON article_change (timestamp);
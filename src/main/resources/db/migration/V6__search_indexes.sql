@@ -0,0 +1,10 @@
+-- Indexes for the criteria of ArticleService.find, which match keywords and authors with id IN (subquery)
+-- and published with a range. Each leads with the criterion and ends with the article id, so the subqueries
+-- and the id selection of findIds are answered from the index alone.
+
+CREATE INDEX article_keywords_keyword ON article_keywords (keywords, article_id);
+
+-- the primary key leads with the article, serving the other direction
+CREATE INDEX article_authors_author ON article_authors (authors_id, article_id);
+
+CREATE INDEX article_published ON article (published_nanos, id);
@@ -0,0 +1,63 @@
+package de.axelspringer.publishing.config;
+
+import com.google.common.collect.ImmutableList;
+import de.axelspringer.publishing.persistence.ReplicaRoutingDataSource;
+import org.flywaydb.core.Flyway;
+import org.hsqldb.jdbc.JDBCDriver;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * A second embedded database standing in for a replica of the one of {@link TestConfig}. Nothing is replicated,
+ * the replica only has the schema, so reads routed to it don't find what was written to the primary.
+ */
+@Profile("test")
+@Configuration
+@ConditionalOnProperty(prefix = "articles.replicas", name = "enabled")
+public class ReplicaTestConfig {
+
+    private static final String REPLICA_URL = "jdbc:hsqldb:mem:replica";
+
+    @Value("${flyway.locations}")
+    private String[] migrations;
+
+    @Value("${articles.replicas.health-check-millis:1000}")
+    private long healthCheckMillis;
+
+    private final SimpleDriverDataSource replica = new SimpleDriverDataSource(new JDBCDriver(), REPLICA_URL, "sa", "");
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("dataSource") DataSource dataSource) {
+        Flyway flyway = new Flyway();
+        flyway.setDataSource(replica);
+        flyway.setLocations(migrations);
+        flyway.migrate();
+        return new ReplicaRoutingDataSource(dataSource, ImmutableList.of(replica), healthCheckMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource routingDataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Connections to the replica fail from now on, as if it was unreachable.
+     */
+    public void disconnectReplica() {
+        replica.setUrl(REPLICA_URL + "-unreachable;ifexists=true");
+    }
+
+    public void reconnectReplica() {
+        replica.setUrl(REPLICA_URL);
+    }
+}
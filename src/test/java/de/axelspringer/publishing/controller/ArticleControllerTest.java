@@ -3,10 +3,14 @@ package de.axelspringer.publishing.controller;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.config.EncoderConfig;
+import com.jayway.restassured.http.ContentType;
 import de.axelspringer.publishing.model.Article;
 import de.axelspringer.publishing.model.Author;
 import de.axelspringer.publishing.persistence.ArticleRepository;
 import de.axelspringer.publishing.persistence.AuthorRepository;
+import de.axelspringer.publishing.service.ArticleService;
 import de.axelspringer.publishing.util.IntegrationTest;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -36,6 +40,9 @@ public class ArticleControllerTest extends IntegrationTest {
     @Autowired
     AuthorRepository authorRepository;
 
+    @Autowired
+    ArticleService articleService;
+
     List<Article> articles;
     List<Author> authors;
 
@@ -84,6 +91,150 @@ public class ArticleControllerTest extends IntegrationTest {
                 statusCode(HttpStatus.BAD_REQUEST.value());
     }
 
+    @Test
+    public void displayCached() {
+        Integer id = articles.get(0).getId();
+        when().get("/articles/{id}", id).then().statusCode(HttpStatus.OK.value());
+        when().get("/articles/{id}", id).then().statusCode(HttpStatus.OK.value()).body("header", equalTo("Header 1"));
+
+        given().
+                contentType("application/json").
+                body(ImmutableMap.of("header", "new header")).
+                when().
+                put("/articles/{id}", id).then().statusCode(HttpStatus.OK.value());
+        when().get("/articles/{id}", id).then().statusCode(HttpStatus.OK.value()).body("header", equalTo("new header"));
+
+        when().delete("/articles/{id}", id).then().statusCode(HttpStatus.NO_CONTENT.value());
+        when().get("/articles/{id}", id).then().statusCode(HttpStatus.NOT_FOUND.value());
+
+        when().
+                get("/metrics").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("'cache.articles.response.hits'", greaterThan(0)).
+                body("'cache.hibernate.Article.hits'", greaterThanOrEqualTo(0));
+    }
+
+    @Test
+    public void displayConditional() {
+        Integer id = articles.get(0).getId();
+        String eTag = when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value()).
+                header("ETag", not(isEmptyOrNullString())).
+                header("Last-Modified", not(isEmptyOrNullString())).
+                header("Cache-Control", equalTo("no-cache")).
+                header("Vary", equalTo("Accept")).
+                extract().header("ETag");
+        String lastModified = when().get("/articles/{id}", id).then().extract().header("Last-Modified");
+
+        // another representation of the same version
+        given().header("Accept", "application/cbor").header("If-None-Match", eTag).when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value()).
+                header("ETag", not(equalTo(eTag))).
+                header("Vary", equalTo("Accept"));
+
+        given().header("If-None-Match", eTag).when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.NOT_MODIFIED.value()).
+                header("ETag", equalTo(eTag));
+        given().header("If-None-Match", "W/" + eTag).when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.NOT_MODIFIED.value());
+        given().header("If-None-Match", "\"other\"").when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value());
+        given().header("If-Modified-Since", lastModified).when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.NOT_MODIFIED.value());
+        given().header("If-Modified-Since", "Thu, 01 Jan 2015 00:00:00 GMT").when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value());
+        given().header("If-None-Match", eTag).when().get("/articles/{id}", -1).then().
+                statusCode(HttpStatus.NOT_FOUND.value());
+
+        String updated = given().
+                contentType("application/json").
+                body(ImmutableMap.of("header", "new header")).
+                when().
+                put("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value()).
+                header("ETag", not(equalTo(eTag))).
+                extract().header("ETag");
+        given().header("If-None-Match", eTag).when().get("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value()).
+                header("ETag", equalTo(updated)).
+                body("header", equalTo("new header"));
+    }
+
+    @Test
+    public void updateConditional() {
+        Integer id = articles.get(0).getId();
+        String eTag = when().get("/articles/{id}", id).then().extract().header("ETag");
+
+        String updated = given().
+                contentType("application/json").
+                header("If-Match", eTag).
+                body(ImmutableMap.of("header", "first")).
+                when().
+                put("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value()).
+                extract().header("ETag");
+
+        given().
+                contentType("application/json").
+                header("If-Match", eTag).
+                body(ImmutableMap.of("header", "second")).
+                when().
+                put("/articles/{id}", id).then().
+                statusCode(HttpStatus.PRECONDITION_FAILED.value());
+        given().
+                contentType("application/json").
+                header("If-Match", "\"other\"").
+                body(ImmutableMap.of("header", "second")).
+                when().
+                put("/articles/{id}", id).then().
+                statusCode(HttpStatus.PRECONDITION_FAILED.value());
+        assertThat(articleService.read(id).getHeader(), equalTo("first"));
+
+        given().
+                contentType("application/json").
+                header("If-Match", eTag + ", " + updated).
+                body(ImmutableMap.of("header", "second")).
+                when().
+                put("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value());
+        given().
+                contentType("application/json").
+                header("If-Match", "*").
+                body(ImmutableMap.of("header", "third")).
+                when().
+                put("/articles/{id}", id).then().
+                statusCode(HttpStatus.OK.value());
+        assertThat(articleService.read(id).getHeader(), equalTo("third"));
+    }
+
+    @Test
+    public void listConditional() {
+        String eTag = when().get("/articles?limit=2").then().
+                statusCode(HttpStatus.OK.value()).
+                header("ETag", not(isEmptyOrNullString())).
+                extract().header("ETag");
+
+        given().header("If-None-Match", eTag).when().get("/articles?limit=2").then().
+                statusCode(HttpStatus.NOT_MODIFIED.value()).
+                header("Link", containsString("after=" + articles.get(1).getId()));
+        given().header("If-None-Match", eTag).when().get("/articles?limit=3").then().
+                statusCode(HttpStatus.OK.value());
+        given().header("Accept", "application/x-jackson-smile").header("If-None-Match", eTag).when().get("/articles?limit=2").then().
+                statusCode(HttpStatus.OK.value()).
+                header("ETag", not(equalTo(eTag))).
+                header("Vary", equalTo("Accept"));
+
+        given().
+                contentType("application/json").
+                body(ImmutableMap.of("header", "new header")).
+                when().
+                put("/articles/{id}", articles.get(1).getId()).then().statusCode(HttpStatus.OK.value());
+        given().header("If-None-Match", eTag).when().get("/articles?limit=2").then().
+                statusCode(HttpStatus.OK.value()).
+                header("ETag", not(equalTo(eTag)));
+    }
+
     @Test
     public void list() throws Exception {
         Map response = when().
@@ -93,6 +244,53 @@ public class ArticleControllerTest extends IntegrationTest {
         assertThat(response.size(), equalTo(3));
     }
 
+    @Test
+    public void listPaginated() throws Exception {
+        Map<String, Object> firstPage = given().
+                param("limit", 2).
+                when().
+                get("/articles").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                header("Link", containsString("after=" + articles.get(1).getId())).
+                extract().as(Map.class);
+        assertThat(firstPage.keySet(), contains(articles.get(0).getId().toString(), articles.get(1).getId().toString()));
+
+        Map<String, Object> secondPage = given().
+                param("limit", 2).
+                param("after", articles.get(1).getId()).
+                when().
+                get("/articles").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                header("Link", is(nullValue())).
+                extract().as(Map.class);
+        assertThat(secondPage.keySet(), contains(articles.get(2).getId().toString()));
+
+        given().
+                param("limit", 0).
+                when().
+                get("/articles").
+                then().
+                statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    public void listStream() throws Exception {
+        String body = given().
+                accept("application/x-ndjson, application/json;q=0.1").
+                when().
+                get("/articles").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                contentType(startsWith("application/x-ndjson")).
+                extract().asString();
+        String[] lines = body.split("\n");
+        assertThat(lines.length, equalTo(3));
+        assertThat(lines[0], startsWith("{\"" + articles.get(0).getId() + "\":{"));
+        assertThat(lines[2], containsString("\"header\":\"Header 3\""));
+    }
+
     @Test
     public void create() throws Exception {
         Integer id = given().
@@ -104,7 +302,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 when().post("/articles").then().
                 statusCode(HttpStatus.OK.value()).extract().jsonPath().getInt("id");
         assertThat(id, is(notNullValue()));
-        Article article = articleRepository.getOne(id);
+        Article article = articleService.read(id);
         assertThat(article.getDescription(), Matchers.equalTo("some descr"));
         assertThat(article.getHeader(), Matchers.equalTo("some header"));
 
@@ -115,10 +313,50 @@ public class ArticleControllerTest extends IntegrationTest {
                 statusCode(HttpStatus.BAD_REQUEST.value());
     }
 
+    @Test
+    public void bulkCreate() {
+        List<Map<String, Object>> results = given().
+                contentType("application/json").
+                body("[{\"header\": \"bulk 1\", \"authors\": [\"Author1\", \"bulk author\"], \"keywords\": [\"keyword1\"]}," +
+                        "null," +
+                        "{\"header\": \"bulk 2\", \"authors\": [\"bulk author\"]}]").
+                when().post("/articles/_bulk").then().
+                statusCode(HttpStatus.OK.value()).extract().jsonPath().getList("");
+        assertThat(results, hasSize(3));
+        assertThat(results.get(1), hasKey("error"));
+
+        Article first = articleService.read((Integer) results.get(0).get("id"));
+        assertThat(first.getHeader(), equalTo("bulk 1"));
+        assertThat(first.getAuthors().stream().map(Author::getName).collect(Collectors.toList()), containsInAnyOrder("Author1", "bulk author"));
+        Article second = articleService.read((Integer) results.get(2).get("id"));
+        assertThat(second.getAuthors().iterator().next().getId(), equalTo(authorRepository.find("bulk author").getId()));
+        assertThat(authorRepository.count(), equalTo(3L));
+    }
+
+    @Test
+    public void bulkCreateNdjson() {
+        List<Map<String, Object>> results = given().
+                contentType("application/x-ndjson").
+                config(RestAssured.config().encoderConfig(EncoderConfig.encoderConfig().encodeContentTypeAs("application/x-ndjson", ContentType.TEXT))).
+                body("{\"header\": \"bulk 1\", \"authors\": [\"Author2\"]}\n" +
+                        "{incorrectPayload: \"}\n" +
+                        "\n" +
+                        "{\"header\": \"bulk 2\", \"keywords\": [\"keyword2\"]}\n").
+                when().post("/articles/_bulk").then().
+                statusCode(HttpStatus.OK.value()).extract().jsonPath().getList("");
+        assertThat(results, hasSize(3));
+        assertThat(results.get(0), hasKey("id"));
+        assertThat(results.get(1), hasKey("error"));
+        assertThat(articleService.read((Integer) results.get(2).get("id")).getKeywords(), contains("keyword2"));
+    }
+
     @Test
     public void delete() {
+        when().get("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
         when().delete("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.NO_CONTENT.value());
         when().delete("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.NOT_FOUND.value());
+        when().get("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.NOT_FOUND.value());
+        assertThat(articleRepository.findOne(articles.get(0).getId()), is(nullValue()));
     }
 
     @Test
@@ -128,7 +366,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 body(ImmutableMap.of("header", "new header")).
         when().
                 put("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
-        Article article = articleRepository.getOne(articles.get(0).getId());
+        Article article = articleService.read(articles.get(0).getId());
         assertThat(article.getHeader(), equalTo("new header"));
 
         given().
@@ -152,7 +390,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 body(ImmutableMap.of("keywords", keywords)).
                 when().
                 put("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
-        Article article = articleRepository.getOne(articles.get(0).getId());
+        Article article = articleService.read(articles.get(0).getId());
         assertThat(article.getKeywords(), equalTo(keywords));
 
         given().
@@ -160,7 +398,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 body("{\"keywords\": null}").
                 when().
                 put("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
-        article = articleRepository.getOne(articles.get(0).getId());
+        article = articleService.read(articles.get(0).getId());
         assertThat(article.getKeywords(), is(empty()));
 
         given().
@@ -168,7 +406,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 body("{\"keywords\": []}").
                 when().
                 put("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
-        article = articleRepository.getOne(articles.get(0).getId());
+        article = articleService.read(articles.get(0).getId());
         assertThat(article.getKeywords(), is(empty()));
     }
 
@@ -180,7 +418,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 body(ImmutableMap.of("authors", authors)).
                 when().
                 put("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
-        Article article = articleRepository.getOne(articles.get(0).getId());
+        Article article = articleService.read(articles.get(0).getId());
         assertThat(article.getAuthors(), hasSize(2));
         assertThat(article.getAuthors().stream().map(Author::getName).collect(Collectors.toList()), hasItems(authors.toArray()));
 
@@ -189,7 +427,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 body("{\"authors\": null}").
                 when().
                 put("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
-        article = articleRepository.getOne(articles.get(0).getId());
+        article = articleService.read(articles.get(0).getId());
         assertThat(article.getAuthors(), is(empty()));
 
         given().
@@ -197,7 +435,7 @@ public class ArticleControllerTest extends IntegrationTest {
                 body("{\"authors\": []}").
                 when().
                 put("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
-        article = articleRepository.getOne(articles.get(0).getId());
+        article = articleService.read(articles.get(0).getId());
         assertThat(article.getAuthors(), is(empty()));
     }
 
@@ -242,6 +480,52 @@ public class ArticleControllerTest extends IntegrationTest {
                 body("results", hasItems(articles.get(0).getId()));
     }
 
+    @Test
+    public void findPaged() {
+        List<Integer> ids = articles.stream().map(Article::getId).sorted().collect(Collectors.toList());
+        when().
+                get("/articles/search?keywords=keyword1,keyword2&offset=1&limit=1").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results", contains(ids.get(1)));
+
+        when().
+                get("/articles/search?keywords=keyword1,keyword2&offset=2").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results", contains(ids.get(2)));
+
+        when().
+                get("/articles/search?keywords=keyword1&limit=0").
+                then().
+                statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    public void findSummaries() {
+        when().
+                get("/articles/search?keywords=keyword1&authors=Author1&fields=header,published").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results", hasSize(1)).
+                body("results[0].id", equalTo(articles.get(0).getId())).
+                body("results[0].header", equalTo("Header 1")).
+                body("results[0].published", equalTo(articles.get(0).getPublished().toString())).
+                body("results[0]", not(hasKey("description")));
+
+        when().
+                get("/articles/search?keywords=keyword2&fields=header").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results.header", contains("Header 1", "Header 2")).
+                body("results[1]", not(hasKey("published")));
+
+        when().
+                get("/articles/search?keywords=keyword1&fields=text").
+                then().
+                statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
     @Test
     public void findIncorrectDate() {
         when().
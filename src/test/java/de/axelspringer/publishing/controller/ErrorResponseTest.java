@@ -0,0 +1,103 @@
+package de.axelspringer.publishing.controller;
+
+import de.axelspringer.publishing.exception.BadRequestException;
+import de.axelspringer.publishing.exception.NotFoundException;
+import de.axelspringer.publishing.json.WireFormat;
+import de.axelspringer.publishing.metrics.HandlerMetrics;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * The pre-built answers to missing articles and malformed searches, and the error rates of their handlers
+ * over a window of two seconds.
+ */
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.metrics.window-seconds:2"})
+public class ErrorResponseTest extends IntegrationTest {
+
+    @Autowired
+    HandlerMetrics handlerMetrics;
+
+    @Test
+    public void answersMissingArticlesWithTheSameBodyInTheAcceptedFormat() {
+        byte[] first = when().get("/articles/{id}", -1).
+                then().
+                statusCode(HttpStatus.NOT_FOUND.value()).
+                contentType(startsWith("application/json")).
+                body("status", equalTo("NOT_FOUND")).
+                body("error", equalTo("Article doesn't exist")).
+                extract().asByteArray();
+        byte[] second = when().get("/articles/{id}", -2).then().statusCode(HttpStatus.NOT_FOUND.value()).extract().asByteArray();
+        assertThat(second, equalTo(first));
+
+        given().
+                header(HttpHeaders.ACCEPT, WireFormat.SMILE_VALUE).
+                when().
+                get("/articles/{id}", -1).
+                then().
+                statusCode(HttpStatus.NOT_FOUND.value()).
+                contentType(WireFormat.SMILE_VALUE);
+    }
+
+    @Test
+    public void answersMalformedSearches() {
+        when().get("/articles/search?keywords=error&sort=popularity").
+                then().
+                statusCode(HttpStatus.BAD_REQUEST.value()).
+                body("status", equalTo("BAD_REQUEST")).
+                body("error", equalTo("Sort must be one of id, published or relevance"));
+        when().get("/articles/search").
+                then().
+                statusCode(HttpStatus.BAD_REQUEST.value()).
+                body("error", equalTo("Search criteria is not provided"));
+    }
+
+    @Test
+    public void countsErrorsPerHandler() {
+        when().get("/articles/{id}", 1);
+        when().get("/articles/search?keywords=error");
+        // the requests so far, of other tests too, out of the window
+        AtomicLong nanoTime = new AtomicLong(System.nanoTime() + TimeUnit.SECONDS.toNanos(2));
+        handlerMetrics.setNanoTime(nanoTime::get);
+        try {
+            when().get("/articles/{id}", -1).then().statusCode(HttpStatus.NOT_FOUND.value());
+            when().get("/articles/search").then().statusCode(HttpStatus.BAD_REQUEST.value());
+            when().get("/articles").then().statusCode(HttpStatus.OK.value());
+
+            // reading doesn't reset the rates
+            for (int i = 0; i < 2; i++) {
+                when().get("/metrics").
+                        then().
+                        body("'handler.ArticleController.display.errors'", greaterThanOrEqualTo(1)).
+                        body("'handler.ArticleController.display.error-rate'", equalTo(1.0f)).
+                        body("'handler.ArticleController.search.error-rate'", equalTo(1.0f)).
+                        body("'handler.ArticleController.list.error-rate'", equalTo(0.0f));
+            }
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+            when().get("/articles").then().statusCode(HttpStatus.OK.value());
+            when().get("/metrics").
+                    then().
+                    body("'handler.ArticleController.display.error-rate'", equalTo(0.0f)).
+                    body("'handler.ArticleController.list.error-rate'", equalTo(0.0f));
+        } finally {
+            handlerMetrics.setNanoTime(System::nanoTime);
+        }
+    }
+
+    @Test
+    public void throwsWithoutStackTraces() {
+        assertThat(new NotFoundException("Article doesn't exist").getStackTrace().length, equalTo(0));
+        assertThat(new BadRequestException("Limit must be positive").getStackTrace().length, equalTo(0));
+    }
+}
@@ -0,0 +1,144 @@
+package de.axelspringer.publishing.controller;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import de.axelspringer.publishing.exception.TooManyRequestsException;
+import de.axelspringer.publishing.service.AdaptiveConcurrencyLimit;
+import de.axelspringer.publishing.service.AdmissionControl;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.AsyncEvent;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Budgets of two writes and three searches per client, refilled once a second, behind a proxy at 10.0.0.9.
+ */
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.rate-limit.enabled:true",
+        "articles.rate-limit.write.per-second:1", "articles.rate-limit.write.burst:2",
+        "articles.rate-limit.search.per-second:1", "articles.rate-limit.search.burst:3",
+        "articles.rate-limit.shared-users:axel", "articles.rate-limit.trusted-proxies:10.0.0.9"})
+public class RateLimitTest extends IntegrationTest {
+
+    @Autowired
+    AdmissionInterceptor admissionInterceptor;
+
+    @Autowired
+    AdmissionControl admissionControl;
+
+    @Test
+    public void rejectsWritesOverBudgetWithRetryAfter() throws InterruptedException {
+        for (int i = 0; i < 2; i++) {
+            create().then().statusCode(HttpStatus.OK.value());
+        }
+        create().
+                then().
+                statusCode(HttpStatus.TOO_MANY_REQUESTS.value()).
+                header(HttpHeaders.RETRY_AFTER, equalTo("1")).
+                body("error", equalTo("Too many write requests"));
+
+        // other budgets aren't affected
+        when().get("/articles").then().statusCode(HttpStatus.OK.value());
+
+        Thread.sleep(1000);
+        create().then().statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    public void rejectsSearchesOverBudgetWithoutTheirWork() {
+        for (int i = 0; i < 3; i++) {
+            when().get("/articles/search?keywords=rate").then().statusCode(HttpStatus.OK.value());
+        }
+        when().get("/articles/search?keywords=rate").then().statusCode(HttpStatus.TOO_MANY_REQUESTS.value());
+        when().get("/metrics").
+                then().
+                body("'rate-limit.search.rejected'", greaterThanOrEqualTo(1)).
+                // completed once their asynchronous work was
+                body("'concurrency-limit.search.in-flight'", equalTo(0));
+    }
+
+    @Test
+    public void keepsABudgetPerAddressOfASharedUserWhateverClientIdItSends() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            admit(write("10.0.0.1", "client " + i));
+        }
+        try {
+            admit(write("10.0.0.1", "client 2"));
+            fail("A new client id shouldn't come with a new budget");
+        } catch (TooManyRequestsException expected) {
+        }
+        admit(write("10.0.0.2", null));
+    }
+
+    @Test
+    public void keepsABudgetPerClientIdSetByATrustedProxy() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            admit(write("10.0.0.9", "first client"));
+        }
+        try {
+            admit(write("10.0.0.9", "first client"));
+            fail("The client should be over its budget");
+        } catch (TooManyRequestsException expected) {
+        }
+        admit(write("10.0.0.9", "second client"));
+    }
+
+    @Test
+    public void completesAsynchronousRequestsWhichAreNotDispatchedAgain() throws Exception {
+        AdaptiveConcurrencyLimit searches = Iterables.find(admissionControl.getConcurrencyLimits(), limit -> limit.getName().equals("search"));
+        int inFlight = searches.getInFlight();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/articles/search");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        admissionInterceptor.preHandle(request, response, null);
+        request.startAsync();
+        admissionInterceptor.afterConcurrentHandlingStarted(request, response, null);
+        assertThat(searches.getInFlight(), equalTo(inFlight + 1));
+
+        // the client went away
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        asyncContext.getListeners().get(0).onError(new AsyncEvent(asyncContext));
+        assertThat(searches.getInFlight(), equalTo(inFlight));
+
+        // and only once
+        asyncContext.complete();
+        admissionInterceptor.afterCompletion(request, response, null, null);
+        assertThat(searches.getInFlight(), equalTo(inFlight));
+    }
+
+    private static MockHttpServletRequest write(String address, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/articles");
+        request.setRemoteAddr(address);
+        request.setRemoteUser("axel");
+        if(client != null) {
+            request.addHeader(AdmissionInterceptor.CLIENT_HEADER, client);
+        }
+        return request;
+    }
+
+    private void admit(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        admissionInterceptor.preHandle(request, response, null);
+        admissionInterceptor.afterCompletion(request, response, null, null);
+    }
+
+    private static com.jayway.restassured.response.Response create() {
+        return given().
+                contentType(MediaType.APPLICATION_JSON_VALUE).
+                body(ImmutableMap.of("header", "Rate limited", "text", "Text")).
+                when().
+                post("/articles");
+    }
+}
@@ -0,0 +1,137 @@
+package de.axelspringer.publishing.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.jayway.restassured.response.Response;
+import de.axelspringer.publishing.json.ObjectMappers;
+import de.axelspringer.publishing.json.WireFormat;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.service.ArticleService;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.compression.enabled:true", "articles.compression.min-response-size:1024"})
+public class WireFormatTest extends IntegrationTest {
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    ObjectMappers objectMappers;
+
+    @Autowired
+    SecurityProperties securityProperties;
+
+    List<Article> articles;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        articles = ImmutableList.of(
+                articleService.create(newArticle("Header 1", "Text 1", OffsetDateTime.of(2015, 7, 21, 10, 15, 30, 120_000_000, ZoneOffset.UTC))),
+                articleService.create(newArticle("Header 2", "Text 2", null)));
+    }
+
+    @Test
+    public void displayInEveryFormat() throws IOException {
+        Map<String, Object> json = read(WireFormat.JSON, get("/articles/" + articles.get(0).getId(), WireFormat.JSON));
+        assertThat(json, hasEntry("published", (Object) "2015-07-21T10:15:30.120Z"));
+        assertThat(json, hasEntry("authors", (Object) ImmutableList.of("Author1")));
+        for (WireFormat format : ImmutableList.of(WireFormat.SMILE, WireFormat.CBOR)) {
+            Response response = get("/articles/" + articles.get(0).getId(), format);
+            assertThat(response.getContentType(), startsWith(format.getMediaType().toString()));
+            assertThat(read(format, response), equalTo(json));
+        }
+    }
+
+    @Test
+    public void listAndSearchInEveryFormat() throws IOException {
+        Map<String, Object> page = read(WireFormat.JSON, get("/articles", WireFormat.JSON));
+        Map<String, Object> results = read(WireFormat.JSON, get("/articles/search?authors=Author1&fields=header,published", WireFormat.JSON));
+        for (WireFormat format : ImmutableList.of(WireFormat.SMILE, WireFormat.CBOR)) {
+            assertThat(read(format, get("/articles", format)), equalTo(page));
+            assertThat(read(format, get("/articles/search?authors=Author1&fields=header,published", format)), equalTo(results));
+        }
+    }
+
+    @Test
+    public void createInBinaryFormats() throws IOException {
+        for (WireFormat format : ImmutableList.of(WireFormat.SMILE, WireFormat.CBOR)) {
+            byte[] body = objectMappers.get(format).writeValueAsBytes(ImmutableMap.of(
+                    "header", "created as " + format, "authors", ImmutableList.of("Author2"), "published", "2015-07-21T10:15:30Z"));
+            // a binary body can't be sent again after the challenge of the server
+            Map<String, Object> created = read(format, given().
+                    auth().preemptive().basic(securityProperties.getUser().getName(), securityProperties.getUser().getPassword()).
+                    contentType(format.getMediaType().toString()).
+                    accept(format.getMediaType().toString()).
+                    body(body).
+                    when().
+                    post("/articles").
+                    then().
+                    statusCode(HttpStatus.OK.value()).
+                    extract().response());
+            Article article = articleService.read((Integer) created.get("id"));
+            assertThat(article.getHeader(), equalTo("created as " + format));
+            assertThat(article.getPublished(), equalTo(OffsetDateTime.of(2015, 7, 21, 10, 15, 30, 0, ZoneOffset.UTC)));
+        }
+    }
+
+    @Test
+    public void compressesLargeResponses() {
+        for (int i = 0; i < 10; i++) {
+            articleService.create(newArticle("Long " + i, Strings.repeat("a long text ", 20), null));
+        }
+        given().header("Accept-Encoding", "gzip").when().get("/articles").then().
+                statusCode(HttpStatus.OK.value()).
+                header("Content-Encoding", equalTo("gzip")).
+                header("Vary", startsWith("Accept, Accept-Encoding")).
+                body("size()", equalTo(12));
+        // small enough to be sent uncompressed, but the resource may be compressed once it grows
+        given().header("Accept-Encoding", "gzip").when().get("/articles/{id}", articles.get(0).getId()).then().
+                statusCode(HttpStatus.OK.value()).
+                header("Content-Encoding", is(nullValue())).
+                header("Vary", equalTo("Accept, Accept-Encoding"));
+    }
+
+    private static Response get(String path, WireFormat format) {
+        return given().accept(format.getMediaType().toString()).when().get(path).then().statusCode(HttpStatus.OK.value()).extract().response();
+    }
+
+    private Map<String, Object> read(WireFormat format, Response response) throws IOException {
+        ObjectMapper mapper = objectMappers.get(format);
+        return mapper.readValue(response.asByteArray(), new TypeReference<Map<String, Object>>() {});
+    }
+
+    private static Article newArticle(String header, String text, OffsetDateTime published) {
+        Article article = new Article();
+        article.setHeader(header);
+        article.setText(text);
+        article.setPublished(published);
+        article.setAuthors(ImmutableSet.of(Author.fromJson("Author1")));
+        article.setKeywords(ImmutableSet.of("keyword1"));
+        return article;
+    }
+}
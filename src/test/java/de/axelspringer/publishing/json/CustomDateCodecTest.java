@@ -0,0 +1,156 @@
+package de.axelspringer.publishing.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the codec against the {@code java.time} formatting and parsing it replaces, on random dates.
+ * The seed is fixed, so failures are reproducible; the failing input is part of the assertion message.
+ */
+public class CustomDateCodecTest {
+
+    private static final int SAMPLES = 100_000;
+
+    private static final TypeReference<Map<String, OffsetDateTime>> DOCUMENT = new TypeReference<Map<String, OffsetDateTime>>() { };
+
+    private final Random random = new Random(20150721L);
+
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new SimpleModule().
+                addSerializer(OffsetDateTime.class, new CustomDateSerializer()).
+                addDeserializer(OffsetDateTime.class, new CustomDateDeserializer()));
+    }
+
+    @Test
+    public void serializesLikeZonedDateTime() throws Exception {
+        for (int i = 0; i < SAMPLES; i++) {
+            OffsetDateTime value = randomDate();
+            String expected = value.atZoneSameInstant(ZoneOffset.UTC).toString();
+            assertThat(value.toString(), objectMapper.writeValueAsString(ImmutableMap.of("published", value)),
+                    equalTo("{\"published\":\"" + expected + "\"}"));
+            assertThat(expected, IsoDateTimeCodec.format(value, new char[IsoDateTimeCodec.MAX_LENGTH]) >= 0, is(isFastPath(value)));
+        }
+    }
+
+    @Test
+    public void deserializesLikeOffsetDateTime() throws Exception {
+        for (int i = 0; i < SAMPLES; i++) {
+            OffsetDateTime value = randomDate();
+            String text = random.nextBoolean() ? value.toString() : value.atZoneSameInstant(ZoneOffset.UTC).toString();
+            assertThat(text, read(text), equalTo(OffsetDateTime.parse(text)));
+            if(isFastPath(value)) {
+                String utc = value.atZoneSameInstant(ZoneOffset.UTC).toString();
+                assertThat(utc, IsoDateTimeCodec.parse(utc.toCharArray(), 0, utc.length()), notNullValue());
+            }
+        }
+    }
+
+    @Test
+    public void rejectsLikeOffsetDateTime() throws Exception {
+        String alphabet = "0123456789-+:.TZz x";
+        for (int i = 0; i < SAMPLES; i++) {
+            StringBuilder text = new StringBuilder(randomDate().toString());
+            int position = random.nextInt(text.length());
+            switch (random.nextInt(3)) {
+                case 0:
+                    text.setCharAt(position, alphabet.charAt(random.nextInt(alphabet.length())));
+                    break;
+                case 1:
+                    text.deleteCharAt(position);
+                    break;
+                default:
+                    text.insert(position, alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            OffsetDateTime expected;
+            try {
+                expected = OffsetDateTime.parse(text);
+            } catch (DateTimeException expectedFailure) {
+                try {
+                    read(text.toString());
+                    fail(text + " should be rejected");
+                } catch (Exception e) {
+                    Throwable cause = Iterables.find(Throwables.getCausalChain(e), DateTimeException.class::isInstance);
+                    assertThat(text.toString(), cause, instanceOf(expectedFailure.getClass()));
+                    assertThat(text.toString(), cause.getMessage(), equalTo(expectedFailure.getMessage()));
+                }
+                continue;
+            }
+            assertThat(text.toString(), read(text.toString()), equalTo(expected));
+        }
+    }
+
+    private static boolean isFastPath(OffsetDateTime value) {
+        int year = value.atZoneSameInstant(ZoneOffset.UTC).getYear();
+        return year >= 0 && year <= 9999;
+    }
+
+    private OffsetDateTime read(String text) throws Exception {
+        Map<String, OffsetDateTime> document = objectMapper.readValue("{\"other\":null,\"published\":\"" + text + "\"}", DOCUMENT);
+        return document.get("published");
+    }
+
+    /**
+     * Mostly years 0000-9999, sometimes beyond, with every shape of seconds, fraction and offset.
+     */
+    private OffsetDateTime randomDate() {
+        long range = random.nextInt(10) == 0 ? 1_000_000_000_000L : 250_000_000_000L;
+        long epochSecond = -63_000_000_000L + (long) (random.nextDouble() * range);
+        int nano;
+        switch (random.nextInt(5)) {
+            case 0:
+                epochSecond -= Math.floorMod(epochSecond, 60);
+                nano = 0;
+                break;
+            case 1:
+                nano = 0;
+                break;
+            case 2:
+                nano = random.nextInt(1000) * 1000_000;
+                break;
+            case 3:
+                nano = random.nextInt(1000_000) * 1000;
+                break;
+            default:
+                nano = random.nextInt(1000_000_000);
+        }
+        int offsetSeconds;
+        switch (random.nextInt(4)) {
+            case 0:
+                offsetSeconds = 0;
+                break;
+            case 1:
+                offsetSeconds = (random.nextInt(73) - 36) * 900;
+                break;
+            case 2:
+                offsetSeconds = (random.nextInt(37) - 18) * 3600;
+                break;
+            default:
+                offsetSeconds = random.nextInt(2 * 18 * 3600 + 1) - 18 * 3600;
+        }
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), ZoneOffset.ofTotalSeconds(offsetSeconds));
+    }
+}
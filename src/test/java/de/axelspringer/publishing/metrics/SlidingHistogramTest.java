@@ -0,0 +1,36 @@
+package de.axelspringer.publishing.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class SlidingHistogramTest {
+
+    @Test
+    public void keepsValuesForTheWindowWhateverReadsThem() {
+        AtomicLong nanoTime = new AtomicLong();
+        SlidingHistogram window = new SlidingHistogram(200, 2, nanoTime::get);
+        window.recordValue(3);
+        window.recordValue(7);
+        window.recordValue(1);
+        for (int i = 0; i < 2; i++) {
+            Histogram histogram = window.getHistogram();
+            assertThat(histogram.getTotalCount(), equalTo(3L));
+            assertThat(histogram.getValueAtPercentile(50), equalTo(3L));
+            assertThat(histogram.getMaxValue(), equalTo(7L));
+        }
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(180));
+        assertThat(window.getHistogram().getTotalCount(), equalTo(3L));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(window.getHistogram().getTotalCount(), equalTo(0L));
+        window.recordValue(2);
+        assertThat(window.getHistogram().getTotalCount(), equalTo(1L));
+        assertThat(window.getHistogram().getMaxValue(), equalTo(2L));
+    }
+}
@@ -0,0 +1,35 @@
+package de.axelspringer.publishing.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class SlidingWindowTest {
+
+    @Test
+    public void keepsValuesForTheWindowWhateverReadsThem() {
+        AtomicLong nanoTime = new AtomicLong();
+        SlidingWindow window = new SlidingWindow(200, nanoTime::get);
+        window.record(3);
+        window.record(7);
+        window.record(1);
+        for (int i = 0; i < 2; i++) {
+            assertThat(window.getCount(), equalTo(3L));
+            assertThat(window.getSum(), equalTo(11L));
+            assertThat(window.getMax(), equalTo(7L));
+        }
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(180));
+        assertThat(window.getCount(), equalTo(3L));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(window.getCount(), equalTo(0L));
+        assertThat(window.getMax(), equalTo(0L));
+        window.record(2);
+        assertThat(window.getSum(), equalTo(2L));
+        assertThat(window.getMax(), equalTo(2L));
+    }
+}
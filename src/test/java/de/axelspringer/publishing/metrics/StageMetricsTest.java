@@ -0,0 +1,91 @@
+package de.axelspringer.publishing.metrics;
+
+import com.google.common.collect.ImmutableSet;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.service.ArticleService;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class StageMetricsTest extends IntegrationTest {
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void recordsStagesOfRequests() {
+        List<Article> articles = IntStream.range(0, 3).
+                mapToObj(i -> articleService.create(newArticle("Header " + i, "stage-metrics"))).
+                collect(Collectors.toList());
+        when().get("/articles/search?keywords=stage-metrics").then().statusCode(HttpStatus.OK.value());
+        when().get("/articles/{id}", articles.get(0).getId()).then().statusCode(HttpStatus.OK.value());
+
+        when().
+                get("/metrics").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("'stage.find-ids.keywords.count'", greaterThanOrEqualTo(1)).
+                body("'stage.find-ids.keywords.rows.max'", equalTo(3)).
+                body("'stage.find-ids.keywords.statements.max'", equalTo(1)).
+                body("'stage.find-ids.keywords.latency-micros.max'", greaterThan(0)).
+                body("'stage.read.rows.max'", equalTo(1)).
+                body("'stage.display.serialize.json.count'", greaterThanOrEqualTo(1)).
+                body("'stage.authors.resolve.count'", greaterThanOrEqualTo(3)).
+                body("'hibernate.statements.prepared'", greaterThan(0)).
+                body("'hibernate.statements.n-plus-one'", greaterThanOrEqualTo(0));
+    }
+
+    @Test
+    public void suspectsSelectsRepeatedPerEntity() {
+        List<Integer> ids = IntStream.range(0, 12).
+                mapToObj(i -> articleService.create(newArticle("Header " + i, "n-plus-one")).getId()).
+                collect(Collectors.toList());
+        entityManagerFactory.getCache().evictAll();
+        long suspected = StatementCounter.getSuspectedNPlusOne();
+
+        long statements = new TransactionTemplate(transactionManager).execute(status -> {
+            long mark = StatementCounter.mark();
+            ids.forEach(id -> entityManager.find(Article.class, id));
+            return StatementCounter.since(mark);
+        });
+        assertThat(statements, equalTo(12L));
+        assertThat(StatementCounter.getSuspectedNPlusOne(), equalTo(suspected + 1));
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            StatementCounter.mark();
+            return articleService.findPage(articleService.findPageVersions(ids.get(0) - 1, ids.size()));
+        });
+        assertThat(StatementCounter.getSuspectedNPlusOne(), equalTo(suspected + 1));
+    }
+
+    private static Article newArticle(String header, String keyword) {
+        Article article = new Article();
+        article.setHeader(header);
+        article.setKeywords(ImmutableSet.of(keyword));
+        article.setAuthors(ImmutableSet.of(Author.fromJson("Stage Metrics")));
+        return article;
+    }
+}
@@ -0,0 +1,92 @@
+package de.axelspringer.publishing.persistence;
+
+import com.google.common.collect.ImmutableSet;
+import de.axelspringer.publishing.config.ReplicaTestConfig;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.service.ArticleService;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.replicas.enabled:true",
+        "articles.replicas.health-check-millis:50", "articles.replicas.read-your-writes-millis:1000"})
+public class ReplicaRoutingTest extends IntegrationTest {
+
+    private static final String CLIENT = "X-Client-Id";
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    ReplicaTestConfig replicaTestConfig;
+
+    @Test
+    public void readsOwnWritesFromThePrimaryAndOthersFromTheReplica() throws InterruptedException {
+        Integer id = given().
+                header(CLIENT, "writer").
+                contentType("application/json").
+                body(newArticle("replica-routing")).
+                when().post("/articles").then().
+                statusCode(HttpStatus.OK.value()).
+                extract().path("id");
+        long pinnedReads = replicaRoutingDataSource.getPinnedReads();
+
+        given().header(CLIENT, "writer").get("/articles/{id}", id).then().statusCode(HttpStatus.OK.value());
+        given().header(CLIENT, "writer").get("/articles/search?keywords=replica-routing").then().body("results", contains(id));
+        assertThat(replicaRoutingDataSource.getPinnedReads(), greaterThan(pinnedReads));
+
+        // nothing is replicated
+        given().header(CLIENT, "reader").get("/articles/{id}", id).then().statusCode(HttpStatus.NOT_FOUND.value());
+        given().header(CLIENT, "reader").get("/articles/search?keywords=replica-routing").then().body("results", empty());
+
+        Thread.sleep(1500);
+        given().header(CLIENT, "writer").get("/articles/{id}", id).then().statusCode(HttpStatus.NOT_FOUND.value());
+
+        when().
+                get("/metrics").
+                then().
+                body("'datasource.replicas.total'", equalTo(1)).
+                body("'datasource.replicas.connections'", greaterThan(0)).
+                body("'datasource.primary.pinned-reads'", greaterThan(0));
+    }
+
+    @Test
+    public void failsOverToThePrimaryUntilTheReplicaIsBack() throws InterruptedException {
+        Integer id = articleService.create(newArticle("replica-failover")).getId();
+        given().header(CLIENT, "reader").get("/articles/{id}", id).then().statusCode(HttpStatus.NOT_FOUND.value());
+        long failovers = replicaRoutingDataSource.getFailovers();
+
+        replicaTestConfig.disconnectReplica();
+        try {
+            given().header(CLIENT, "reader").get("/articles/{id}", id).then().statusCode(HttpStatus.OK.value());
+            assertThat(replicaRoutingDataSource.getFailovers(), equalTo(failovers + 1));
+            assertThat(replicaRoutingDataSource.getHealthyReplicas(), equalTo(0));
+        } finally {
+            replicaTestConfig.reconnectReplica();
+        }
+
+        for (int i = 0; i < 100 && replicaRoutingDataSource.getHealthyReplicas() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(replicaRoutingDataSource.getHealthyReplicas(), equalTo(1));
+        given().header(CLIENT, "reader").get("/articles/{id}", id).then().statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    private static Article newArticle(String keyword) {
+        Article article = new Article();
+        article.setHeader("Routed");
+        article.setKeywords(ImmutableSet.of(keyword));
+        article.setAuthors(ImmutableSet.of(Author.fromJson("Replica Routing")));
+        return article;
+    }
+}
@@ -0,0 +1,109 @@
+package de.axelspringer.publishing.persistence;
+
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.hsqldb.jdbc.JDBCDriver;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class SchemaMigrationTest extends IntegrationTest {
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void migratesToTheEntities() {
+        assertThat(flyway.info().pending(), is(emptyArray()));
+        assertThat(flyway.info().current().getVersion().toString(), equalTo("6"));
+    }
+
+    @Test
+    public void searchCriteriaUseIndexes() {
+        String keywords = plan(ArticleRepositoryImpl.findIdsSql(true, false, false, false, false));
+        assertThat(access(keywords, "ARTICLE_KEYWORDS"), equalTo("INDEX PRED ARTICLE_KEYWORDS_KEYWORD"));
+        assertThat(access(keywords, "ARTICLE"), startsWith("INDEX PRED"));
+
+        // HSQLDB indexes the foreign key of the join table by itself
+        String authors = plan(ArticleRepositoryImpl.findIdsSql(false, true, false, false, false));
+        assertThat(access(authors, "AUTHOR"), startsWith("INDEX PRED"));
+        assertThat(access(authors, "ARTICLE_AUTHORS"), startsWith("INDEX PRED"));
+        assertThat(access(authors, "ARTICLE"), startsWith("INDEX PRED"));
+
+        String published = plan(ArticleRepositoryImpl.findIdsSql(false, false, true, true, false));
+        assertThat(access(published, "ARTICLE"), equalTo("INDEX PRED ARTICLE_PUBLISHED"));
+
+        String all = plan(ArticleRepositoryImpl.findIdsSql(true, true, true, true, false));
+        assertThat(access(all, "ARTICLE"), equalTo("INDEX PRED ARTICLE_PUBLISHED"));
+        assertThat(access(all, "ARTICLE_KEYWORDS"), equalTo("INDEX PRED ARTICLE_KEYWORDS_KEYWORD"));
+    }
+
+    @Test
+    public void migratesSerializedPublicationDates() throws IOException {
+        DataSource dataSource = new SimpleDriverDataSource(new JDBCDriver(), "jdbc:hsqldb:mem:schema-migration-test", "sa", "");
+        JdbcTemplate database = new JdbcTemplate(dataSource);
+        Flyway migrations = new Flyway();
+        migrations.setDataSource(dataSource);
+        migrations.setLocations(flyway.getLocations());
+        try {
+            migrations.setTarget(MigrationVersion.fromVersion("1"));
+            migrations.migrate();
+            OffsetDateTime published = OffsetDateTime.of(2015, 7, 21, 12, 15, 30, 123_456_789, ZoneOffset.ofHours(2));
+            database.update("INSERT INTO article (id, header, published) VALUES (?, ?, ?)", 1, "Published", serialize(published));
+            database.update("INSERT INTO article (id, header) VALUES (?, ?)", 70, "Unpublished");
+
+            migrations.setTarget(MigrationVersion.LATEST);
+            migrations.migrate();
+            assertThat(database.queryForList("SELECT published_nanos FROM article ORDER BY id", Long.class),
+                    contains(EpochNanosConverter.toNanos(published), null));
+            assertThat(EpochNanosConverter.fromNanos(database.queryForObject("SELECT published_nanos FROM article WHERE id = 1", Long.class)),
+                    equalTo(OffsetDateTime.of(2015, 7, 21, 10, 15, 30, 123_456_789, ZoneOffset.UTC)));
+            assertThat(database.queryForObject("CALL NEXT VALUE FOR article_seq", Long.class), equalTo(70L + 50));
+        } finally {
+            migrations.clean();
+        }
+    }
+
+    private String plan(String query) {
+        String sql = query.
+                replace(":keywords", "'keyword1', 'keyword2'").
+                replace(":authors", "'Author1'").
+                replace(":publishedSince", "0").
+                replace(":publishedBefore", "1000");
+        return jdbcTemplate.queryForList("EXPLAIN PLAN FOR " + sql, String.class).stream().collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * How the first range over the table is accessed, and by which index.
+     */
+    private static String access(String plan, String table) {
+        Matcher matcher = Pattern.compile("table=" + table + "\\s.*?access=([A-Z ]+)\\s.*?index=(\\w+)", Pattern.DOTALL).matcher(plan);
+        return matcher.find() ? matcher.group(1) + " " + matcher.group(2) : plan;
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package de.axelspringer.publishing.service;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * The token buckets and concurrency limits the {@link AdmissionControl} is made of.
+ */
+public class AdmissionControlTest {
+
+    @Test
+    public void takesTokensUpToTheBurstThenAtTheRate() {
+        TokenBuckets buckets = new TokenBuckets("test", 10, 5, 100);
+        for (int i = 0; i < 5; i++) {
+            assertThat(buckets.tryTake("client"), equalTo(0L));
+        }
+        long waitNanos = buckets.tryTake("client");
+        assertThat(waitNanos, allOf(greaterThan(0L), lessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100))));
+        assertThat(buckets.tryTake("other client"), equalTo(0L));
+        assertThat(buckets.getRejected(), equalTo(1L));
+        assertThat(buckets.getClients(), equalTo(2));
+    }
+
+    @Test
+    public void dropsFullBucketsOnceThereAreMaxClients() throws InterruptedException {
+        TokenBuckets buckets = new TokenBuckets("test", 1000, 1, 2);
+        assertThat(buckets.tryTake("client"), equalTo(0L));
+        assertThat(buckets.tryTake("other client"), equalTo(0L));
+        assertThat(buckets.getClients(), equalTo(2));
+
+        // full again
+        Thread.sleep(10);
+        assertThat(buckets.tryTake("new client"), equalTo(0L));
+        assertThat(buckets.getClients(), equalTo(1));
+        assertThat(buckets.tryTake("client"), equalTo(0L));
+        assertThat(buckets.getClients(), equalTo(2));
+    }
+
+    @Test
+    public void rejectsRequestsOverTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 4, 2, 8, 60000);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire(), equalTo(true));
+        }
+        assertThat(limit.tryAcquire(), equalTo(false));
+        limit.release(1);
+        assertThat(limit.tryAcquire(), equalTo(true));
+        assertThat(limit.getInFlight(), equalTo(4));
+        assertThat(limit.getRejected(), equalTo(1L));
+    }
+
+    @Test
+    public void raisesTheLimitWhileLatencyHoldsAndLowersItWhenLatencyRises() {
+        // a window per request
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 4, 2, 16, 0);
+        saturate(limit, TimeUnit.MILLISECONDS.toNanos(1), 20);
+        assertThat(limit.getLimit(), equalTo(16));
+
+        saturate(limit, TimeUnit.MILLISECONDS.toNanos(10), 1);
+        assertThat(limit.getLimit(), lessThanOrEqualTo(12));
+
+        // the latency becomes the new normal
+        saturate(limit, TimeUnit.MILLISECONDS.toNanos(10), 10);
+        assertThat(limit.getLimit(), equalTo(16));
+    }
+
+    @Test
+    public void neitherAllocatesOnceWarm() {
+        TokenBuckets buckets = new TokenBuckets("test", 1000, 100, 100);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 4, 2, 8, 0);
+        admit(buckets, limit, 100_000);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        admit(buckets, limit, 100_000);
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        // a single object per call would be more than a megabyte
+        assertThat(allocated, lessThan(10_000L));
+    }
+
+    /**
+     * Fills the limit and completes all requests with the latency, the given number of times.
+     */
+    private static void saturate(AdaptiveConcurrencyLimit limit, long latencyNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            while (limit.tryAcquire()) {
+                // fill
+            }
+            while (limit.getInFlight() > 0) {
+                limit.release(latencyNanos);
+            }
+        }
+    }
+
+    private static void admit(TokenBuckets buckets, AdaptiveConcurrencyLimit limit, int requests) {
+        for (int i = 0; i < requests; i++) {
+            buckets.tryTake("client");
+            if(limit.tryAcquire()) {
+                limit.release(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableSet;
+import com.jayway.restassured.response.Response;
+import de.axelspringer.publishing.exception.NotFoundException;
+import de.axelspringer.publishing.exception.PreconditionFailedException;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleChange;
+import de.axelspringer.publishing.model.ArticleChange.Operation;
+import de.axelspringer.publishing.persistence.ArticleChangeRepository;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.changes.max-waiting:1", "articles.changes.poll-millis:100"})
+public class ArticleChangeLogTest extends IntegrationTest {
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleChangeLog articleChangeLog;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    ArticleChangeRepository articleChangeRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        articleChangeRepository.deleteAll();
+    }
+
+    @Test
+    public void appendsChangesOfCommittedWrites() {
+        Article article = articleService.create(newArticle("Header"));
+        articleService.update(newArticle("Updated", article.getId()));
+        try {
+            articleService.update(newArticle("Conflicting", article.getId()), ImmutableSet.of(0));
+            fail("Update of an outdated version should fail");
+        } catch (PreconditionFailedException expected) {
+        }
+        articleService.delete(article.getId());
+        try {
+            articleService.delete(article.getId());
+            fail("Deleting a missing article should fail");
+        } catch (NotFoundException expected) {
+        }
+        articleService.createAll(newArticles(3));
+
+        List<ArticleChange> changes = articleChangeLog.changesSince(0, 100);
+        assertThat(changes.stream().map(ArticleChange::getOperation).collect(Collectors.toList()),
+                contains(Operation.CREATED, Operation.UPDATED, Operation.DELETED, Operation.CREATED, Operation.CREATED, Operation.CREATED));
+        assertThat(changes.subList(0, 3).stream().map(ArticleChange::getArticleId).collect(Collectors.toSet()), contains(article.getId()));
+        assertThat(changes.subList(0, 3).stream().map(ArticleChange::getVersion).collect(Collectors.toList()), contains(0, 1, null));
+        assertThat(changes.stream().map(ArticleChange::getPosition).sorted().collect(Collectors.toList()),
+                equalTo(changes.stream().map(ArticleChange::getPosition).collect(Collectors.toList())));
+        assertThat(articleChangeLog.changesSince(changes.get(3).getPosition(), 1).stream().map(ArticleChange::getPosition).collect(Collectors.toList()),
+                contains(changes.get(4).getPosition()));
+    }
+
+    @Test
+    public void holdsBackChangesBehindUncommittedOnes() throws Exception {
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slowWrite = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            articleChangeLog.append(-1, 0, Operation.CREATED);
+            appended.countDown();
+            try {
+                commit.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertThat(appended.await(10, TimeUnit.SECONDS), is(true));
+        Article article = articleService.create(newArticle("Header"));
+        assertThat(articleChangeLog.changesSince(0, 100), is(empty()));
+
+        commit.countDown();
+        slowWrite.get(10, TimeUnit.SECONDS);
+        assertThat(articleChangeLog.changesSince(0, 100).stream().map(ArticleChange::getArticleId).collect(Collectors.toList()),
+                contains(-1, article.getId()));
+    }
+
+    @Test
+    public void longPollsForChanges() throws Exception {
+        long since = position(when().get("/articles/changes?wait=0").then().
+                statusCode(HttpStatus.OK.value()).
+                body("changes", is(empty())).
+                extract().response());
+
+        CompletableFuture<Response> poll = CompletableFuture.supplyAsync(() -> when().get("/articles/changes?since={since}&wait=10000", since));
+        awaitWaiting(1);
+        when().get("/articles/changes?since={since}&wait=10000", since).then().statusCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+        Article article = articleService.create(newArticle("Header"));
+
+        Response response = poll.get(5, TimeUnit.SECONDS);
+        response.then().
+                statusCode(HttpStatus.OK.value()).
+                body("changes.articleId", contains(article.getId())).
+                body("changes.operation", contains("CREATED"));
+        long next = position(response);
+        assertThat(next, greaterThan(since));
+        when().get("/articles/changes?since={next}&wait=200", next).then().
+                statusCode(HttpStatus.OK.value()).
+                body("changes", is(empty())).
+                body("next", equalTo((int) next));
+        when().get("/articles/changes?limit=0").then().statusCode(HttpStatus.BAD_REQUEST.value());
+        when().get("/articles/changes?wait=3600000").then().statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    private void awaitWaiting(int consumers) throws InterruptedException {
+        for (int i = 0; i < 100 && articleChangeLog.getWaiting() < consumers; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(articleChangeLog.getWaiting(), equalTo(consumers));
+    }
+
+    private static long position(Response response) {
+        return ((Number) response.path("next")).longValue();
+    }
+
+    private static List<Article> newArticles(int count) {
+        return IntStream.range(0, count).mapToObj(i -> newArticle("Header " + i)).collect(Collectors.toList());
+    }
+
+    private static Article newArticle(String header) {
+        return newArticle(header, null);
+    }
+
+    private static Article newArticle(String header, Integer id) {
+        Article article = new Article();
+        article.setId(id);
+        article.setHeader(header);
+        return article;
+    }
+}
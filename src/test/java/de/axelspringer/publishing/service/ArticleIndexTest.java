@@ -0,0 +1,161 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleChange;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.AuthorRepository;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.index.enabled:true"})
+public class ArticleIndexTest extends IntegrationTest {
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleIndex articleIndex;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    ArticleChangeLog articleChangeLog;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+    List<Article> articles;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+        articleIndex.rebuild();
+
+        articles = ImmutableList.of(
+                articleService.create(newArticle("Header 1", Sets.newHashSet("Author1", "Author2"), Sets.newHashSet("keyword1", "keyword2"), now)),
+                articleService.create(newArticle("Header 2", Sets.newHashSet("Author1"), Sets.newHashSet("keyword2", "keyword3"), null)),
+                articleService.create(newArticle("Header 3", Sets.newHashSet("Author2"), Sets.newHashSet("keyword1", "keyword3"), now.minusYears(1))));
+    }
+
+    @Test
+    public void findMatchesRepository() {
+        assertSameResults(ImmutableList.of("keyword1", "abcdef"), null, null, null);
+        assertSameResults(ImmutableList.of("keyword2"), ImmutableList.of("Author2"), null, null);
+        assertSameResults(null, ImmutableList.of("Author1", "Author2"), now.minusDays(1), null);
+        assertSameResults(null, null, null, now);
+        assertSameResults(ImmutableList.of("keyword3"), null, now.minusYears(2), now.plusDays(1));
+        assertSameResults(null, null, now, now);
+    }
+
+    @Test
+    public void writeThrough() {
+        Article article = newArticle("Header 1", Sets.newHashSet("Author3"), Sets.newHashSet("keyword4"), now.minusDays(2));
+        article.setId(articles.get(0).getId());
+        articleService.update(article);
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword1"), null, null, null)), contains(articles.get(2).getId()));
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword4"), ImmutableList.of("Author3"), now.minusDays(3), now.minusDays(1))),
+                contains(articles.get(0).getId()));
+
+        articleService.delete(articles.get(1).getId());
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword3"), null, null, null)), contains(articles.get(2).getId()));
+
+        assertThat(articleIndex.size(), equalTo(2));
+        assertThat(articleIndex.verify(), is(empty()));
+    }
+
+    @Test
+    public void ignoresOutdatedUpdates() {
+        Article article = newArticle("Header 1", Sets.newHashSet("Author3"), Sets.newHashSet("keyword4"), null);
+        article.setId(articles.get(0).getId());
+        Article updated = articleService.update(article);
+
+        Article outdated = newArticle("Header 1", Sets.newHashSet("Author1"), Sets.newHashSet("keyword5"), null);
+        outdated.setId(updated.getId());
+        outdated.setVersion(updated.getVersion() - 1);
+        articleIndex.index(outdated);
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword4"), null, null, null)), contains(updated.getId()));
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword5"), null, null, null)), is(empty()));
+
+        articleService.delete(updated.getId());
+        articleIndex.index(updated);
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword4"), null, null, null)), is(empty()));
+        assertThat(articleIndex.verify(), is(empty()));
+    }
+
+    @Test
+    public void followsChangesOfOtherInstances() {
+        // written like by another instance, which doesn't update this index
+        new TransactionTemplate(transactionManager).execute(status -> {
+            Article article = articleRepository.findForDisplay(articles.get(0).getId());
+            article.setKeywords(Sets.newHashSet("keyword4"));
+            articleRepository.saveAndFlush(article);
+            articleChangeLog.append(article.getId(), article.getVersion(), ArticleChange.Operation.UPDATED);
+            articleRepository.delete(articles.get(1).getId());
+            articleChangeLog.append(articles.get(1).getId(), null, ArticleChange.Operation.DELETED);
+            return null;
+        });
+        articleIndex.refresh();
+
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword4"), null, null, null)), contains(articles.get(0).getId()));
+        assertThat(Ints.asList(articleIndex.find(ImmutableList.of("keyword2"), null, null, null)), is(empty()));
+        assertThat(articleIndex.verify(), is(empty()));
+    }
+
+    @Test
+    public void verifyDetectsChangesBehindTheIndex() {
+        articleRepository.delete(articles.get(0).getId());
+        assertThat(articleIndex.verify(), contains(articles.get(0).getId()));
+
+        articleIndex.rebuild();
+        assertThat(articleIndex.verify(), is(empty()));
+    }
+
+    @Test
+    public void search() {
+        when().
+                get("/articles/search?keywords=keyword1&authors=Author1").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results", contains(articles.get(0).getId()));
+    }
+
+    private void assertSameResults(List<String> keywords, List<String> authors, OffsetDateTime publishedSince, OffsetDateTime publishedBefore) {
+        List<Integer> expected = articleService.find(keywords, authors, publishedSince, publishedBefore).stream().
+                map(Article::getId).sorted().collect(Collectors.toList());
+        assertThat(Ints.asList(articleIndex.find(keywords, authors, publishedSince, publishedBefore)), equalTo(expected));
+    }
+
+    private Article newArticle(String header, Set<String> authors, Set<String> keywords, OffsetDateTime published) {
+        Article article = new Article();
+        article.setHeader(header);
+        article.setAuthors(authors.stream().map(Author::fromJson).collect(Collectors.toSet()));
+        article.setKeywords(keywords);
+        article.setPublished(published);
+        return article;
+    }
+}
@@ -0,0 +1,171 @@
+package de.axelspringer.publishing.service;
+
+import de.axelspringer.publishing.json.WireFormat;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * The cache with room for eight blocks of 16 bytes.
+ */
+public class ArticleResponseCacheTest {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int BLOCKS = 8;
+
+    private ArticleResponseCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        cache = new ArticleResponseCache();
+        ReflectionTestUtils.setField(cache, "maxBytes", (long) BLOCKS * BLOCK_SIZE);
+        ReflectionTestUtils.setField(cache, "blockSize", BLOCK_SIZE);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+    }
+
+    @Test
+    public void servesDocumentsSpanningBlocksFromOffHeap() throws IOException {
+        assertThat(read(1, 1, 40), equalTo(document(1, 1, 40)));
+        ArticleResponseCache.Body body = get(1, 1, 40);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        body.release();
+
+        assertThat(out.toByteArray(), equalTo(document(1, 1, 40)));
+        assertThat(body.length(), equalTo(40));
+        assertThat(loads.get(), equalTo(1));
+        assertThat(cache.getHits(), equalTo(1L));
+        assertThat(cache.getMisses(), equalTo(1L));
+        assertThat(cache.getUsedBytes(), equalTo(40L));
+        assertThat(cache.getAllocatedBytes(), equalTo((long) BLOCKS * BLOCK_SIZE));
+    }
+
+    @Test
+    public void replacesOtherVersionsAndInvalidatedDocuments() {
+        read(1, 1, 10);
+        assertThat(read(1, 2, 10), equalTo(document(1, 2, 10)));
+        assertThat(read(1, 2, 10), equalTo(document(1, 2, 10)));
+        assertThat(loads.get(), equalTo(2));
+
+        cache.invalidate(1);
+        assertThat(cache.size(), equalTo(0L));
+        read(1, 2, 10);
+        assertThat(loads.get(), equalTo(3));
+        assertThat(cache.getUsedBytes(), equalTo(10L));
+    }
+
+    @Test
+    public void storesDocumentsUnderTheVersionTheyWereLoadedFrom() {
+        // version 1 was read, but the article changed to version 2 before it was loaded
+        ArticleResponseCache.Body loaded = get(1, 1, 2, 10);
+        loaded.release();
+        assertThat(loaded.getVersion(), equalTo(2));
+        assertThat(loaded.getLastModified(), equalTo(2000L));
+
+        ArticleResponseCache.Body cached = get(1, 2, 10);
+        assertThat(cached.toByteArray(), equalTo(document(1, 2, 10)));
+        assertThat(cached.getVersion(), equalTo(2));
+        assertThat(cached.getLastModified(), equalTo(2000L));
+        cached.release();
+        assertThat(loads.get(), equalTo(1));
+
+        read(1, 1, 10);
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    public void admitsNewDocumentsOnlyIfMorePopularThanTheLeastRecentlyUsed() {
+        for (int round = 0; round < 3; round++) {
+            for (int id = 1; id <= BLOCKS; id++) {
+                read(id, 1, BLOCK_SIZE);
+            }
+        }
+        assertThat(cache.size(), equalTo((long) BLOCKS));
+
+        read(100, 1, BLOCK_SIZE);
+        assertThat(cache.getRejections(), equalTo(1L));
+        assertThat(cache.getEvictions(), equalTo(0L));
+
+        for (int i = 0; i < 5; i++) {
+            read(100, 1, BLOCK_SIZE);
+        }
+        int before = loads.get();
+        read(100, 1, BLOCK_SIZE);
+        assertThat(loads.get(), equalTo(before));
+        assertThat(cache.getEvictions(), equalTo(1L));
+        assertThat(cache.size(), equalTo((long) BLOCKS));
+        assertThat(cache.getAllocatedBytes(), equalTo((long) BLOCKS * BLOCK_SIZE));
+    }
+
+    @Test
+    public void keepsPinnedBlocksUntilReleased() {
+        for (int round = 0; round < 3; round++) {
+            read(1, 1, 4 * BLOCK_SIZE);
+        }
+        ArticleResponseCache.Body pinned = get(1, 1, 4 * BLOCK_SIZE);
+        cache.invalidate(1);
+        for (int round = 0; round < 3; round++) {
+            for (int id = 2; id <= 9; id++) {
+                read(id, 1, BLOCK_SIZE);
+            }
+        }
+        assertThat(cache.size(), lessThanOrEqualTo(4L));
+        assertThat(pinned.toByteArray(), equalTo(document(1, 1, 4 * BLOCK_SIZE)));
+
+        pinned.release();
+        for (int round = 0; round < 3; round++) {
+            for (int id = 2; id <= 9; id++) {
+                read(id, 1, BLOCK_SIZE);
+            }
+        }
+        assertThat(cache.size(), equalTo((long) BLOCKS));
+    }
+
+    @Test
+    public void doesNotCacheDocumentsLargerThanTheBudget() {
+        byte[] large = read(1, 1, BLOCKS * BLOCK_SIZE + 1);
+        assertThat(large, equalTo(document(1, 1, BLOCKS * BLOCK_SIZE + 1)));
+        assertThat(cache.size(), equalTo(0L));
+        assertThat(cache.getRejections(), equalTo(1L));
+    }
+
+    private byte[] read(int id, int version, int length) {
+        ArticleResponseCache.Body body = get(id, version, length);
+        try {
+            return body.toByteArray();
+        } finally {
+            body.release();
+        }
+    }
+
+    private ArticleResponseCache.Body get(int id, int version, int length) {
+        return get(id, version, version, length);
+    }
+
+    private ArticleResponseCache.Body get(int id, int version, int loadedVersion, int length) {
+        return cache.get(id, version, WireFormat.JSON, () -> {
+            loads.incrementAndGet();
+            return new ArticleResponseCache.Document(loadedVersion, loadedVersion * 1000L, document(id, loadedVersion, length));
+        });
+    }
+
+    private static byte[] document(int id, int version, int length) {
+        byte[] document = new byte[length];
+        Arrays.fill(document, (byte) (id * 31 + version));
+        for (int i = 0; i < length; i += 7) {
+            document[i] = (byte) i;
+        }
+        return document;
+    }
+}
@@ -0,0 +1,219 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.jayway.restassured.response.Response;
+import de.axelspringer.publishing.exception.PreconditionFailedException;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.AuthorRepository;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.jayway.restassured.RestAssured.given;
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips through snapshots of more than two chunks of articles.
+ */
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.snapshot.import-threads:3"})
+public class ArticleSnapshotsTest extends IntegrationTest {
+
+    private static final int ARTICLES = 2 * ArticleSnapshots.CHUNK_SIZE + 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    ArticleSnapshots articleSnapshots;
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    SecurityProperties securityProperties;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+        List<Article> articles = Lists.newArrayList();
+        for (int i = 0; i < ARTICLES; i++) {
+            articles.add(article(i));
+            if(articles.size() == 500) {
+                articleService.createAll(articles);
+                articles.clear();
+            }
+        }
+        articleService.createAll(articles);
+        Author unreferenced = new Author();
+        unreferenced.setName("Nobody's Author");
+        authorRepository.save(unreferenced);
+    }
+
+    @Test
+    public void importsWhatWasExported() throws IOException {
+        List<String> exported = corpus();
+        long authors = authorRepository.count();
+        Path file = folder.getRoot().toPath().resolve("articles.snapshot");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ArticleSnapshots.Totals totals = articleSnapshots.export(channel);
+            assertThat(totals.getArticles(), equalTo((long) ARTICLES));
+            assertThat(totals.getAuthors(), equalTo(authors));
+            assertThat(totals.getKeywords(), equalTo(53L));
+        }
+
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ArticleSnapshots.Totals totals = articleSnapshots.importFrom(channel);
+            assertThat(totals.getArticles(), equalTo((long) ARTICLES));
+            assertThat(totals.getAuthors(), equalTo(authors));
+        }
+
+        assertThat(corpus(), equalTo(exported));
+        assertThat(authorRepository.count(), equalTo(authors));
+        Integer maxId = articleService.findAll().stream().map(Article::getId).max(Integer::compare).get();
+        assertThat(articleService.create(article(ARTICLES)).getId(), greaterThan(maxId));
+        assertThat(articleService.create(article(ARTICLES + 2)).getAuthors(), hasSize(1));
+    }
+
+    @Test
+    public void rejectsCorruptAndTruncatedSnapshotsWithoutImportingAnything() throws IOException {
+        byte[] snapshot = export();
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        byte[] corrupt = snapshot.clone();
+        corrupt[corrupt.length / 2] ^= 1;
+        assertRejected(corrupt, "Snapshot is corrupt: checksum mismatch");
+        assertRejected(Arrays.copyOf(snapshot, snapshot.length - 1), "Snapshot is truncated");
+        assertRejected("not a snapshot".getBytes(), "Not an article snapshot");
+
+        assertThat(articleRepository.count(), equalTo(0L));
+        assertThat(authorRepository.count(), equalTo(0L));
+    }
+
+    @Test
+    public void importsOnlyIntoAnEmptyDatabase() throws IOException {
+        try {
+            articleSnapshots.importFrom(Channels.newChannel(new ByteArrayInputStream(export())));
+            fail();
+        } catch (PreconditionFailedException e) {
+            assertThat(articleRepository.count(), equalTo((long) ARTICLES));
+        }
+    }
+
+    @Test
+    public void exportsAndImportsOverHttp() {
+        byte[] snapshot = when().
+                get("/articles/_snapshot").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE).
+                extract().asByteArray();
+        Integer id = articleService.findAll().get(0).getId();
+
+        // rejected before the body is read
+        post(Arrays.copyOf(snapshot, 16)).then().statusCode(HttpStatus.PRECONDITION_FAILED.value());
+
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+        post(snapshot).
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("articles", equalTo(ARTICLES)).
+                body("keywords", equalTo(53));
+        when().get("/articles/{id}", id).then().statusCode(HttpStatus.OK.value()).body("header", equalTo("Header 0"));
+
+        snapshot[snapshot.length - 3] ^= 1;
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+        post(snapshot).then().statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    /**
+     * Authenticates up front, as the body can't be sent again after a challenge.
+     */
+    private Response post(byte[] snapshot) {
+        return given().
+                auth().preemptive().basic(securityProperties.getUser().getName(), securityProperties.getUser().getPassword()).
+                contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE).
+                body(snapshot).
+                when().
+                post("/articles/_snapshot");
+    }
+
+    private void assertRejected(byte[] snapshot, String message) throws IOException {
+        try {
+            articleSnapshots.importFrom(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), startsWith(message));
+        }
+    }
+
+    private byte[] export() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        articleSnapshots.export(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * All stored state of all articles, by id.
+     */
+    private List<String> corpus() {
+        List<String> corpus = Lists.newArrayList();
+        articleService.streamAll(article -> corpus.add(Arrays.asList(article.getId(), article.getHeader(), article.getDescription(),
+                article.getText(), article.getPublished(), article.getVersion(), article.getLastModified().getTime(),
+                article.getAuthors().stream().map(Author::getName).sorted().collect(Collectors.toList()),
+                article.getKeywords().stream().sorted().collect(Collectors.toList())).toString()));
+        return corpus;
+    }
+
+    /**
+     * Articles with and without optional fields, sharing three authors and 53 keywords.
+     */
+    private static Article article(int number) {
+        Article article = new Article();
+        article.setHeader("Header " + number);
+        article.setDescription(number % 7 == 0 ? null : "Beschreibung über Größe " + number);
+        article.setText(number % 3 == 0 ? "" : "Text " + number);
+        article.setPublished(number % 5 == 0 ? null :
+                OffsetDateTime.of(2015, 1 + number % 12, 1 + number % 28, 12, 0, 0, number * 1001, ZoneOffset.UTC));
+        article.setAuthors(number % 11 == 0 ? ImmutableSet.of() : ImmutableSet.of(Author.fromJson("Author" + number % 3)));
+        article.setKeywords(number % 13 == 0 ? ImmutableSet.of() :
+                ImmutableSet.of("snapshot", "keyword" + number % 50, number % 2 == 0 ? "even" : "odd"));
+        return article;
+    }
+}
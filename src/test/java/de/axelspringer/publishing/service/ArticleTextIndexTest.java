@@ -0,0 +1,175 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.ArticleChange;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.AuthorRepository;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.text-index.enabled:true"})
+public class ArticleTextIndexTest extends IntegrationTest {
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleTextIndex articleTextIndex;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    ArticleChangeLog articleChangeLog;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+    List<Article> articles;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+        articleTextIndex.rebuild();
+
+        articles = ImmutableList.of(
+                articleService.create(newArticle("Election results", "Who won the vote", "The votes were counted over night.",
+                        Sets.newHashSet("Author1"), Sets.newHashSet("politics"), now)),
+                articleService.create(newArticle("Football", "The cup final", "After the final whistle the election of the best player began.",
+                        Sets.newHashSet("Author2"), Sets.newHashSet("sports"), now.minusYears(1))),
+                articleService.create(newArticle("Weather", "Election day will be rainy", "Take an umbrella to the polling station.",
+                        Sets.newHashSet("Author1", "Author2"), Sets.newHashSet("weather", "politics"), null)));
+        articleTextIndex.refresh();
+    }
+
+    @Test
+    public void ranksHeaderAboveDescriptionAboveText() {
+        assertThat(search("election"), contains(articles.get(0).getId(), articles.get(2).getId(), articles.get(1).getId()));
+        assertThat(search("ELECTIONS"), is(empty()));
+        assertThat(search("elect*"), hasSize(3));
+        assertThat(search("final whistle"), contains(articles.get(1).getId()));
+        assertThat(search("\"whistle final\""), is(empty()));
+        assertThat(search("election -rainy"), contains(articles.get(0).getId(), articles.get(1).getId()));
+        assertThat(search("umbrella | football"), containsInAnyOrder(articles.get(1).getId(), articles.get(2).getId()));
+        assertThat(search("the"), is(empty()));
+    }
+
+    @Test
+    public void filtersByCriteria() {
+        assertThat(articleTextIndex.search("election", ImmutableList.of("politics", "unknown"), null, null, null, 0, 10),
+                contains(articles.get(0).getId(), articles.get(2).getId()));
+        assertThat(articleTextIndex.search("election", null, ImmutableList.of("Author2"), null, null, 0, 10),
+                contains(articles.get(2).getId(), articles.get(1).getId()));
+        assertThat(articleTextIndex.search("election", null, null, now.minusDays(1), null, 0, 10),
+                contains(articles.get(0).getId()));
+        assertThat(articleTextIndex.search("election", null, null, null, now, 0, 10),
+                contains(articles.get(1).getId()));
+    }
+
+    @Test
+    public void pages() {
+        assertThat(articleTextIndex.search("election", null, null, null, null, 1, 1), contains(articles.get(2).getId()));
+        assertThat(articleTextIndex.search("election", null, null, null, null, 2, 5), contains(articles.get(1).getId()));
+        assertThat(articleTextIndex.search("election", null, null, null, null, 3, 5), is(empty()));
+    }
+
+    @Test
+    public void writeThrough() {
+        Article article = newArticle("Weather", "Sunny", "No rain today.", Sets.newHashSet("Author1"), Sets.newHashSet("weather"), now);
+        article.setId(articles.get(2).getId());
+        articleService.update(article);
+        articleService.delete(articles.get(1).getId());
+        articleTextIndex.refresh();
+
+        assertThat(search("election"), contains(articles.get(0).getId()));
+        assertThat(search("sunny"), contains(articles.get(2).getId()));
+        assertThat(articleTextIndex.size(), equalTo(2));
+    }
+
+    @Test
+    public void followsChangesOfOtherInstances() {
+        // written like by another instance, which doesn't update this index
+        new TransactionTemplate(transactionManager).execute(status -> {
+            Article article = articleRepository.findForDisplay(articles.get(0).getId());
+            article.setHeader("Referendum results");
+            articleRepository.saveAndFlush(article);
+            articleChangeLog.append(article.getId(), article.getVersion(), ArticleChange.Operation.UPDATED);
+            return null;
+        });
+        articleTextIndex.refresh();
+
+        assertThat(search("referendum"), contains(articles.get(0).getId()));
+        assertThat(articleTextIndex.isReady(), is(true));
+    }
+
+    @Test
+    public void rebuild() {
+        articleRepository.delete(articles.get(0).getId());
+        assertThat(search("election"), hasSize(3));
+
+        articleTextIndex.rebuild();
+        assertThat(search("election"), contains(articles.get(2).getId(), articles.get(1).getId()));
+        assertThat(articleTextIndex.size(), equalTo(2));
+    }
+
+    @Test
+    public void searchEndpoint() {
+        when().
+                get("/articles/search?q=election&authors=Author2&fields=header").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results.id", contains(articles.get(2).getId(), articles.get(1).getId())).
+                body("results.header", contains("Weather", "Football"));
+        when().
+                get("/articles/search?q=election&offset=1&limit=1").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results", contains(articles.get(2).getId()));
+        when().
+                get("/articles/search?q=election&offset=10000").
+                then().
+                statusCode(HttpStatus.BAD_REQUEST.value());
+        when().
+                get("/articles/search?q=election&offset=" + Integer.MAX_VALUE).
+                then().
+                statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    private List<Integer> search(String text) {
+        return articleTextIndex.search(text, null, null, null, null, 0, 10);
+    }
+
+    private Article newArticle(String header, String description, String text, Set<String> authors, Set<String> keywords, OffsetDateTime published) {
+        Article article = new Article();
+        article.setHeader(header);
+        article.setDescription(description);
+        article.setText(text);
+        article.setAuthors(authors.stream().map(Author::fromJson).collect(Collectors.toSet()));
+        article.setKeywords(keywords);
+        article.setPublished(published);
+        return article;
+    }
+}
@@ -0,0 +1,91 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.AuthorRepository;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class AuthorCacheTest extends IntegrationTest {
+
+    @Autowired
+    AuthorCache authorCache;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentResolutionInsertsOnce() throws Exception {
+        Set<String> names = ImmutableSet.of("Author1", "Author2", "Author3");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Map<String, Author>>> calls = Lists.newArrayList();
+            for (int i = 0; i < 32; i++) {
+                calls.add(() -> authorCache.resolve(names));
+            }
+            List<Future<Map<String, Author>>> results = executor.invokeAll(calls);
+            Map<String, Author> first = results.get(0).get();
+            for (Future<Map<String, Author>> result : results) {
+                for (String name : names) {
+                    assertThat(result.get().get(name).getId(), equalTo(first.get(name).getId()));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(authorRepository.count(), equalTo(3L));
+    }
+
+    @Test
+    public void knownAuthorsCostNoQueries() {
+        Set<String> names = ImmutableSet.of("Author1", "Author2");
+        // inserts the authors, then loads them into the second-level cache
+        authorCache.resolve(names);
+        authorCache.resolve(names);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(authorCache.resolve(names).keySet(), equalTo(names));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(statements));
+    }
+
+    @Test
+    public void resolvesAuthorsStoredBehindTheCache() {
+        Author stored = authorRepository.saveAndFlush(Author.fromJson("Author1"));
+        assertThat(authorCache.resolve(ImmutableSet.of("Author1")).get("Author1").getId(), equalTo(stored.getId()));
+
+        authorRepository.deleteAll();
+        Author recreated = authorCache.resolve(ImmutableSet.of("Author1")).get("Author1");
+        assertThat(recreated.getId(), not(equalTo(stored.getId())));
+        assertThat(authorRepository.findOne(recreated.getId()).getName(), equalTo("Author1"));
+    }
+}
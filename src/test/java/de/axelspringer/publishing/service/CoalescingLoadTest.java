@@ -0,0 +1,160 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.ReadRouting;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * 32 clients reading the same article and searching with the same criteria, written differently, against a database
+ * taking 20ms a statement. Compares the statements run with and without coalescing.
+ */
+public class CoalescingLoadTest extends IntegrationTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoalescingLoadTest.class);
+
+    private static final int CLIENTS = 32;
+    private static final int CALLS_PER_CLIENT = 25;
+    private static final long LATENCY_MILLIS = 20;
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    private ArticleService target;
+    private final AtomicInteger statements = new AtomicInteger();
+    private final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+    private Integer id;
+
+    @Before
+    public void setUp() throws Exception {
+        articleRepository.deleteAll();
+        Article article = new Article();
+        article.setHeader("Coalesced");
+        article.setText("Text");
+        article.setPublished(OffsetDateTime.of(2015, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC));
+        article.setAuthors(ImmutableSet.of(Author.fromJson("Author")));
+        article.setKeywords(ImmutableSet.of("one", "two"));
+        id = articleService.create(article).getId();
+
+        target = (ArticleService) ((Advised) articleService).getTargetSource().getTarget();
+        ReflectionTestUtils.setField(target, "articleRepository", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ArticleRepository.class}, (proxy, method, args) -> {
+                    if(method.getName().equals("findForDisplay") || method.getName().equals("findIds")) {
+                        statements.incrementAndGet();
+                        Thread.sleep(LATENCY_MILLIS);
+                    }
+                    try {
+                        return method.invoke(articleRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+
+    @After
+    public void tearDown() {
+        clients.shutdownNow();
+        ReflectionTestUtils.setField(target, "articleRepository", articleRepository);
+        ReflectionTestUtils.setField(target, "coalescing", true);
+    }
+
+    @Test
+    public void collapsesIdenticalReads() throws Exception {
+        long collapsed = articleService.getSingleFlights().get(0).getCollapsed();
+        int coalesced = run("read", () -> articleService.read(id).getHeader());
+        assertThat(articleService.getSingleFlights().get(0).getCollapsed() - collapsed,
+                equalTo((long) CLIENTS * CALLS_PER_CLIENT - coalesced));
+
+        ReflectionTestUtils.setField(target, "coalescing", false);
+        int uncoalesced = run("read without coalescing", () -> articleService.read(id).getHeader());
+
+        assertThat(uncoalesced, equalTo(CLIENTS * CALLS_PER_CLIENT));
+        assertThat(coalesced, lessThan(uncoalesced / 4));
+    }
+
+    @Test
+    public void runsReadsOnThePrimaryOnTheirOwn() throws Exception {
+        long collapsed = articleService.getSingleFlights().get(0).getCollapsed();
+        int statements = run("read on the primary", () -> ReadRouting.onPrimary(() -> articleService.read(id).getHeader()));
+
+        assertThat(statements, equalTo(CLIENTS * CALLS_PER_CLIENT));
+        assertThat(articleService.getSingleFlights().get(0).getCollapsed(), equalTo(collapsed));
+    }
+
+    @Test
+    public void collapsesSearchesWithCriteriaInAnyOrderAndOffset() throws Exception {
+        OffsetDateTime since = OffsetDateTime.of(2015, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        List<List<String>> keywords = ImmutableList.of(ImmutableList.of("one", "two"), ImmutableList.of("two", "one", "two"));
+        List<OffsetDateTime> sinces = ImmutableList.of(since, since.withOffsetSameInstant(ZoneOffset.ofHours(2)));
+        AtomicInteger calls = new AtomicInteger();
+        Callable<Object> search = () -> {
+            int call = calls.incrementAndGet();
+            List<Integer> ids = articleService.findIds(keywords.get(call % 2), null, sinces.get(call / 2 % 2), null, 0, 10);
+            assertThat(ids, contains(id));
+            return ids;
+        };
+        int coalesced = run("find-ids", search);
+
+        ReflectionTestUtils.setField(target, "coalescing", false);
+        int uncoalesced = run("find-ids without coalescing", search);
+
+        assertThat(uncoalesced, equalTo(CLIENTS * CALLS_PER_CLIENT));
+        assertThat(coalesced, lessThan(uncoalesced / 4));
+    }
+
+    /**
+     * Lets each client make its calls one after the other.
+     *
+     * @return the statements run
+     */
+    private int run(String name, Callable<Object> call) throws Exception {
+        statements.set(0);
+        List<Future<?>> results = Lists.newArrayList();
+        long started = System.nanoTime();
+        for (int i = 0; i < CLIENTS; i++) {
+            results.add(clients.submit(() -> {
+                for (int j = 0; j < CALLS_PER_CLIENT; j++) {
+                    call.call();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        LOG.info("{}: {} calls/s, {} statements/s", name, Math.round(CLIENTS * CALLS_PER_CLIENT / seconds),
+                Math.round(statements.get() / seconds));
+        return statements.get();
+    }
+}
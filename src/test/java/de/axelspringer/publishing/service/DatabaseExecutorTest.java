@@ -0,0 +1,99 @@
+package de.axelspringer.publishing.service;
+
+import de.axelspringer.publishing.exception.ServiceUnavailableException;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.service.DatabaseExecutor.Workload;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.async.threads:2", "articles.async.queue-capacity:1",
+        "articles.async.queue-timeout-millis:200", "articles.async.bulkheads.search:1"})
+public class DatabaseExecutorTest extends IntegrationTest {
+
+    @Autowired
+    DatabaseExecutor databaseExecutor;
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    CountDownLatch release = new CountDownLatch(1);
+    Article article;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        article = new Article();
+        article.setHeader("Header");
+        article = articleService.create(article);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void slowSearchDoesNotStarveDisplay() throws Exception {
+        CompletableFuture<Boolean> slowSearch = databaseExecutor.submit(Workload.SEARCH, () -> release.await(10, TimeUnit.SECONDS));
+
+        when().get("/articles/search?keywords=keyword1").then().statusCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+        when().get("/articles/{id}", article.getId()).then().statusCode(HttpStatus.OK.value()).body("header", equalTo("Header"));
+        when().get("/articles").then().statusCode(HttpStatus.OK.value());
+
+        release.countDown();
+        assertThat(slowSearch.get(), is(true));
+        when().get("/articles/search?keywords=keyword1").then().statusCode(HttpStatus.OK.value());
+        when().
+                get("/metrics").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("'bulkhead.search.rejected'", greaterThan(0)).
+                body("'bulkhead.search.limit'", equalTo(1));
+    }
+
+    @Test
+    public void rejectsWorkWaitingTooLong() throws Exception {
+        databaseExecutor.submit(Workload.DISPLAY, () -> release.await(10, TimeUnit.SECONDS));
+        databaseExecutor.submit(Workload.DISPLAY, () -> release.await(10, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = databaseExecutor.submit(Workload.LIST, () -> "listed");
+        CompletableFuture<String> overflowing = databaseExecutor.submit(Workload.LIST, () -> "listed");
+        assertRejected(overflowing);
+
+        Thread.sleep(300);
+        release.countDown();
+        assertRejected(queued);
+        assertThat(databaseExecutor.submit(Workload.LIST, () -> "listed").get(), equalTo("listed"));
+        assertThat(databaseExecutor.getTimedOut(), greaterThan(0L));
+        assertThat(databaseExecutor.getRejected(), greaterThan(0L));
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Work should have been rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ServiceUnavailableException.class));
+        } catch (TimeoutException e) {
+            fail("Work should have been rejected");
+        }
+    }
+}
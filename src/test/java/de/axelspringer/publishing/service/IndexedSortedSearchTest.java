@@ -0,0 +1,15 @@
+package de.axelspringer.publishing.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.search.facet-size:2", "articles.index.enabled:true"})
+public class IndexedSortedSearchTest extends SortedSearchTest {
+
+    @Autowired
+    ArticleIndex articleIndex;
+
+    @Override
+    protected void reindex() {
+        articleIndex.rebuild();
+    }
+}
@@ -0,0 +1,48 @@
+package de.axelspringer.publishing.service;
+
+import de.axelspringer.publishing.service.SearchPage.Facet;
+import de.axelspringer.publishing.service.SearchPage.Sort;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class SearchCollectorTest {
+
+    @Test
+    public void collectsMatchesInAnyOrder() {
+        SearchCollector articlesFirst = collector();
+        articlesFirst.article(1, 100L);
+        articlesFirst.article(2, null);
+        articlesFirst.article(3, 300L);
+        articlesFirst.keyword("politics");
+        articlesFirst.keyword("politics");
+        articlesFirst.keyword("sports");
+        articlesFirst.author("Author1");
+
+        // like a database returning the rows of the union interleaved
+        SearchCollector interleaved = collector();
+        interleaved.keyword("sports");
+        interleaved.article(3, 300L);
+        interleaved.author("Author1");
+        interleaved.keyword("politics");
+        interleaved.article(2, null);
+        interleaved.keyword("politics");
+        interleaved.article(1, 100L);
+
+        SearchPage expected = articlesFirst.page();
+        SearchPage page = interleaved.page();
+        assertThat(page.getIds(), contains(3, 1));
+        assertThat(page.getIds(), equalTo(expected.getIds()));
+        assertThat(page.getNext(), equalTo(expected.getNext()));
+        assertThat(page.getFacets(), equalTo(expected.getFacets()));
+        assertThat(page.getFacets().get("keywords"), hasEntry("politics", 2));
+        assertThat(interleaved.matches(), equalTo(3));
+    }
+
+    private static SearchCollector collector() {
+        return new SearchCollector(Sort.PUBLISHED, null, 2, EnumSet.of(Facet.KEYWORDS, Facet.AUTHORS), 10);
+    }
+}
@@ -0,0 +1,110 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Eight callers at once, held until all of them have called.
+ */
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<String, Integer> flight = new SingleFlight<>("test");
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void collapsesConcurrentCallsWithEqualKeys() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = call("key", () -> {
+            await(release);
+            return executions.incrementAndGet();
+        });
+        awaitCalls(CALLERS);
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS), equalTo(1));
+        }
+        assertThat(executions.get(), equalTo(1));
+        assertThat(flight.getCollapsed(), equalTo((long) CALLERS - 1));
+        assertThat(flight.getInFlight(), equalTo(0));
+    }
+
+    @Test
+    public void sharesExceptions() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = call("key", () -> {
+            await(release);
+            executions.incrementAndGet();
+            throw new IllegalStateException("failed");
+        });
+        awaitCalls(CALLERS);
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+            }
+        }
+        assertThat(executions.get(), equalTo(1));
+        assertThat(flight.getInFlight(), equalTo(0));
+    }
+
+    @Test
+    public void runsCallsWithOtherKeysAndLaterCallsAnew() {
+        assertThat(flight.execute("key", executions::incrementAndGet), equalTo(1));
+        assertThat(flight.execute("key", executions::incrementAndGet), equalTo(2));
+        assertThat(flight.execute("other", executions::incrementAndGet), equalTo(3));
+        assertThat(flight.getCalls(), equalTo(3L));
+        assertThat(flight.getCollapsed(), equalTo(0L));
+    }
+
+    private List<Future<Integer>> call(String key, Supplier<Integer> work) {
+        List<Future<Integer>> results = Lists.newArrayList();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> flight.execute(key, work)));
+        }
+        return results;
+    }
+
+    private void awaitCalls(long calls) throws InterruptedException {
+        while (flight.getCalls() < calls) {
+            Thread.sleep(1);
+        }
+        // the followers are about to join
+        Thread.sleep(50);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.jayway.restassured.response.ExtractableResponse;
+import com.jayway.restassured.response.Response;
+import de.axelspringer.publishing.model.Article;
+import de.axelspringer.publishing.model.Author;
+import de.axelspringer.publishing.persistence.ArticleRepository;
+import de.axelspringer.publishing.persistence.AuthorRepository;
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.jayway.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Sorted, cursor paged and faceted search answered by the database; the subclasses run the same against the indexes.
+ */
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.search.facet-size:2"})
+public class SortedSearchTest extends IntegrationTest {
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    List<Integer> ids;
+
+    @Before
+    public void setUp() {
+        articleRepository.deleteAll();
+        authorRepository.deleteAll();
+        reindex();
+        ids = Lists.newArrayList();
+        ids.add(create(0, published(2015, 1, 10), ImmutableSet.of("Author1"), "politics"));
+        ids.add(create(1, published(2015, 3, 5), ImmutableSet.of("Author2"), "sports"));
+        ids.add(create(2, null, ImmutableSet.of("Author1", "Author2"), "politics"));
+        ids.add(create(3, published(2015, 3, 20), ImmutableSet.of("Author3"), "politics"));
+        ids.add(create(4, OffsetDateTime.of(2014, 12, 31, 23, 30, 0, 0, ZoneOffset.UTC), ImmutableSet.of("Author1"), null));
+        refresh();
+    }
+
+    /**
+     * Query parameters matching all articles of the test.
+     */
+    protected String criteria() {
+        return "keywords=sorted-search";
+    }
+
+    protected void reindex() {
+    }
+
+    protected void refresh() {
+    }
+
+    @Test
+    public void sortsByPublishedNewestFirstAndPagesByCursor() {
+        ExtractableResponse<Response> page = search("sort=published&limit=2");
+        assertThat(page.path("results"), contains(ids.get(3), ids.get(1)));
+
+        page = search("sort=published&limit=2&cursor=" + page.path("next"));
+        assertThat(page.path("results"), contains(ids.get(0), ids.get(4)));
+
+        page = search("sort=published&limit=2&cursor=" + page.path("next"));
+        assertThat(page.path("results"), contains(ids.get(2)));
+        assertThat(page.path("next"), nullValue());
+    }
+
+    @Test
+    public void sortsById() {
+        ExtractableResponse<Response> page = search("sort=id&limit=3");
+        assertThat(page.path("results"), contains(ids.get(0), ids.get(1), ids.get(2)));
+
+        page = search("sort=id&limit=3&cursor=" + page.path("next"));
+        assertThat(page.path("results"), contains(ids.get(3), ids.get(4)));
+        assertThat(page.path("next"), nullValue());
+    }
+
+    @Test
+    public void countsTheMostFrequentFacetsOfAllMatches() {
+        when().
+                get("/articles/search?" + criteria() + "&facets=keywords,authors,months&limit=1").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results", hasSize(1)).
+                body("next", notNullValue()).
+                body("facets.keywords", equalTo(ImmutableMap.of("sorted-search", 5, "politics", 3))).
+                body("facets.authors", equalTo(ImmutableMap.of("Author1", 3, "Author2", 2))).
+                body("facets.months", equalTo(ImmutableMap.of("2015-03", 2, "2014-12", 1)));
+    }
+
+    @Test
+    public void returnsSummaries() {
+        when().
+                get("/articles/search?" + criteria() + "&sort=published&limit=1&fields=header").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("results.id", contains(ids.get(3))).
+                body("results.header", contains("Sorted article 3"));
+    }
+
+    @Test
+    public void rejectsInvalidPaging() {
+        when().get("/articles/search?" + criteria() + "&sort=published&offset=1").then().statusCode(HttpStatus.BAD_REQUEST.value());
+        when().get("/articles/search?" + criteria() + "&sort=oldest").then().statusCode(HttpStatus.BAD_REQUEST.value());
+        when().get("/articles/search?" + criteria() + "&facets=topics").then().statusCode(HttpStatus.BAD_REQUEST.value());
+        when().get("/articles/search?" + criteria() + "&cursor=bm90LWEtY3Vyc29y").then().statusCode(HttpStatus.BAD_REQUEST.value());
+        when().get("/articles/search?" + criteria() + "&sort=published&limit=1001").then().statusCode(HttpStatus.BAD_REQUEST.value());
+        when().get("/articles/search?keywords=sorted-search&sort=relevance").then().statusCode(HttpStatus.BAD_REQUEST.value());
+
+        String next = search("sort=id&limit=1").path("next");
+        when().get("/articles/search?" + criteria() + "&sort=published&cursor=" + next).then().statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    ExtractableResponse<Response> search(String parameters) {
+        return when().
+                get("/articles/search?" + criteria() + "&" + parameters).
+                then().
+                statusCode(HttpStatus.OK.value()).
+                extract();
+    }
+
+    private Integer create(int number, OffsetDateTime published, Set<String> authors, String keyword) {
+        Article article = new Article();
+        article.setHeader("Sorted article " + number);
+        article.setPublished(published);
+        article.setAuthors(authors.stream().map(Author::fromJson).collect(Collectors.toSet()));
+        article.setKeywords(keyword != null ? ImmutableSet.of("sorted-search", keyword) : ImmutableSet.of("sorted-search"));
+        return articleService.create(article).getId();
+    }
+
+    private static OffsetDateTime published(int year, int month, int day) {
+        return OffsetDateTime.of(year, month, day, 12, 0, 0, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,48 @@
+package de.axelspringer.publishing.service;
+
+import com.google.common.collect.Lists;
+import com.jayway.restassured.response.ExtractableResponse;
+import com.jayway.restassured.response.Response;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.search.facet-size:2", "articles.text-index.enabled:true"})
+public class TextIndexedSortedSearchTest extends SortedSearchTest {
+
+    @Autowired
+    ArticleTextIndex articleTextIndex;
+
+    @Override
+    protected String criteria() {
+        return "q=sorted&" + super.criteria();
+    }
+
+    @Override
+    protected void reindex() {
+        articleTextIndex.rebuild();
+    }
+
+    @Override
+    protected void refresh() {
+        articleTextIndex.refresh();
+    }
+
+    @Test
+    public void pagesByRelevance() {
+        List<Integer> results = Lists.newArrayList();
+        ExtractableResponse<Response> page = search("sort=relevance&limit=2");
+        results.addAll(page.path("results"));
+        while (page.path("next") != null) {
+            page = search("sort=relevance&limit=2&cursor=" + page.path("next"));
+            results.addAll(page.path("results"));
+        }
+        assertThat(results, containsInAnyOrder(ids.toArray()));
+
+        assertThat(search("facets=keywords&limit=5").path("results"), equalTo(results));
+    }
+}
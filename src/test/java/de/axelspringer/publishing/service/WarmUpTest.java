@@ -0,0 +1,42 @@
+package de.axelspringer.publishing.service;
+
+import de.axelspringer.publishing.util.IntegrationTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.http.HttpStatus;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@org.springframework.boot.test.IntegrationTest({"server.port:0", "articles.warm-up.enabled:true", "articles.warm-up.iterations:20"})
+public class WarmUpTest extends IntegrationTest {
+
+    @Autowired
+    WarmUp warmUp;
+
+    @Autowired
+    SecurityProperties securityProperties;
+
+    @Test
+    public void reportsOutOfServiceUntilWarmedUp() throws InterruptedException {
+        assertThat(new WarmUp().health().getStatus(), equalTo(Status.OUT_OF_SERVICE));
+
+        for (int i = 0; i < 200 && !warmUp.isDone(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(warmUp.isDone(), is(true));
+        // /health is open, details are only shown to an authenticated user
+        given().
+                auth().preemptive().basic(securityProperties.getUser().getName(), securityProperties.getUser().getPassword()).
+                when().
+                get("/health").
+                then().
+                statusCode(HttpStatus.OK.value()).
+                body("status", equalTo("UP")).
+                body("warmUp.status", equalTo("UP")).
+                body("warmUp.iterations", equalTo(20));
+    }
+}
@@ -12,6 +12,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 
+import javax.persistence.EntityManagerFactory;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @WebAppConfiguration
 @org.springframework.boot.test.IntegrationTest({"server.port:0"})
@@ -24,6 +26,18 @@ public abstract class IntegrationTest {
     @Autowired
     SecurityProperties securityProperties;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Test contexts share the embedded database and the singleton second level cache, so a context recreating the schema
+     * would otherwise find entries of another context's articles under the same ids, with other versions.
+     */
+    @Before
+    public void evictSecondLevelCache() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
     @Before
     public void initRestAssured() {
         RestAssured.port = port;